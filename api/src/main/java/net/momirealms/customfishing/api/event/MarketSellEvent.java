@@ -0,0 +1,104 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This class represents an event that is triggered once when a player sells items in the market,
+ * whether a single slot or all the items at once.
+ * It can be cancelled to prevent the sale.
+ */
+public class MarketSellEvent extends PlayerEvent implements Cancellable {
+    private static final HandlerList handlerList = new HandlerList();
+
+    private final List<ItemStack> items;
+    private final int amount;
+    private final double worth;
+    private boolean isCancelled;
+
+    /**
+     * Constructs a new MarketSellEvent.
+     *
+     * @param who The player who is selling the items
+     * @param items The items being sold
+     * @param amount The number of items being sold
+     * @param worth The money earned from the sale, with the earnings multiplier applied
+     */
+    public MarketSellEvent(@NotNull Player who, List<ItemStack> items, int amount, double worth) {
+        super(who);
+        this.items = items;
+        this.amount = amount;
+        this.worth = worth;
+        this.isCancelled = false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        isCancelled = cancel;
+    }
+
+    /**
+     * Gets the items being sold. A bundle or a shulker box is sold for the items in it.
+     *
+     * @return The items being sold
+     */
+    @NotNull
+    public List<ItemStack> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the number of items being sold.
+     *
+     * @return The number of items
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the money earned from the sale.
+     *
+     * @return The money earned
+     */
+    public double getWorth() {
+        return worth;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlerList;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlerList;
+    }
+}
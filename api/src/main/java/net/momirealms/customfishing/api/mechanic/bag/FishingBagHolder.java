@@ -17,23 +17,35 @@
 
 package net.momirealms.customfishing.api.mechanic.bag;
 
+import net.momirealms.customfishing.api.util.InventoryUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The FishingBagHolder class represents a holder for a player's fishing bag inventory.
+ * A bag loaded from the player data keeps its serialized items until the inventory is first accessed,
+ * so that the bags never opened are neither deserialized nor serialized again.
  */
 public class FishingBagHolder implements InventoryHolder {
 
+    private static final AtomicLong lazyBags = new AtomicLong();
+    private static final AtomicLong loadedBags = new AtomicLong();
+
     private final UUID owner;
-    private Inventory inventory;
+    private final FishingBagIndex index = new FishingBagIndex();
+    private volatile Inventory inventory;
+    // the serialized items and the size of the bag, until the inventory is created
+    private String serialized;
+    private int size;
 
     /**
      * Constructs a new FishingBagHolder for the specified owner.
@@ -53,6 +65,7 @@ public class FishingBagHolder implements InventoryHolder {
      */
     @Override
     public @NotNull Inventory getInventory() {
+        Inventory inventory = load();
         Player player = Bukkit.getPlayer(owner);
         if (player != null) {
             int rows = BagManager.getBagInventoryRows(player);
@@ -65,18 +78,70 @@ public class FishingBagHolder implements InventoryHolder {
                 }
                 newBag.setContents(newContents);
                 this.setInventory(newBag);
+                return newBag;
             }
         }
         return inventory;
     }
 
+    /**
+     * Checks whether the inventory has been created, or the bag still holds its serialized items.
+     *
+     * @return true if the inventory has been created.
+     */
+    public boolean isLoaded() {
+        return inventory != null;
+    }
+
+    /**
+     * Retrieves the serialized items the bag was created with, as long as its inventory has not been accessed.
+     *
+     * @return the serialized items, or null if the inventory has been created.
+     */
+    @Nullable
+    public synchronized String getSerialized() {
+        return inventory == null ? serialized : null;
+    }
+
+    /**
+     * Retrieves the size of the bag, without creating its inventory.
+     *
+     * @return the size of the bag.
+     */
+    public synchronized int getSize() {
+        return inventory == null ? size : inventory.getSize();
+    }
+
+    private synchronized Inventory load() {
+        Inventory inventory = this.inventory;
+        if (inventory == null) {
+            inventory = Bukkit.createInventory(this, size);
+            inventory.setContents(InventoryUtils.getInventoryItems(serialized));
+            this.serialized = null;
+            this.inventory = inventory;
+            this.index.invalidate();
+            loadedBags.incrementAndGet();
+        }
+        return inventory;
+    }
+
     /**
      * Sets the items in the inventory.
      *
      * @param itemStacks the array of ItemStacks to set in the inventory.
      */
     public void setItems(ItemStack[] itemStacks) {
-        this.inventory.setContents(itemStacks);
+        load().setContents(itemStacks);
+        this.index.invalidate();
+    }
+
+    /**
+     * Retrieves the index of the items in this fishing bag.
+     *
+     * @return the index.
+     */
+    public FishingBagIndex getIndex() {
+        return index;
     }
 
     /**
@@ -93,8 +158,10 @@ public class FishingBagHolder implements InventoryHolder {
      *
      * @param inventory the inventory to set.
      */
-    public void setInventory(Inventory inventory) {
+    public synchronized void setInventory(Inventory inventory) {
         this.inventory = inventory;
+        this.serialized = null;
+        this.index.invalidate();
     }
 
     /**
@@ -112,4 +179,43 @@ public class FishingBagHolder implements InventoryHolder {
         holder.setItems(itemStacks);
         return holder;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a new FishingBagHolder whose inventory is created from the serialized items when first accessed.
+     *
+     * @param owner the UUID of the player who owns this fishing bag.
+     * @param serialized the serialized items.
+     * @param size the size of the inventory (must be a multiple of 9).
+     * @return the newly created FishingBagHolder.
+     */
+    public static FishingBagHolder lazy(UUID owner, String serialized, int size) {
+        FishingBagHolder holder = new FishingBagHolder(owner);
+        holder.serialized = serialized;
+        holder.size = size;
+        lazyBags.incrementAndGet();
+        return holder;
+    }
+
+    /**
+     * Gets the number of bags created from serialized items, and the number of those whose inventory has been accessed.
+     * The difference is the number of bags never deserialized.
+     *
+     * @return the stats
+     */
+    public static LazyStats lazyStats() {
+        return new LazyStats(lazyBags.get(), loadedBags.get());
+    }
+
+    /**
+     * The stats of the bags created from serialized items.
+     *
+     * @param created the number of bags created
+     * @param loaded  the number of bags whose items have been deserialized
+     */
+    public record LazyStats(long created, long loaded) {
+
+        public long skipped() {
+            return created - loaded;
+        }
+    }
+}
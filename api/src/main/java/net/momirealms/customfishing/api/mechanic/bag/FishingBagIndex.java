@@ -0,0 +1,182 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.bag;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * An index of the items in a fishing bag, from item ID to the slots holding it, along with the free slots.
+ * It saves resolving the ID of every item in the bag on each cast, and scanning the whole bag to collect a loot.
+ * The index is rebuilt lazily once it's invalidated, and checks the types of the slots it reads,
+ * so that the changes made outside the bag GUI are noticed as well.
+ */
+public class FishingBagIndex {
+
+    private final HashMap<String, BitSet> slotsByID = new HashMap<>();
+    private final BitSet freeSlots = new BitSet();
+    // the types of the indexed slots, to detect the changes made without invalidating the index
+    private Material[] types = new Material[0];
+    private boolean valid;
+
+    /**
+     * Marks the index as outdated, it is rebuilt on the next use.
+     */
+    public synchronized void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * Gets the distinct items in the bag.
+     *
+     * @param inventory the inventory of the bag
+     * @return the items, each one with the items in its first and last slots
+     */
+    public synchronized List<IndexedItem> items(Inventory inventory) {
+        ensureValid(inventory);
+        List<IndexedItem> items = collect(inventory);
+        if (items == null) {
+            rebuild(inventory);
+            items = collect(inventory);
+        }
+        return items == null ? List.of() : items;
+    }
+
+    /**
+     * Puts items into the bag, filling the stacks of the same item first and then the free slots.
+     *
+     * @param inventory the inventory of the bag
+     * @param itemStack the items
+     * @param amount    the amount to put
+     * @return the amount that can't be put
+     */
+    public synchronized int put(Inventory inventory, ItemStack itemStack, int amount) {
+        ensureValid(inventory);
+        int left = fill(inventory, itemStack, amount);
+        if (left > 0) {
+            // the slots emptied without a bag event, like the items sold or the baits used, are only found by a rebuild
+            rebuild(inventory);
+            left = fill(inventory, itemStack, left);
+        }
+        return left;
+    }
+
+    private int fill(Inventory inventory, ItemStack itemStack, int amount) {
+        String id = BukkitCustomFishingPlugin.getInstance().getItemManager().getItemID(itemStack);
+        int maxStackSize = itemStack.getMaxStackSize();
+        BitSet slots = slotsByID.get(id);
+        if (slots != null) {
+            for (int slot = slots.nextSetBit(0); slot >= 0 && amount > 0; slot = slots.nextSetBit(slot + 1)) {
+                ItemStack other = inventory.getItem(slot);
+                if (!matches(other, slot)) {
+                    // changed elsewhere, start over from a fresh index
+                    rebuild(inventory);
+                    return fill(inventory, itemStack, amount);
+                }
+                if (other.getAmount() < maxStackSize && other.isSimilar(itemStack)) {
+                    int delta = Math.min(maxStackSize - other.getAmount(), amount);
+                    other.setAmount(other.getAmount() + delta);
+                    amount -= delta;
+                }
+            }
+        }
+        while (amount > 0) {
+            int slot = freeSlots.nextSetBit(0);
+            if (slot < 0 || slot >= inventory.getSize()) break;
+            ItemStack other = inventory.getItem(slot);
+            if (!isEmpty(other)) {
+                rebuild(inventory);
+                return fill(inventory, itemStack, amount);
+            }
+            ItemStack cloned = itemStack.clone();
+            cloned.setAmount(Math.min(maxStackSize, amount));
+            inventory.setItem(slot, cloned);
+            amount -= cloned.getAmount();
+            freeSlots.clear(slot);
+            slotsByID.computeIfAbsent(id, k -> new BitSet()).set(slot);
+            types[slot] = cloned.getType();
+        }
+        return amount;
+    }
+
+    private void ensureValid(Inventory inventory) {
+        if (!valid || types.length != inventory.getSize()) {
+            rebuild(inventory);
+        }
+    }
+
+    private void rebuild(Inventory inventory) {
+        slotsByID.clear();
+        freeSlots.clear();
+        types = new Material[inventory.getSize()];
+        for (int slot = 0; slot < types.length; slot++) {
+            ItemStack itemStack = inventory.getItem(slot);
+            if (isEmpty(itemStack)) {
+                freeSlots.set(slot);
+                types[slot] = Material.AIR;
+                continue;
+            }
+            types[slot] = itemStack.getType();
+            String id = BukkitCustomFishingPlugin.getInstance().getItemManager().getItemID(itemStack);
+            slotsByID.computeIfAbsent(id, k -> new BitSet()).set(slot);
+        }
+        valid = true;
+    }
+
+    // null if a slot no longer holds the indexed item
+    private List<IndexedItem> collect(Inventory inventory) {
+        ArrayList<IndexedItem> items = new ArrayList<>(slotsByID.size());
+        for (Map.Entry<String, BitSet> entry : slotsByID.entrySet()) {
+            BitSet slots = entry.getValue();
+            int firstSlot = slots.nextSetBit(0);
+            int lastSlot = slots.length() - 1;
+            if (firstSlot < 0) continue;
+            ItemStack first = inventory.getItem(firstSlot);
+            ItemStack last = firstSlot == lastSlot ? first : inventory.getItem(lastSlot);
+            if (!matches(first, firstSlot) || !matches(last, lastSlot)) {
+                return null;
+            }
+            items.add(new IndexedItem(entry.getKey(), firstSlot, first, last));
+        }
+        items.sort(Comparator.comparingInt(IndexedItem::firstSlot));
+        return items;
+    }
+
+    private static boolean isEmpty(ItemStack itemStack) {
+        return itemStack == null || itemStack.getType() == Material.AIR || itemStack.getAmount() <= 0;
+    }
+
+    private boolean matches(ItemStack itemStack, int slot) {
+        return itemStack != null && itemStack.getAmount() > 0 && itemStack.getType() == types[slot];
+    }
+
+    /**
+     * An item in the bag.
+     *
+     * @param id        the ID of the item
+     * @param firstSlot the first slot holding the item
+     * @param first     the item in the first slot
+     * @param last      the item in the last slot
+     */
+    public record IndexedItem(String id, int firstSlot, ItemStack first, ItemStack last) {
+    }
+}
@@ -44,21 +44,13 @@ public final class CompetitionGoal {
     );
     public static final CompetitionGoal MAX_SIZE = new CompetitionGoal(
             "max_size", false,
-            ((rankingProvider, player, score) -> {
-                if (rankingProvider.getPlayerScore(player) < score) {
-                    rankingProvider.setData(player, score);
-                }
-            }),
+            ((rankingProvider, player, score) -> rankingProvider.updateMax(player, score)),
             () -> Optional.ofNullable(TranslationManager.miniMessageTranslation(MessageConstants.GOAL_MAX_SIZE.build().key())).orElse("max_size")
     );
     public static final CompetitionGoal MIN_SIZE = new CompetitionGoal(
             "min_size", true,
-            ((rankingProvider, player, score) -> {
-                double previousScore = -rankingProvider.getPlayerScore(player);
-                if (previousScore == 0 || previousScore > score) {
-                    rankingProvider.setData(player, -score);
-                }
-            }),
+            // the scores are stored negated, so that the smallest size ranks first
+            ((rankingProvider, player, score) -> rankingProvider.updateMax(player, -score)),
             () -> Optional.ofNullable(TranslationManager.miniMessageTranslation(MessageConstants.GOAL_MIN_SIZE.build().key())).orElse("min_size")
     );
     public static final CompetitionGoal TOTAL_SIZE = new CompetitionGoal(
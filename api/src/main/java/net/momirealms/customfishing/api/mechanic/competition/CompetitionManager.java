@@ -21,6 +21,7 @@ import net.momirealms.customfishing.common.plugin.feature.Reloadable;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -57,12 +58,29 @@ public interface CompetitionManager extends Reloadable {
 
     /**
      * Gets the ongoing competition, if any.
+     * If several competitions are running at the same time, the one started first is returned.
      *
      * @return the ongoing competition, or null if there is none.
      */
     @Nullable
     FishingCompetition getOnGoingCompetition();
 
+    /**
+     * Gets the ongoing competition with the given ID.
+     *
+     * @param id the ID of the competition.
+     * @return the ongoing competition, or null if it's not running.
+     */
+    @Nullable
+    FishingCompetition getOnGoingCompetition(String id);
+
+    /**
+     * Gets all the ongoing competitions, in the order they started.
+     *
+     * @return the ongoing competitions.
+     */
+    List<FishingCompetition> getOnGoingCompetitions();
+
     /**
      * Gets the time until the next competition starts, in seconds.
      *
@@ -20,7 +20,10 @@ package net.momirealms.customfishing.api.mechanic.competition;
 import net.momirealms.customfishing.common.util.Pair;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * Interface for managing and providing rankings for fishing competitions.
@@ -110,6 +113,32 @@ public interface RankingProvider {
      */
     void setData(String player, double score);
 
+    /**
+     * Sets the score of a player if it is higher than their current score, or if the player is not ranked yet.
+     * The comparison and the update are done atomically.
+     *
+     * @param player The name of the player to update or create.
+     * @param score  The new score.
+     */
+    default void updateMax(String player, double score) {
+        synchronized (this) {
+            if (getPlayerRank(player) == -1 || getPlayerScore(player) < score) {
+                setData(player, score);
+            }
+        }
+    }
+
+    /**
+     * Claims the rewards of players at the end of the competition, so that each reward is given by a single server
+     * when the ranking is shared by several servers.
+     *
+     * @param players The names of the players whose rewards are to be given by this server.
+     * @return The names of the players whose rewards were claimed by this server.
+     */
+    default Set<String> claimRewards(Collection<String> players) {
+        return new HashSet<>(players);
+    }
+
     /**
      * Returns the name of a player at a given index.
      *
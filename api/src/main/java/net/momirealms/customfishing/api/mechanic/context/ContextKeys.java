@@ -97,6 +97,7 @@ public class ContextKeys<T> {
     public static final ContextKeys<Integer> LOOT_ORDER = of("loot_order", Integer.class);
     public static final ContextKeys<Effect> EFFECT = of("effect", Effect.class);
     public static final ContextKeys<Boolean> FIRST_CAPTURE = of("first_capture", Boolean.class);
+    public static final ContextKeys<EnvironmentSnapshot> ENVIRONMENT = of("environment", EnvironmentSnapshot.class);
 
     private final String key;
     private final Class<T> type;
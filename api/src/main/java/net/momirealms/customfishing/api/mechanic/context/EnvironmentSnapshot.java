@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.context;
+
+import net.momirealms.sparrow.heart.SparrowHeart;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.FishHook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lazily computed snapshot of the environment around a hook.
+ * Each property is read from the world at most once, so that the requirements checked
+ * at cast time, during loot selection and during game selection share the same results.
+ * The snapshot is bound to a block position and is replaced once the hook moves to another block.
+ */
+public final class EnvironmentSnapshot {
+
+    private final Location location;
+    private final World world;
+    private final int blockX;
+    private final int blockY;
+    private final int blockZ;
+    private final FishHook hook;
+
+    private int depth = -1;
+    private int iceCount = -1;
+    private int waterCount = -1;
+    private int lightLevel = -1;
+    private String biome;
+    private Boolean openWater;
+
+    private EnvironmentSnapshot(@NotNull Location location, @Nullable FishHook hook) {
+        this.location = location.clone();
+        this.world = location.getWorld();
+        this.blockX = location.getBlockX();
+        this.blockY = location.getBlockY();
+        this.blockZ = location.getBlockZ();
+        this.hook = hook;
+    }
+
+    /**
+     * Gets the snapshot of the environment at {@link ContextKeys#OTHER_LOCATION}.
+     * The snapshot is created and stored in the context if it doesn't exist or if it was taken at another block.
+     *
+     * @param context the context
+     * @return the snapshot, or null if the context has no such location
+     */
+    @Nullable
+    public static EnvironmentSnapshot of(@NotNull Context<?> context) {
+        Location location = context.arg(ContextKeys.OTHER_LOCATION);
+        if (location == null) return null;
+        EnvironmentSnapshot snapshot = context.arg(ContextKeys.ENVIRONMENT);
+        if (snapshot == null || !snapshot.isAt(location)) {
+            snapshot = new EnvironmentSnapshot(location, context.arg(ContextKeys.HOOK_ENTITY));
+            context.arg(ContextKeys.ENVIRONMENT, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks if the snapshot was taken at the block of the given location.
+     *
+     * @param location the location
+     * @return true if the location is in the same block
+     */
+    public boolean isAt(@NotNull Location location) {
+        return location.getWorld() == world
+                && location.getBlockX() == blockX
+                && location.getBlockY() == blockY
+                && location.getBlockZ() == blockZ;
+    }
+
+    /**
+     * Gets the depth of the liquid below the location.
+     *
+     * @return the depth
+     */
+    public int liquidDepth() {
+        if (depth == -1) {
+            Location start = location.getBlock().isLiquid() ? location.clone() : location.clone().subtract(0, 1, 0);
+            int result = 0;
+            while (start.getBlock().isLiquid()) {
+                start.subtract(0, 1, 0);
+                result++;
+            }
+            depth = result;
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the number of ice blocks in the 5x4x5 area around the location.
+     *
+     * @return the amount of ice
+     */
+    public int iceCount() {
+        if (iceCount == -1) scanIceArea();
+        return iceCount;
+    }
+
+    /**
+     * Gets the number of water blocks in the 5x4x5 area around the location.
+     *
+     * @return the amount of water
+     */
+    public int waterCount() {
+        if (waterCount == -1) scanIceArea();
+        return waterCount;
+    }
+
+    private void scanIceArea() {
+        int water = 0, ice = 0;
+        for (int i = -2; i <= 2; i++)
+            for (int j = -1; j <= 2; j++)
+                for (int k = -2; k <= 2; k++) {
+                    Block block = world.getBlockAt(blockX + i, blockY + j, blockZ + k);
+                    switch (block.getType()) {
+                        case ICE -> ice++;
+                        case WATER -> water++;
+                    }
+                }
+        this.iceCount = ice;
+        this.waterCount = water;
+    }
+
+    /**
+     * Gets the resource location of the biome at the location.
+     *
+     * @return the biome key
+     */
+    public String biome() {
+        if (biome == null) {
+            biome = SparrowHeart.getInstance().getBiomeResourceLocation(location);
+        }
+        return biome;
+    }
+
+    /**
+     * Gets the light level of the block at the location.
+     *
+     * @return the light level
+     */
+    public int lightLevel() {
+        if (lightLevel == -1) {
+            lightLevel = location.getBlock().getLightLevel();
+        }
+        return lightLevel;
+    }
+
+    /**
+     * Checks if the hook is in open water. The vanilla check is only performed once.
+     *
+     * @return true if the hook is in open water, false if it's not or if there's no hook
+     */
+    public boolean openWater() {
+        if (openWater == null) {
+            openWater = hook != null && hook.isValid() && hook.isInOpenWater();
+        }
+        return openWater;
+    }
+
+    @Override
+    public String toString() {
+        return "EnvironmentSnapshot{" +
+                "world=" + world.getName() +
+                ", x=" + blockX +
+                ", y=" + blockY +
+                ", z=" + blockZ +
+                '}';
+    }
+}
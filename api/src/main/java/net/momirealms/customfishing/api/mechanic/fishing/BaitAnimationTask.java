@@ -19,6 +19,7 @@ package net.momirealms.customfishing.api.mechanic.fishing;
 
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import net.momirealms.sparrow.heart.SparrowHeart;
 import org.bukkit.entity.FishHook;
 import org.bukkit.entity.Player;
@@ -36,7 +37,7 @@ public class BaitAnimationTask implements Runnable {
     public BaitAnimationTask(BukkitCustomFishingPlugin plugin, Player player, FishHook fishHook, ItemStack baitItem) {
         this.player = player;
         this.fishHook = fishHook;
-        this.task = plugin.getScheduler().asyncRepeating(this, 50, 50, TimeUnit.MILLISECONDS);
+        this.task = plugin.getScheduler().asyncRepeating(TaskCategory.EFFECT, this, 50, 50, TimeUnit.MILLISECONDS);
         ItemStack itemStack = baitItem.clone();
         itemStack.setAmount(1);
         this.entityID = SparrowHeart.getInstance().dropFakeItem(player, itemStack, fishHook.getLocation().clone().subtract(0,0.6,0));
@@ -26,6 +26,7 @@ import net.momirealms.customfishing.api.mechanic.competition.FishingCompetition;
 import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.api.mechanic.context.Context;
 import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.api.mechanic.context.EnvironmentSnapshot;
 import net.momirealms.customfishing.api.mechanic.effect.Effect;
 import net.momirealms.customfishing.api.mechanic.effect.EffectModifier;
 import net.momirealms.customfishing.api.mechanic.fishing.hook.HookMechanic;
@@ -177,7 +178,10 @@ public class CustomFishingHook {
                         context.arg(ContextKeys.OTHER_X, hook.getLocation().getBlockX());
                         context.arg(ContextKeys.OTHER_Y, hook.getLocation().getBlockY());
                         context.arg(ContextKeys.OTHER_Z, hook.getLocation().getBlockZ());
-                        context.arg(ContextKeys.OPEN_WATER, hook.isInOpenWater());
+                        // a new attempt starts, so the environment around the hook should be read again
+                        context.remove(ContextKeys.ENVIRONMENT);
+                        EnvironmentSnapshot environment = EnvironmentSnapshot.of(context);
+                        context.arg(ContextKeys.OPEN_WATER, environment != null && environment.openWater());
 
                         // get the next loot
                         Loot loot;
@@ -585,33 +589,42 @@ public class CustomFishingHook {
     }
 
     private void doSuccessActions() {
-        FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
-        if (competition != null && RequirementManager.isSatisfied(context, competition.getConfig().joinRequirements())) {
-            Double customScore = context.arg(ContextKeys.CUSTOM_SCORE);
+        // the catch is scored in every competition the player can join, the context keeps the score of the first one
+        Double customScore = context.arg(ContextKeys.CUSTOM_SCORE);
+        Double contextScore = null;
+        double lootScore = Double.NaN;
+        for (FishingCompetition competition : plugin.getCompetitionManager().getOnGoingCompetitions()) {
+            if (!RequirementManager.isSatisfied(context, competition.getConfig().joinRequirements())) {
+                continue;
+            }
+            double score = 0;
             if (customScore != null) {
-                competition.refreshScore(context.holder(), customScore);
-                context.arg(ContextKeys.SCORE_FORMATTED, String.format("%.2f", customScore));
-                context.arg(ContextKeys.SCORE, customScore);
-            } else {
-                double score = 0;
-                if (competition.getGoal() == CompetitionGoal.CATCH_AMOUNT) {
-                    score = 1;
+                score = customScore;
+                competition.refreshScore(context.holder(), score);
+            } else if (competition.getGoal() == CompetitionGoal.CATCH_AMOUNT) {
+                score = 1;
+                competition.refreshScore(context.holder(), score);
+            } else if (competition.getGoal() == CompetitionGoal.MAX_SIZE || competition.getGoal() == CompetitionGoal.MIN_SIZE || competition.getGoal() == CompetitionGoal.TOTAL_SIZE) {
+                Float size = context.arg(ContextKeys.SIZE);
+                if (size != null && size > 0) {
+                    competition.refreshScore(context.holder(), size);
+                }
+            } else if (competition.getGoal() == CompetitionGoal.TOTAL_SCORE) {
+                if (Double.isNaN(lootScore)) {
+                    lootScore = nextLoot.score().evaluate(context) * tempFinalEffect.scoreMultiplier() + tempFinalEffect.scoreAdder();
+                }
+                score = lootScore;
+                if (score != 0) {
                     competition.refreshScore(context.holder(), score);
-                } else if (competition.getGoal() == CompetitionGoal.MAX_SIZE || competition.getGoal() == CompetitionGoal.MIN_SIZE || competition.getGoal() == CompetitionGoal.TOTAL_SIZE) {
-                    Float size = context.arg(ContextKeys.SIZE);
-                    if (size != null && size > 0) {
-                        competition.refreshScore(context.holder(), size);
-                    }
-                } else if (competition.getGoal() == CompetitionGoal.TOTAL_SCORE) {
-                    score = nextLoot.score().evaluate(context);
-                    score = score * tempFinalEffect.scoreMultiplier() + tempFinalEffect.scoreAdder();
-                    if (score != 0) {
-                        competition.refreshScore(context.holder(), score);
-                    }
                 }
-                context.arg(ContextKeys.SCORE_FORMATTED, String.format("%.2f", score));
-                context.arg(ContextKeys.SCORE, score);
             }
+            if (contextScore == null) {
+                contextScore = score;
+            }
+        }
+        if (contextScore != null) {
+            context.arg(ContextKeys.SCORE_FORMATTED, String.format("%.2f", contextScore));
+            context.arg(ContextKeys.SCORE, contextScore);
         } else {
             context.arg(ContextKeys.SCORE_FORMATTED, "0.0");
             context.arg(ContextKeys.SCORE, 0d);
@@ -24,6 +24,7 @@ import net.kyori.adventure.text.ScoreComponent;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.MechanicType;
 import net.momirealms.customfishing.api.mechanic.action.ActionTrigger;
+import net.momirealms.customfishing.api.mechanic.bag.FishingBagIndex;
 import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.api.mechanic.context.Context;
 import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
@@ -213,20 +214,19 @@ public class FishingGears {
                     UserData data = dataOptional.get();
                     Inventory bag = data.holder().getInventory();
                     HashMap<String, ItemStack> uniqueUtils = new HashMap<>();
-                    for (int i = 0; i < bag.getSize(); i++) {
-                        ItemStack itemInBag = bag.getItem(i);
-                        if (itemInBag == null) continue;
-                        String bagItemID = BukkitCustomFishingPlugin.getInstance().getItemManager().getItemID(itemInBag);
+                    // the index holds each distinct item once, from the first slot
+                    for (FishingBagIndex.IndexedItem indexedItem : data.holder().getIndex().items(bag)) {
+                        String bagItemID = indexedItem.id();
                         List<MechanicType> bagItemType = MechanicType.getTypeByID(bagItemID);
                         if (bagItemType != null) {
                             if (!hasBait && bagItemType.contains(MechanicType.BAIT)) {
-                                fishingGears.gears.put(GearType.BAIT, List.of(Pair.of(bagItemID, itemInBag)));
+                                fishingGears.gears.put(GearType.BAIT, List.of(Pair.of(bagItemID, indexedItem.first())));
                                 context.arg(ContextKeys.BAIT, bagItemID);
                                 BukkitCustomFishingPlugin.getInstance().getEffectManager().getEffectModifier(bagItemID, MechanicType.BAIT).ifPresent(fishingGears.modifiers::add);
                                 hasBait = true;
                             }
                             if (bagItemType.contains(MechanicType.UTIL)) {
-                                uniqueUtils.put(bagItemID, itemInBag);
+                                uniqueUtils.put(bagItemID, indexedItem.last());
                             }
                         }
                     }
@@ -72,7 +72,9 @@ public abstract class AbstractGame implements Game {
         GameSetting setting = this.basics.toGameSetting(hook.getContext(), effect);
         FishingGamePreStartEvent event = new FishingGamePreStartEvent(hook, setting);
         EventUtils.fireAndForget(event);
-        return gamingPlayerProvider().apply(hook, event.setting());
+        AbstractGamingPlayer gamingPlayer = gamingPlayerProvider().apply(hook, event.setting());
+        gamingPlayer.gameId(id);
+        return gamingPlayer;
     }
 
     /**
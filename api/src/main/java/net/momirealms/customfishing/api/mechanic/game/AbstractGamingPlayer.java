@@ -40,6 +40,9 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
     private boolean valid = true;
     private boolean firstFlag = true;
     protected Boolean forcedGameResult;
+    protected final GameUIRenderer renderer = new GameUIRenderer();
+    protected final InputState input;
+    private String gameId;
 
     @Override
     public void setGameResult(Boolean forcedGameResult) {
@@ -56,6 +59,7 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
         this.hook = hook;
         this.settings = settings;
         this.deadline = (long) (System.currentTimeMillis() + settings.time() * 1000L);
+        this.input = new InputState(hook.getContext().holder().isSneaking());
         this.arrangeTask();
     }
 
@@ -68,7 +72,29 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
      * Arranges the task for the gaming player.
      */
     public void arrangeTask() {
-        this.task = BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(this, 50, 50, TimeUnit.MILLISECONDS);
+        this.task = ticker().schedule(this, 50, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the ticker driving the games.
+     *
+     * @return the game ticker
+     */
+    protected GameTicker ticker() {
+        return BukkitCustomFishingPlugin.getInstance().getGameManager().getGameTicker();
+    }
+
+    /**
+     * Gets the id of the game being played.
+     *
+     * @return the game id, or null if the game is not started through {@link AbstractGame#start}
+     */
+    public String gameId() {
+        return gameId;
+    }
+
+    void gameId(String gameId) {
+        this.gameId = gameId;
     }
 
     /**
@@ -105,6 +131,7 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
     @ApiStatus.Internal
     public void internalRightClick() {
         firstFlag = true;
+        input.rightClick();
         handleRightClick();
     }
 
@@ -127,9 +154,22 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
             firstFlag = false;
             return false;
         }
+        input.leftClick();
         return handleLeftClick();
     }
 
+    /**
+     * Handles internal sneak state changes.
+     *
+     * @param sneaking whether the player starts sneaking
+     * @return true if cancel the event, false otherwise.
+     */
+    @ApiStatus.Internal
+    public boolean internalSneak(boolean sneaking) {
+        input.sneak(sneaking);
+        return sneaking && handleSneak();
+    }
+
     /**
      * Handles left-click actions.
      *
@@ -222,7 +262,7 @@ public abstract class AbstractGamingPlayer implements GamingPlayer, Runnable {
         if (!isValid()) return;
         destroy();
         boolean success = isSuccessful();
-        BukkitCustomFishingPlugin.getInstance().getScheduler().sync().run(() -> {
+        ticker().dispatchEnd(() -> {
             if (success) {
                 hook.handleSuccessfulFishing();
             } else {
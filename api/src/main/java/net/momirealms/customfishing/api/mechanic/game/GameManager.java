@@ -81,4 +81,11 @@ public interface GameManager extends Reloadable {
      */
     @Nullable
     Game getNextGame(Effect effect, Context<Player> context);
+
+    /**
+     * Retrieves the ticker driving all the active games.
+     *
+     * @return The {@link GameTicker}.
+     */
+    GameTicker getGameTicker();
 }
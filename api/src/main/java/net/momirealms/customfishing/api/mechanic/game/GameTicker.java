@@ -0,0 +1,259 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.game;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.common.helper.VersionHelper;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
+import org.bukkit.Location;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives all the active mini-games. The games sharing the same period are ticked in one batch by a single
+ * fixed-rate task, instead of each game owning a repeating task.
+ * The results of the ended games are handled on the server thread in batches.
+ */
+public class GameTicker {
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final ConcurrentHashMap<Long, Group> groups = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Runnable> endings = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean endingsScheduled = new AtomicBoolean(false);
+    private final ConcurrentHashMap<String, FrameTimes> frameTimes = new ConcurrentHashMap<>();
+
+    public GameTicker(BukkitCustomFishingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts ticking a gaming player at a fixed rate. The first tick comes one full period later,
+     * as the gaming player may still be under construction when it is scheduled.
+     *
+     * @param gamingPlayer the gaming player
+     * @param period       the period between two ticks
+     * @param unit         the unit of the period
+     * @return the task, cancelling it stops ticking the gaming player
+     */
+    public SchedulerTask schedule(AbstractGamingPlayer gamingPlayer, long period, TimeUnit unit) {
+        long micros = Math.max(1, unit.toMicros(period));
+        Handle handle = new Handle(gamingPlayer, micros);
+        groups.compute(micros, (k, group) -> {
+            if (group == null) {
+                group = new Group(k);
+            }
+            group.handles.add(handle);
+            return group;
+        });
+        return handle;
+    }
+
+    /**
+     * Runs the handling of an ended game on the thread owning the location.
+     * On Bukkit, the handlings requested in the same tick are run together.
+     *
+     * @param handling the handling
+     * @param location the location of the hook
+     */
+    public void dispatchEnd(Runnable handling, Location location) {
+        if (VersionHelper.isFolia()) {
+            plugin.getScheduler().sync().run(handling, location);
+            return;
+        }
+        endings.add(handling);
+        if (endingsScheduled.compareAndSet(false, true)) {
+            plugin.getScheduler().sync().run(this::runEndings, null);
+        }
+    }
+
+    private void runEndings() {
+        endingsScheduled.set(false);
+        Runnable handling;
+        while ((handling = endings.poll()) != null) {
+            try {
+                handling.run();
+            } catch (Exception e) {
+                plugin.getPluginLogger().warn("Failed to handle the result of a game", e);
+            }
+        }
+    }
+
+    /**
+     * Stops ticking all the gaming players and discards the pending handlings of the ended games.
+     */
+    public void shutdown() {
+        for (Group group : groups.values()) {
+            group.task.cancel();
+        }
+        groups.clear();
+        endings.clear();
+    }
+
+    /**
+     * Gets the number of gaming players being ticked.
+     *
+     * @return the number of gaming players
+     */
+    public int size() {
+        int size = 0;
+        for (Group group : groups.values()) {
+            size += group.handles.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the frame times of each game since the plugin was enabled.
+     *
+     * @return the frame times, by game id
+     */
+    public Map<String, FrameTime> frameTimes() {
+        TreeMap<String, FrameTime> result = new TreeMap<>();
+        for (Map.Entry<String, FrameTimes> entry : frameTimes.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return result;
+    }
+
+    private void unschedule(Handle handle) {
+        groups.computeIfPresent(handle.period, (k, group) -> {
+            group.handles.remove(handle);
+            if (group.handles.isEmpty()) {
+                group.task.cancel();
+                return null;
+            }
+            return group;
+        });
+    }
+
+    // a game that can't be ticked is ended as a failure, so that the player isn't left with the hook out
+    private void fail(AbstractGamingPlayer gamingPlayer) {
+        try {
+            gamingPlayer.setGameResult(Boolean.FALSE);
+            gamingPlayer.endGame();
+        } catch (Exception e) {
+            plugin.getPluginLogger().warn("Failed to end the game of " + gamingPlayer.getPlayer().getName(), e);
+        }
+    }
+
+    private void record(String game, long nanos) {
+        frameTimes.computeIfAbsent(game, k -> new FrameTimes()).record(nanos);
+    }
+
+    /**
+     * The frame times of a game.
+     *
+     * @param frames     the number of ticks
+     * @param totalNanos the total time spent in the ticks
+     * @param maxNanos   the longest tick
+     */
+    public record FrameTime(long frames, long totalNanos, long maxNanos) {
+
+        /**
+         * Gets the average time of a tick.
+         *
+         * @return the average time in nanoseconds
+         */
+        public long averageNanos() {
+            return frames == 0 ? 0 : totalNanos / frames;
+        }
+    }
+
+    private static class FrameTimes {
+
+        private final LongAdder frames = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            frames.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private FrameTime snapshot() {
+            return new FrameTime(frames.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    private class Group implements Runnable {
+
+        private final Set<Handle> handles = ConcurrentHashMap.newKeySet();
+        // the ticks are handed to a thread pool, a batch is skipped if the previous one is still running
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final SchedulerTask task;
+
+        private Group(long period) {
+            this.task = plugin.getScheduler().asyncRepeating(TaskCategory.GAME, this, period, period, TimeUnit.MICROSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (!running.compareAndSet(false, true)) return;
+            try {
+                long now = System.nanoTime();
+                for (Handle handle : handles) {
+                    if (now - handle.firstRun < 0) continue;
+                    AbstractGamingPlayer gamingPlayer = handle.gamingPlayer;
+                    long start = System.nanoTime();
+                    try {
+                        gamingPlayer.run();
+                    } catch (Exception e) {
+                        plugin.getPluginLogger().warn("Failed to tick the game of " + gamingPlayer.getPlayer().getName(), e);
+                        handle.cancel();
+                        fail(gamingPlayer);
+                        continue;
+                    }
+                    String game = gamingPlayer.gameId();
+                    if (game != null) {
+                        record(game, System.nanoTime() - start);
+                    }
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private class Handle implements SchedulerTask {
+
+        private final AbstractGamingPlayer gamingPlayer;
+        private final long period;
+        private final long firstRun;
+
+        private Handle(AbstractGamingPlayer gamingPlayer, long period) {
+            this.gamingPlayer = gamingPlayer;
+            this.period = period;
+            this.firstRun = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(period);
+        }
+
+        @Override
+        public void cancel() {
+            unschedule(this);
+        }
+    }
+}
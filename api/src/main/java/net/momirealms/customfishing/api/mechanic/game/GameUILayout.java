@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.game;
+
+import net.momirealms.customfishing.api.util.OffsetUtils;
+import net.momirealms.customfishing.common.helper.AdventureHelper;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The static parts of a game UI, such as the images of a bar and the offset characters, serialized to JSON once.
+ * A frame is then assembled by joining the fragments picked by the state of the game, without parsing any MiniMessage.
+ * A layout is shared by all the players of a game.
+ */
+public class GameUILayout {
+
+    private final String font;
+    private final ConcurrentHashMap<String, String> fragments = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> images = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> offsets = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a layout.
+     *
+     * @param font the font of the images
+     */
+    public GameUILayout(String font) {
+        this.font = font;
+    }
+
+    /**
+     * Gets the JSON fragment of a MiniMessage text that doesn't contain any placeholder.
+     * The text is parsed on its own, so a tag it leaves open doesn't style the fragments joined after it.
+     * A text made of several configured parts should rather be parsed as a whole with {@link GameUIRenderer#title(String)}.
+     *
+     * @param miniMessage the text
+     * @return the JSON fragment
+     */
+    public String fragment(String miniMessage) {
+        return fragments.computeIfAbsent(miniMessage, AdventureHelper::miniMessageToJson);
+    }
+
+    /**
+     * Gets the JSON fragment of an image in the font of the layout.
+     *
+     * @param image the image characters
+     * @return the JSON fragment
+     */
+    public String image(String image) {
+        return images.computeIfAbsent(image, k -> AdventureHelper.miniMessageToJson(AdventureHelper.surroundWithMiniMessageFont(k, font)));
+    }
+
+    /**
+     * Gets the JSON fragment of the offset characters moving the following fragments by the given pixels.
+     *
+     * @param pixels the offset in pixels
+     * @return the JSON fragment
+     */
+    public String offset(int pixels) {
+        return offsets.computeIfAbsent(pixels, k -> AdventureHelper.miniMessageToJson(OffsetUtils.getOffsetChars(k)));
+    }
+
+    /**
+     * Joins the JSON fragments into a single text component.
+     *
+     * @param fragments the JSON fragments
+     * @return the JSON of the frame
+     */
+    public static String join(String... fragments) {
+        StringBuilder builder = new StringBuilder(32 + fragments.length * 48);
+        builder.append("{\"text\":\"\",\"extra\":[");
+        for (int i = 0; i < fragments.length; i++) {
+            if (i != 0) builder.append(',');
+            builder.append(fragments[i]);
+        }
+        return builder.append("]}").toString();
+    }
+}
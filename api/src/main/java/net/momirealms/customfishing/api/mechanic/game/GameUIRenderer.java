@@ -0,0 +1,104 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.game;
+
+import net.momirealms.customfishing.common.helper.AdventureHelper;
+import net.momirealms.sparrow.heart.SparrowHeart;
+import org.bukkit.entity.Player;
+
+import java.util.Objects;
+
+/**
+ * Sends the frames of a game UI to a player, skipping the packets of the frames identical to the last sent one.
+ * An unchanged frame is still sent again from time to time, so that the title doesn't fade out.
+ */
+public class GameUIRenderer {
+
+    // the title stays for 20 ticks, so it's refreshed twice as often
+    private static final long TITLE_REFRESH_INTERVAL = 500;
+    private static final long ACTIONBAR_REFRESH_INTERVAL = 1000;
+
+    private int lastTitleHash;
+    private long lastTitleTime;
+    private int lastActionBarHash;
+    private long lastActionBarTime;
+    // the last parsed texts, as the rendered title and subtitle rarely change between two frames
+    private String titleText;
+    private String titleJson;
+    private String subtitleText;
+    private String subtitleJson;
+
+    /**
+     * Gets the JSON of a rendered title text.
+     *
+     * @param miniMessage the text in MiniMessage format
+     * @return the JSON
+     */
+    public synchronized String title(String miniMessage) {
+        if (!miniMessage.equals(titleText)) {
+            titleJson = AdventureHelper.miniMessageToJson(miniMessage);
+            titleText = miniMessage;
+        }
+        return titleJson;
+    }
+
+    /**
+     * Gets the JSON of a rendered subtitle text.
+     *
+     * @param miniMessage the text in MiniMessage format
+     * @return the JSON
+     */
+    public synchronized String subtitle(String miniMessage) {
+        if (!miniMessage.equals(subtitleText)) {
+            subtitleJson = AdventureHelper.miniMessageToJson(miniMessage);
+            subtitleText = miniMessage;
+        }
+        return subtitleJson;
+    }
+
+    /**
+     * Sends a title frame if it differs from the last one.
+     *
+     * @param player   the player
+     * @param title    the JSON of the title
+     * @param subtitle the JSON of the subtitle
+     */
+    public synchronized void sendTitle(Player player, String title, String subtitle) {
+        int hash = Objects.hash(title, subtitle);
+        long now = System.currentTimeMillis();
+        if (hash == lastTitleHash && now - lastTitleTime < TITLE_REFRESH_INTERVAL) return;
+        lastTitleHash = hash;
+        lastTitleTime = now;
+        SparrowHeart.getInstance().sendTitle(player, title, subtitle, 0, 20, 0);
+    }
+
+    /**
+     * Sends an action bar frame if it differs from the last one.
+     *
+     * @param player    the player
+     * @param actionBar the JSON of the action bar
+     */
+    public synchronized void sendActionBar(Player player, String actionBar) {
+        int hash = actionBar.hashCode();
+        long now = System.currentTimeMillis();
+        if (hash == lastActionBarHash && now - lastActionBarTime < ACTIONBAR_REFRESH_INTERVAL) return;
+        lastActionBarHash = hash;
+        lastActionBarTime = now;
+        SparrowHeart.getInstance().sendActionBar(player, actionBar);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.api.mechanic.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The input of a player during a game, recorded from the events on the server thread.
+ * The game ticks read this state instead of reading the player entity from another thread.
+ */
+public class InputState {
+
+    private final AtomicInteger rightClicks = new AtomicInteger();
+    private final AtomicInteger leftClicks = new AtomicInteger();
+    private volatile boolean sneaking;
+    private volatile long sneakDownTime;
+    private volatile long sneakUpTime;
+    // guarded by this
+    private long completedSneakNanos;
+    private long consumedSneakNanos;
+    private long lastConsumeTime;
+
+    /**
+     * Constructs an input state.
+     *
+     * @param sneaking whether the player is sneaking when the game starts
+     */
+    public InputState(boolean sneaking) {
+        long now = System.nanoTime();
+        this.sneaking = sneaking;
+        this.sneakDownTime = now;
+        this.lastConsumeTime = now;
+    }
+
+    /**
+     * Records that the player starts or stops sneaking.
+     *
+     * @param sneaking whether the player is now sneaking
+     */
+    public synchronized void sneak(boolean sneaking) {
+        if (this.sneaking == sneaking) return;
+        long now = System.nanoTime();
+        if (sneaking) {
+            this.sneakDownTime = now;
+        } else {
+            this.sneakUpTime = now;
+            this.completedSneakNanos += now - sneakDownTime;
+        }
+        this.sneaking = sneaking;
+    }
+
+    /**
+     * Records a right click.
+     */
+    public void rightClick() {
+        rightClicks.incrementAndGet();
+    }
+
+    /**
+     * Records a left click.
+     */
+    public void leftClick() {
+        leftClicks.incrementAndGet();
+    }
+
+    /**
+     * Checks if the player is sneaking.
+     *
+     * @return true if sneaking
+     */
+    public boolean isSneaking() {
+        return sneaking;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the player started sneaking the last time.
+     *
+     * @return the time in nanoseconds
+     */
+    public long sneakDownTime() {
+        return sneakDownTime;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the player stopped sneaking the last time.
+     *
+     * @return the time in nanoseconds, or 0 if the player hasn't stopped sneaking during the game
+     */
+    public long sneakUpTime() {
+        return sneakUpTime;
+    }
+
+    /**
+     * Gets the number of right clicks during the game.
+     *
+     * @return the number of right clicks
+     */
+    public int rightClicks() {
+        return rightClicks.get();
+    }
+
+    /**
+     * Gets the number of left clicks during the game.
+     *
+     * @return the number of left clicks
+     */
+    public int leftClicks() {
+        return leftClicks.get();
+    }
+
+    /**
+     * Gets the part of the time since the last call during which the player was sneaking.
+     * A game calls it once per tick, so that short presses between two ticks are not missed.
+     *
+     * @return the ratio from 0 to 1
+     */
+    public synchronized double consumeSneakingRatio() {
+        long now = System.nanoTime();
+        long total = completedSneakNanos + (sneaking ? now - sneakDownTime : 0);
+        long elapsed = now - lastConsumeTime;
+        long sneaked = total - consumedSneakNanos;
+        consumedSneakNanos = total;
+        lastConsumeTime = now;
+        if (elapsed <= 0) return sneaking ? 1 : 0;
+        return Math.max(0, Math.min(1, (double) sneaked / elapsed));
+    }
+}
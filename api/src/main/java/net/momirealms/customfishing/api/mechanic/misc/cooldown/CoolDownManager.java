@@ -25,26 +25,42 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages cooldowns for various actions or events.
  * Keeps track of cooldown times for different keys associated with player UUIDs.
+ * Keys are interned into ordinals so that each player only holds a primitive array of timestamps
+ * whose size is bounded by the number of distinct keys.
  */
 public class CoolDownManager implements Listener, Reloadable {
 
     private final ConcurrentHashMap<UUID, Data> dataMap;
+    private final ConcurrentHashMap<String, Integer> keyOrdinals;
+    private final AtomicInteger nextOrdinal;
     private final BukkitCustomFishingPlugin plugin;
 
     public CoolDownManager(BukkitCustomFishingPlugin plugin) {
         this.dataMap = new ConcurrentHashMap<>();
+        this.keyOrdinals = new ConcurrentHashMap<>();
+        this.nextOrdinal = new AtomicInteger();
         this.plugin = plugin;
     }
 
+    /**
+     * Gets the ordinal of a cooldown key. The ordinal of a key never changes, even after reloads,
+     * so it can be resolved once when parsing configs.
+     *
+     * @param key The key associated with the cooldown.
+     * @return The ordinal of the key.
+     */
+    public int keyOrdinal(String key) {
+        return this.keyOrdinals.computeIfAbsent(key, k -> nextOrdinal.getAndIncrement());
+    }
+
     /**
      * Checks if a player is currently in cooldown for a specific key.
      *
@@ -54,8 +70,41 @@ public class CoolDownManager implements Listener, Reloadable {
      * @return True if the player is in cooldown, false otherwise.
      */
     public boolean isCoolDown(UUID uuid, String key, long time) {
+        return isCoolDown(uuid, keyOrdinal(key), time);
+    }
+
+    /**
+     * Checks if a player is currently in cooldown for a specific key.
+     *
+     * @param uuid The UUID of the player.
+     * @param key  The ordinal of the key, see {@link #keyOrdinal(String)}.
+     * @param time The cooldown time in milliseconds.
+     * @return True if the player is in cooldown, false otherwise.
+     */
+    public boolean isCoolDown(UUID uuid, int key, long time) {
+        Data data = this.dataMap.computeIfAbsent(uuid, k -> new Data());
+        return data.isCoolDown(key, time, System.currentTimeMillis());
+    }
+
+    /**
+     * Checks several cooldowns of a player at once. Each key that is not in cooldown starts its cooldown.
+     *
+     * @param uuid  The UUID of the player.
+     * @param keys  The ordinals of the keys, see {@link #keyOrdinal(String)}.
+     * @param times The cooldown times in milliseconds, in the same order as the keys.
+     * @return An array in which each element is true if the key at the same index is in cooldown.
+     */
+    public boolean[] isCoolDown(UUID uuid, int[] keys, long[] times) {
+        if (keys.length != times.length) {
+            throw new IllegalArgumentException("The amount of keys and times doesn't match");
+        }
         Data data = this.dataMap.computeIfAbsent(uuid, k -> new Data());
-        return data.isCoolDown(key, time);
+        long now = System.currentTimeMillis();
+        boolean[] result = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = data.isCoolDown(keys[i], times[i], now);
+        }
+        return result;
     }
 
     @Override
@@ -86,28 +135,44 @@ public class CoolDownManager implements Listener, Reloadable {
 
     public static class Data {
 
-        private final Map<String, Long> coolDownMap;
+        // the last time each key was used, indexed by the key ordinal
+        private volatile long[] lastUses;
 
         public Data() {
-            this.coolDownMap = Collections.synchronizedMap(new HashMap<>());
+            this.lastUses = new long[8];
         }
 
         /**
          * Checks if the player is in cooldown for a specific key.
+         * Reading a key that is in cooldown doesn't take any lock.
          *
-         * @param key   The key associated with the cooldown.
+         * @param key   The ordinal of the key.
          * @param delay The cooldown delay in milliseconds.
+         * @param now   The current time in milliseconds.
          * @return True if the player is in cooldown, false otherwise.
          */
-        public boolean isCoolDown(String key, long delay) {
-            long time = System.currentTimeMillis();
-            long last = coolDownMap.getOrDefault(key, time - delay);
-            if (last + delay > time) {
+        public boolean isCoolDown(int key, long delay, long now) {
+            if (isInCoolDown(lastUses, key, delay, now)) {
                 return true; // Player is in cooldown
-            } else {
-                coolDownMap.put(key, time);
+            }
+            synchronized (this) {
+                long[] current = lastUses;
+                if (isInCoolDown(current, key, delay, now)) {
+                    return true;
+                }
+                if (key >= current.length) {
+                    current = Arrays.copyOf(current, Math.max(key + 1, current.length * 2));
+                }
+                current[key] = now;
+                this.lastUses = current;
                 return false; // Player is not in cooldown
             }
         }
+
+        private static boolean isInCoolDown(long[] lastUses, int key, long delay, long now) {
+            if (key >= lastUses.length) return false;
+            long last = lastUses[key];
+            return last != 0 && last + delay > now;
+        }
     }
 }
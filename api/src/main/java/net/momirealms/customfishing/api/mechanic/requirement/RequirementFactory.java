@@ -28,6 +28,36 @@ import java.util.List;
  */
 public interface RequirementFactory<T> {
 
+    /**
+     * Cost of requirements that only read values stored in the context.
+     */
+    int COST_CONTEXT = 1;
+
+    /**
+     * Cost of requirements that read a few properties of the player or the world.
+     */
+    int COST_PLAYER = 10;
+
+    /**
+     * Default cost of requirements whose cost is unknown, for instance those from expansions.
+     */
+    int COST_UNKNOWN = 50;
+
+    /**
+     * Cost of requirements that parse placeholders or evaluate expressions.
+     */
+    int COST_PLACEHOLDER = 100;
+
+    /**
+     * Cost of requirements that scan blocks around a location.
+     */
+    int COST_WORLD_SCAN = 1000;
+
+    /**
+     * Marks requirements with side effects. A list containing such a requirement is never reordered.
+     */
+    int COST_SIDE_EFFECT = -1;
+
     /**
      * Build a requirement with the given arguments, not satisfied actions, and check run actions flag.
      *
@@ -47,4 +77,36 @@ public interface RequirementFactory<T> {
     default Requirement<T> process(Object args) {
         return process(args, List.of(), false);
     }
+
+    /**
+     * Gets the estimated cost of evaluating the requirements built by this factory.
+     * Requirement lists are evaluated cheapest first when the order doesn't affect the result.
+     *
+     * @return the estimated cost
+     */
+    default int cost() {
+        return COST_UNKNOWN;
+    }
+
+    /**
+     * Wraps a factory so that it declares the given cost.
+     *
+     * @param factory the factory to wrap
+     * @param cost    the estimated cost of the requirements built by the factory
+     * @param <T>     the type of object that the requirement will operate on
+     * @return a factory with the given cost
+     */
+    static <T> RequirementFactory<T> withCost(RequirementFactory<T> factory, int cost) {
+        return new RequirementFactory<>() {
+            @Override
+            public Requirement<T> process(Object args, List<Action<T>> notSatisfiedActions, boolean runActions) {
+                return factory.process(args, notSatisfiedActions, runActions);
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
 }
@@ -21,11 +21,9 @@ import dev.dejvokep.boostedyaml.YamlDocument;
 import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.api.storage.user.UserData;
 
-import java.util.Collection;
-import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
 /**
@@ -62,6 +60,29 @@ public interface DataStorageProvider {
      */
     CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor);
 
+    /**
+     * Retrieves the player data of several players without locking it. It should not be called on the server thread.
+     * By default, the players are read one by one.
+     *
+     * @param uuids the UUIDs of the players
+     * @return the player data found, by UUID
+     */
+    default Map<UUID, PlayerData> getManyPlayersData(Collection<UUID> uuids) {
+        LinkedHashMap<UUID, CompletableFuture<Optional<PlayerData>>> futures = new LinkedHashMap<>();
+        for (UUID uuid : uuids) {
+            futures.put(uuid, getPlayerData(uuid, false, null));
+        }
+        LinkedHashMap<UUID, PlayerData> data = new LinkedHashMap<>();
+        for (Map.Entry<UUID, CompletableFuture<Optional<PlayerData>>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().join().ifPresent(it -> data.put(entry.getKey(), it));
+            } catch (CompletionException ignored) {
+                // reported by the provider
+            }
+        }
+        return data;
+    }
+
     /**
      * Updates the player data for the specified UUID.
      *
@@ -90,6 +111,30 @@ public interface DataStorageProvider {
      */
     void updateManyPlayersData(Collection<? extends UserData> users, boolean unlock);
 
+    /**
+     * Updates or inserts the data for multiple players at once, and waits for the data to be written.
+     * It should not be called on the server thread. By default, the players are written one by one.
+     *
+     * @param data   the {@link PlayerData} to be written, by UUID
+     * @param unlock whether to unlock the player data after writing
+     * @return the UUIDs of the players whose data failed to be written
+     */
+    default Set<UUID> upsertManyPlayersData(Map<UUID, PlayerData> data, boolean unlock) {
+        HashMap<UUID, CompletableFuture<Boolean>> futures = new HashMap<>();
+        for (Map.Entry<UUID, PlayerData> entry : data.entrySet()) {
+            futures.put(entry.getKey(), updateOrInsertPlayerData(entry.getKey(), entry.getValue(), unlock));
+        }
+        HashSet<UUID> failed = new HashSet<>();
+        for (Map.Entry<UUID, CompletableFuture<Boolean>> entry : futures.entrySet()) {
+            try {
+                if (!entry.getValue().join()) failed.add(entry.getKey());
+            } catch (CompletionException e) {
+                failed.add(entry.getKey());
+            }
+        }
+        return failed;
+    }
+
     /**
      * Locks or unlocks the player data for the specified UUID.
      *
@@ -20,6 +20,7 @@ package net.momirealms.customfishing.api.storage;
 public enum StorageType {
     JSON,
     YAML,
+    LOG,
     H2,
     SQLite,
     MySQL,
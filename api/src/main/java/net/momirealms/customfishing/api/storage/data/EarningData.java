@@ -19,18 +19,34 @@ package net.momirealms.customfishing.api.storage.data;
 
 import com.google.gson.annotations.SerializedName;
 
-import java.util.Calendar;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * The EarningData class holds data related to the earnings of a player from selling fish.
  * It includes the total earnings and the date of the earnings record.
+ * The earnings are reset lazily: a day change only bumps a global epoch, and each record compares its epoch when it is read.
  */
 public class EarningData {
 
+    // bumped each time the day changes, starting from 1 as 0 means the record has never been checked
+    private static volatile int currentEpoch = 1;
+    private static volatile LocalDate currentDay = LocalDate.now();
+    private static volatile int historyDays = 30;
+
     @SerializedName("earnings")
     public double earnings;
     @SerializedName("date")
     public int date;
+    // the earnings of the previous days, by ISO date
+    @SerializedName("history")
+    public LinkedHashMap<String, Double> history;
+    private transient int epoch;
 
     /**
      * Constructs a new EarningData instance with specified earnings and date.
@@ -39,8 +55,20 @@ public class EarningData {
      * @param date the date of the earnings record.
      */
     public EarningData(double earnings, int date) {
+        this(earnings, date, new LinkedHashMap<>());
+    }
+
+    /**
+     * Constructs a new EarningData instance with specified earnings, date and history.
+     *
+     * @param earnings the total earnings from fishing.
+     * @param date the date of the earnings record.
+     * @param history the earnings of the previous days, by ISO date.
+     */
+    public EarningData(double earnings, int date, Map<String, Double> history) {
         this.earnings = earnings;
         this.date = date;
+        this.history = new LinkedHashMap<>(history);
         this.refresh();
     }
 
@@ -53,24 +81,87 @@ public class EarningData {
         return new EarningData(0d, 0);
     }
 
-    public EarningData copy() {
-        return new EarningData(earnings, date);
+    /**
+     * Moves all the earnings records to a new day. Called once at midnight in the configured time zone.
+     *
+     * @param zone the time zone of the day
+     */
+    public static void newDay(ZoneId zone) {
+        LocalDate today = LocalDate.now(zone);
+        if (today.equals(currentDay)) return;
+        currentDay = today;
+        currentEpoch++;
+    }
+
+    /**
+     * Sets the number of previous days of which the earnings are kept.
+     *
+     * @param days the number of days
+     */
+    public static void historyDays(int days) {
+        historyDays = Math.max(0, days);
     }
 
-    public double earnings() {
+    public synchronized EarningData copy() {
+        refresh();
+        return new EarningData(earnings, date, history());
+    }
+
+    public synchronized double earnings() {
+        refresh();
         return earnings;
     }
 
-    public int date() {
+    public synchronized int date() {
+        refresh();
         return date;
     }
 
-    public void refresh() {
-        Calendar calendar = Calendar.getInstance();
-        int dat = (calendar.get(Calendar.MONTH) +1) * 100 + calendar.get(Calendar.DATE);
+    /**
+     * Adds to the earnings of today.
+     *
+     * @param amount the amount earned
+     */
+    public synchronized void add(double amount) {
+        refresh();
+        earnings += amount;
+    }
+
+    /**
+     * Gets the earnings of the previous days.
+     *
+     * @return the earnings by ISO date, from the oldest day
+     */
+    public synchronized Map<String, Double> history() {
+        refresh();
+        return history == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(history));
+    }
+
+    public synchronized void refresh() {
+        int epoch = currentEpoch;
+        if (this.epoch == epoch) return;
+        this.epoch = epoch;
+        LocalDate today = currentDay;
+        int dat = today.getMonthValue() * 100 + today.getDayOfMonth();
         if (dat != date) {
+            archive(today);
             date = dat;
             earnings = 0;
         }
     }
+
+    private void archive(LocalDate today) {
+        if (history == null) history = new LinkedHashMap<>();
+        if (date != 0 && earnings != 0) {
+            try {
+                // the date doesn't hold the year, it's the latest one not after today
+                LocalDate day = MonthDay.of(date / 100, date % 100).atYear(today.getYear());
+                if (day.isAfter(today)) day = day.minusYears(1);
+                history.merge(day.toString(), earnings, Double::sum);
+            } catch (DateTimeException ignored) {
+            }
+        }
+        String oldest = today.minusDays(historyDays).toString();
+        history.keySet().removeIf(day -> day.compareTo(oldest) < 0);
+    }
 }
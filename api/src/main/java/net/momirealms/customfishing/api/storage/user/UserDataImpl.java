@@ -94,7 +94,8 @@ public class UserDataImpl implements UserData {
             this.uuid = playerData.uuid();
             this.name = playerData.name();
             this.earningData = playerData.earningData().copy();
-            this.holder = FishingBagHolder.create(playerData.uuid(), InventoryUtils.getInventoryItems(playerData.bagData().serialized), playerData.bagData().size);
+            // the items are deserialized when the bag is first used
+            this.holder = FishingBagHolder.lazy(playerData.uuid(), playerData.bagData().serialized, playerData.bagData().size);
             this.statistics = FishingStatistics.builder().amountMap(playerData.statistics().amountMap).sizeMap(playerData.statistics().sizeMap).build();
             return this;
         }
@@ -153,9 +154,14 @@ public class UserDataImpl implements UserData {
     @NotNull
     @Override
     public PlayerData toPlayerData() {
+        // a bag never used is written back as it was read
+        String serialized = holder.getSerialized();
+        InventoryData bag = serialized != null
+                ? new InventoryData(serialized, holder.getSize())
+                : new InventoryData(InventoryUtils.stacksToBase64(holder.getInventory().getStorageContents()), holder.getInventory().getSize());
         return PlayerData.builder()
                 .uuid(uuid)
-                .bag(new InventoryData(InventoryUtils.stacksToBase64(holder.getInventory().getStorageContents()), holder.getInventory().getSize()))
+                .bag(bag)
                 .earnings(earningData)
                 .statistics(new StatisticData(statistics.amountMap(), statistics.sizeMap()))
                 .name(name)
@@ -26,9 +26,10 @@
 package net.momirealms.customfishing.common.plugin.scheduler;
 
 import net.momirealms.customfishing.common.plugin.CustomFishingPlugin;
+import org.jetbrains.annotations.NotNull;
 
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.Arrays;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
@@ -36,14 +37,18 @@ import java.util.stream.Collectors;
 
 /**
  * Abstract implementation of {@link SchedulerAdapter} using a {@link ScheduledExecutorService}.
+ * Each {@link TaskCategory} runs on its own executor, and the tasks are timed per category.
+ * The blocking categories run on virtual threads if the system property {@code customfishing.virtual-threads} is true.
  */
 public abstract class AbstractJavaScheduler<T> implements SchedulerAdapter<T> {
-    private static final int PARALLELISM = 16;
+    private static final int PARALLELISM = TaskCategory.GENERAL.threads();
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("customfishing.virtual-threads");
 
     private final CustomFishingPlugin plugin;
 
     private final ScheduledThreadPoolExecutor scheduler;
     private final ForkJoinPool worker;
+    private final EnumMap<TaskCategory, CategoryExecutor> executors = new EnumMap<>(TaskCategory.class);
 
     public AbstractJavaScheduler(CustomFishingPlugin plugin) {
         this.plugin = plugin;
@@ -56,25 +61,74 @@ public abstract class AbstractJavaScheduler<T> implements SchedulerAdapter<T> {
         this.scheduler.setRemoveOnCancelPolicy(true);
         this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
         this.worker = new ForkJoinPool(PARALLELISM, new WorkerThreadFactory(), new ExceptionHandler(), false);
+        for (TaskCategory category : TaskCategory.values()) {
+            this.executors.put(category, new CategoryExecutor(category, category == TaskCategory.GENERAL ? this.worker : createExecutor(category)));
+        }
+    }
+
+    private static ExecutorService createExecutor(TaskCategory category) {
+        String prefix = "customfishing-" + category.name().toLowerCase(Locale.ENGLISH) + "-";
+        if (category.blocking() && VIRTUAL_THREADS) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+        AtomicInteger count = new AtomicInteger(0);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(category.threads(), category.threads(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the categories seldom used don't keep their threads
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     public Executor async() {
-        return this.worker;
+        return async(TaskCategory.GENERAL);
+    }
+
+    @Override
+    public Executor async(TaskCategory category) {
+        return this.executors.get(category);
     }
 
     @Override
     public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
-        ScheduledFuture<?> future = this.scheduler.schedule(() -> this.worker.execute(task), delay, unit);
+        return asyncLater(TaskCategory.GENERAL, task, delay, unit);
+    }
+
+    @Override
+    public SchedulerTask asyncLater(TaskCategory category, Runnable task, long delay, TimeUnit unit) {
+        Executor executor = async(category);
+        ScheduledFuture<?> future = this.scheduler.schedule(() -> executor.execute(task), delay, unit);
         return () -> future.cancel(false);
     }
 
     @Override
     public SchedulerTask asyncRepeating(Runnable task, long delay, long interval, TimeUnit unit) {
-        ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(() -> this.worker.execute(task), delay, interval, unit);
+        return asyncRepeating(TaskCategory.GENERAL, task, delay, interval, unit);
+    }
+
+    @Override
+    public SchedulerTask asyncRepeating(TaskCategory category, Runnable task, long delay, long interval, TimeUnit unit) {
+        Executor executor = async(category);
+        ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(() -> executor.execute(task), delay, interval, unit);
         return () -> future.cancel(false);
     }
 
+    /**
+     * Gets the stats of each category of tasks.
+     *
+     * @return the stats, in the order of the categories
+     */
+    public List<CategoryStats> categoryStats() {
+        List<CategoryStats> stats = new ArrayList<>();
+        for (CategoryExecutor executor : this.executors.values()) {
+            stats.add(executor.stats());
+        }
+        return stats;
+    }
+
     @Override
     public void shutdownScheduler() {
         this.scheduler.shutdown();
@@ -90,14 +144,20 @@ public abstract class AbstractJavaScheduler<T> implements SchedulerAdapter<T> {
 
     @Override
     public void shutdownExecutor() {
-        this.worker.shutdown();
-        try {
-            if (!this.worker.awaitTermination(1, TimeUnit.MINUTES)) {
-                this.plugin.getPluginLogger().severe("Timed out waiting for the CustomFishing worker thread pool to terminate");
-                reportRunningTasks(thread -> thread.getName().startsWith("customfishing-worker-"));
+        for (CategoryExecutor executor : this.executors.values()) {
+            executor.delegate.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        for (CategoryExecutor executor : this.executors.values()) {
+            try {
+                if (!executor.delegate.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    this.plugin.getPluginLogger().severe("Timed out waiting for the CustomFishing " + executor.category + " thread pool to terminate");
+                    String prefix = executor.category == TaskCategory.GENERAL ? "customfishing-worker-" : "customfishing-" + executor.category.name().toLowerCase(Locale.ENGLISH) + "-";
+                    reportRunningTasks(thread -> thread.getName().startsWith(prefix));
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
         }
     }
 
@@ -111,6 +171,60 @@ public abstract class AbstractJavaScheduler<T> implements SchedulerAdapter<T> {
         });
     }
 
+    /**
+     * The stats of a category of tasks.
+     *
+     * @param category the category
+     * @param active   the number of tasks running
+     * @param queued   the number of tasks waiting for a thread
+     * @param metrics  the runs and times of the tasks
+     */
+    public record CategoryStats(TaskCategory category, int active, long queued, TaskMetrics metrics) {
+    }
+
+    private final class CategoryExecutor implements Executor {
+        private final TaskCategory category;
+        private final ExecutorService delegate;
+        private final TaskMetrics metrics = new TaskMetrics();
+        private final AtomicInteger active = new AtomicInteger(0);
+
+        private CategoryExecutor(TaskCategory category, ExecutorService delegate) {
+            this.category = category;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(@NotNull Runnable task) {
+            long submitted = System.nanoTime();
+            this.delegate.execute(() -> {
+                long start = System.nanoTime();
+                boolean failed = false;
+                this.active.incrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    failed = true;
+                    AbstractJavaScheduler.this.plugin.getPluginLogger().warn("A " + this.category + " task threw an uncaught exception", e);
+                } finally {
+                    this.active.decrementAndGet();
+                    this.metrics.record(start - submitted, System.nanoTime() - start, failed);
+                }
+            });
+        }
+
+        private CategoryStats stats() {
+            long queued;
+            if (this.delegate instanceof ThreadPoolExecutor executor) {
+                queued = executor.getQueue().size();
+            } else if (this.delegate instanceof ForkJoinPool pool) {
+                queued = pool.getQueuedSubmissionCount();
+            } else {
+                queued = 0;
+            }
+            return new CategoryStats(this.category, this.active.get(), queued, this.metrics);
+        }
+    }
+
     private static final class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
         private static final AtomicInteger COUNT = new AtomicInteger(0);
 
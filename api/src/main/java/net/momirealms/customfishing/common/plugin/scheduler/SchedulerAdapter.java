@@ -40,6 +40,16 @@ public interface SchedulerAdapter<T> {
      */
     Executor async();
 
+    /**
+     * Gets the async executor of a category of tasks
+     *
+     * @param category the category
+     * @return an async executor instance
+     */
+    default Executor async(TaskCategory category) {
+        return async();
+    }
+
     /**
      * Gets a sync executor instance
      *
@@ -79,6 +89,19 @@ public interface SchedulerAdapter<T> {
      */
     SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit);
 
+    /**
+     * Executes the given task of a category with a delay.
+     *
+     * @param category the category
+     * @param task the task
+     * @param delay the delay
+     * @param unit the unit of delay
+     * @return the resultant task instance
+     */
+    default SchedulerTask asyncLater(TaskCategory category, Runnable task, long delay, TimeUnit unit) {
+        return asyncLater(task, delay, unit);
+    }
+
     /**
      * Executes the given task repeatedly at a given interval.
      *
@@ -89,6 +112,19 @@ public interface SchedulerAdapter<T> {
      */
     SchedulerTask asyncRepeating(Runnable task, long delay, long interval, TimeUnit unit);
 
+    /**
+     * Executes the given task of a category repeatedly at a given interval.
+     *
+     * @param category the category
+     * @param task the task
+     * @param interval the interval
+     * @param unit the unit of interval
+     * @return the resultant task instance
+     */
+    default SchedulerTask asyncRepeating(TaskCategory category, Runnable task, long delay, long interval, TimeUnit unit) {
+        return asyncRepeating(task, delay, interval, unit);
+    }
+
     /**
      * Shuts down the scheduler instance.
      *
@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.common.plugin.scheduler;
+
+/**
+ * The categories of the async tasks. Each category runs on its own threads and has its own stats,
+ * so that a busy feature can't starve the others and its load can be told apart.
+ */
+public enum TaskCategory {
+
+    /**
+     * The tasks that don't belong to any other category.
+     */
+    GENERAL(16, false),
+    /**
+     * The reads and writes of player data and the other files.
+     */
+    STORAGE(4, true),
+    /**
+     * The messages exchanged with Redis.
+     */
+    REDIS(2, true),
+    /**
+     * The ticking of the mini-games.
+     */
+    GAME(2, false),
+    /**
+     * The action bars and boss bars of the competitions.
+     */
+    HUD(1, false),
+    /**
+     * The particles, the totems and the bait animations.
+     */
+    EFFECT(2, false);
+
+    private final int threads;
+    private final boolean blocking;
+
+    TaskCategory(int threads, boolean blocking) {
+        this.threads = threads;
+        this.blocking = blocking;
+    }
+
+    /**
+     * Gets the maximum number of threads running the tasks of this category.
+     *
+     * @return the number of threads
+     */
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Checks whether the tasks of this category mostly wait for I/O, and may run on virtual threads.
+     *
+     * @return true if the tasks are blocking
+     */
+    public boolean blocking() {
+        return blocking;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.common.plugin.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how many tasks of a category ran, how long they waited to start and how long they ran.
+ * The times are counted in buckets of powers of two microseconds, which is cheap enough to record every task.
+ */
+public class TaskMetrics {
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Histogram wait = new Histogram();
+    private final Histogram execution = new Histogram();
+
+    /**
+     * Records a task that ran.
+     *
+     * @param waitNanos      the time from its submission to its start
+     * @param executionNanos the time it ran
+     * @param failed         whether it threw an exception
+     */
+    public void record(long waitNanos, long executionNanos, boolean failed) {
+        runs.incrementAndGet();
+        if (failed) failures.incrementAndGet();
+        wait.record(waitNanos);
+        execution.record(executionNanos);
+    }
+
+    /**
+     * Gets the number of tasks that ran.
+     *
+     * @return the number of tasks
+     */
+    public long runs() {
+        return runs.get();
+    }
+
+    /**
+     * Gets the number of tasks that threw an exception.
+     *
+     * @return the number of tasks
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    /**
+     * Gets the times the tasks waited to start.
+     *
+     * @return the histogram
+     */
+    public Histogram waitTimes() {
+        return wait;
+    }
+
+    /**
+     * Gets the times the tasks ran.
+     *
+     * @return the histogram
+     */
+    public Histogram executionTimes() {
+        return execution;
+    }
+
+    public static class Histogram {
+
+        // bucket i holds the times below 2^i microseconds, the last one all the longer times
+        private static final int BUCKETS = 32;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Gets the time under which the given share of the recorded times falls.
+         * It is the upper bound of the bucket holding that share, so it may be up to twice the real value.
+         *
+         * @param percentile the share, from 0 to 100
+         * @return the time in milliseconds
+         */
+        public double percentile(double percentile) {
+            long count = this.count.get();
+            if (count == 0) return 0;
+            long target = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return Math.min((1L << i) / 1000d, max());
+                }
+            }
+            return max();
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        /**
+         * Gets the average of the recorded times.
+         *
+         * @return the time in milliseconds
+         */
+        public double average() {
+            long count = this.count.get();
+            return count == 0 ? 0 : totalNanos.get() / 1_000_000d / count;
+        }
+
+        /**
+         * Gets the longest recorded time.
+         *
+         * @return the time in milliseconds
+         */
+        public double max() {
+            return maxNanos.get() / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+repositories {
+    maven("https://jitpack.io/") // rtag
+    maven("https://repo.papermc.io/repository/maven-public/")
+    maven("https://repo.momirealms.net/releases/")
+}
+
+dependencies {
+    jmh(project(":api"))
+    jmh(project(":core"))
+    // the Bukkit API is only on the classpath for the signatures, no server is started
+    jmh("dev.folia:folia-api:${rootProject.properties["paper_version"]}-R0.1-SNAPSHOT")
+    jmh("com.google.code.gson:gson:${rootProject.properties["gson_version"]}")
+    jmh("net.objecthunter:exp4j:${rootProject.properties["exp4j_version"]}")
+    jmh("org.jetbrains:annotations:${rootProject.properties["jetbrains_annotations_version"]}")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_21
+    targetCompatibility = JavaVersion.VERSION_21
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+    options.release.set(21)
+}
+
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    includes = listOf(providers.gradleProperty("jmh.includes").getOrElse(".*"))
+    // one file per commit, so that the results can be compared between commits
+    resultFormat = "JSON"
+    resultsFile = file("$rootDir/target/jmh/${rootProject.ext["git_version"]}.json")
+}
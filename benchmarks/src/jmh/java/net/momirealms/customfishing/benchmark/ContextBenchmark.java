@@ -0,0 +1,86 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.api.mechanic.context.Context;
+import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.api.mechanic.misc.placeholder.BukkitPlaceholderManager;
+import net.momirealms.customfishing.api.mechanic.misc.value.MathValue;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the contexts, the placeholders and the expressions used by the requirements, the actions and the loots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextBenchmark {
+
+    private Context<Player> context;
+    private MathValue<Player> plainExpression;
+    private MathValue<Player> placeholderExpression;
+    private String text;
+
+    @Setup
+    public void setup() {
+        StandIns.install();
+        context = Context.player(null);
+        context.arg(ContextKeys.ID, "rubbish")
+                .arg(ContextKeys.SIZE_FORMATTED, "12.34")
+                .arg(ContextKeys.WEIGHT, 20d)
+                .arg(ContextKeys.TOTAL_WEIGHT, 500d);
+        plainExpression = MathValue.auto("20 * 1.5 + 500 / 100");
+        placeholderExpression = MathValue.auto("{0} * 1.5 + {1} / 100");
+        text = "<gray>You caught a {id} of {size_formatted}cm! ({0}/{1})";
+    }
+
+    @Benchmark
+    public Context<Player> arg() {
+        return context.arg(ContextKeys.SURROUNDING, "water");
+    }
+
+    @Benchmark
+    public String readArg() {
+        return context.arg(ContextKeys.ID);
+    }
+
+    @Benchmark
+    public Context<Player> newContext() {
+        return Context.player(null)
+                .arg(ContextKeys.ID, "rubbish")
+                .arg(ContextKeys.WEIGHT, 20d);
+    }
+
+    @Benchmark
+    public String parsePlaceholders() {
+        return BukkitPlaceholderManager.getInstance().parse(null, text, context.placeholderMap());
+    }
+
+    @Benchmark
+    public double evaluatePlainExpression() {
+        return plainExpression.evaluate(context);
+    }
+
+    @Benchmark
+    public double evaluatePlaceholderExpression() {
+        return placeholderExpression.evaluate(context);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.api.storage.data.EarningData;
+import net.momirealms.customfishing.api.storage.data.InventoryData;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.api.storage.data.StatisticData;
+import net.momirealms.customfishing.common.helper.GsonHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the serialization of player data, as done by the storage manager on every save and load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerDataBenchmark {
+
+    // the number of fish in the statistics
+    @Param({"20", "200"})
+    private int fish;
+
+    private PlayerData data;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Map<String, Integer> amounts = new HashMap<>();
+        Map<String, Float> sizes = new HashMap<>();
+        for (int i = 0; i < fish; i++) {
+            amounts.put("fish_" + i, random.nextInt(1000));
+            sizes.put("fish_" + i, random.nextFloat() * 100);
+        }
+        Map<String, Double> history = new LinkedHashMap<>();
+        for (int day = 1; day <= 30; day++) {
+            history.put(String.format("2024-06-%02d", day), random.nextDouble() * 1000);
+        }
+        // a bag of 54 slots serialized as Base64 is about this long
+        byte[] bag = new byte[6000];
+        random.nextBytes(bag);
+        data = PlayerData.builder()
+                .uuid(UUID.randomUUID())
+                .name("Steve")
+                .statistics(new StatisticData(amounts, sizes))
+                .bag(new InventoryData(Base64.getEncoder().encodeToString(bag), 54))
+                .earnings(new EarningData(123.45, 612, history))
+                .build();
+        bytes = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return GsonHelper.get().toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PlayerData deserialize() {
+        return GsonHelper.get().fromJson(new String(bytes, StandardCharsets.UTF_8), PlayerData.class);
+    }
+}
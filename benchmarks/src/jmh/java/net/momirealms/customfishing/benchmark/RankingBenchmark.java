@@ -0,0 +1,72 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.bukkit.competition.ranking.LocalRankingProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ranking of a competition held on a single server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RankingBenchmark {
+
+    @Param({"50", "1000"})
+    private int players;
+
+    private LocalRankingProvider ranking;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        random = new Random(42);
+        ranking = new LocalRankingProvider();
+        for (int i = 0; i < players; i++) {
+            ranking.setData("player_" + i, random.nextInt(10000));
+        }
+    }
+
+    @Benchmark
+    public void refreshData() {
+        ranking.refreshData("player_" + random.nextInt(players), random.nextInt(100));
+    }
+
+    @Benchmark
+    public int getPlayerRank() {
+        return ranking.getPlayerRank("player_" + random.nextInt(players));
+    }
+
+    @Benchmark
+    public double getPlayerScore() {
+        return ranking.getPlayerScore("player_" + random.nextInt(players));
+    }
+
+    @Benchmark
+    public String getTopPlayers() {
+        String last = null;
+        for (int rank = 1; rank <= 3; rank++) {
+            last = ranking.getPlayerAt(rank);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.api.mechanic.misc.placeholder.BukkitPlaceholderManager;
+
+/**
+ * Sets up the parts of the plugin the benchmarks go through, without a server.
+ */
+final class StandIns {
+
+    private static boolean installed;
+
+    private StandIns() {
+    }
+
+    /**
+     * Installs a placeholder manager that only replaces the context placeholders,
+     * as it does on a server without PlaceholderAPI and custom placeholders.
+     */
+    static synchronized void install() {
+        if (installed) return;
+        new BukkitPlaceholderManager(null);
+        installed = true;
+    }
+}
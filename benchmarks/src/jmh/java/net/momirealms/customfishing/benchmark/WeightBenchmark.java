@@ -0,0 +1,89 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.benchmark;
+
+import net.momirealms.customfishing.api.mechanic.context.Context;
+import net.momirealms.customfishing.api.mechanic.loot.operation.CustomWeightOperation;
+import net.momirealms.customfishing.api.mechanic.loot.operation.WeightOperation;
+import net.momirealms.customfishing.api.mechanic.misc.value.MathValue;
+import net.momirealms.customfishing.common.util.Pair;
+import net.momirealms.customfishing.common.util.WeightUtils;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks picking a loot from a synthetic loot table.
+ * The weights go through the same steps as in the loot manager: each loot has a base weight changed by a few
+ * operations, some of them reading the other weights, and one loot is then picked from the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeightBenchmark {
+
+    @Param({"16", "256"})
+    private int loots;
+
+    private Map<String, Double> weights;
+    private List<Pair<String, Double>> pairs;
+    private List<Pair<String, WeightOperation>> operations;
+
+    @Setup
+    public void setup() {
+        StandIns.install();
+        Random random = new Random(42);
+        weights = new LinkedHashMap<>();
+        pairs = new ArrayList<>();
+        for (int i = 0; i < loots; i++) {
+            double weight = 1 + random.nextInt(100);
+            weights.put("loot_" + i, weight);
+            pairs.add(Pair.of("loot_" + i, weight));
+        }
+        operations = new ArrayList<>();
+        // a quarter of the loots have their weight changed, one in four of those by the total weight
+        for (int i = 0; i < loots; i += 4) {
+            boolean total = i % 16 == 0;
+            MathValue<Player> expression = MathValue.auto(total ? "{0} + {1} / 100" : "{0} * 1.5");
+            operations.add(Pair.of("loot_" + i, new CustomWeightOperation(expression, total, List.of(), List.of(), 1, false)));
+        }
+    }
+
+    @Benchmark
+    public String pickFromList() {
+        return WeightUtils.getRandom(pairs);
+    }
+
+    @Benchmark
+    public String pickFromMap() {
+        return WeightUtils.getRandom(weights);
+    }
+
+    @Benchmark
+    public String applyOperationsAndPick() {
+        Context<Player> context = Context.player(null);
+        HashMap<String, Double> modified = new HashMap<>(weights);
+        for (Pair<String, WeightOperation> operation : operations) {
+            String id = operation.left();
+            modified.put(id, operation.right().apply(context, modified.get(id), modified));
+        }
+        return WeightUtils.getRandom(modified);
+    }
+}
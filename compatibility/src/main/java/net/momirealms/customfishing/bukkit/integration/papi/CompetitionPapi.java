@@ -67,10 +67,20 @@ public class CompetitionPapi extends PlaceholderExpansion {
 
     @Override
     public @Nullable String onRequest(OfflinePlayer player, @NotNull String params) {
+        // competition scoped placeholders, for instance %cfcompetition_id:weekly:rank%
+        if (params.startsWith("id:")) {
+            int index = params.indexOf(':', 3);
+            if (index == -1) return "Invalid format";
+            FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition(params.substring(3, index));
+            return onCompetitionRequest(player, params.substring(index + 1), competition);
+        }
         switch (params) {
             case "goingon" -> {
                 return String.valueOf(plugin.getCompetitionManager().getOnGoingCompetition() != null);
             }
+            case "count" -> {
+                return String.valueOf(plugin.getCompetitionManager().getOnGoingCompetitions().size());
+            }
             case "nextseconds" -> {
                 return String.valueOf(plugin.getCompetitionManager().getNextCompetitionInSeconds());
             }
@@ -92,33 +102,37 @@ public class CompetitionPapi extends PlaceholderExpansion {
                 int day = sec / (3600 * 24);
                 return day == 0 ? "" : day + TranslationManager.miniMessageTranslation(MessageConstants.FORMAT_DAY.build().key());
             }
+        }
+        return onCompetitionRequest(player, params, plugin.getCompetitionManager().getOnGoingCompetition());
+    }
+
+    @Nullable
+    private String onCompetitionRequest(OfflinePlayer player, String params, @Nullable FishingCompetition competition) {
+        switch (params) {
+            case "goingon" -> {
+                return String.valueOf(competition != null);
+            }
             case "rank" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 else return String.valueOf(competition.getRanking().getPlayerRank(player.getName()));
             }
             case "goal" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 else return competition.getGoal().toString();
             }
             case "seconds" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 return String.valueOf(competition.getPublicContext().arg(ContextKeys.SECONDS));
             }
             case "second" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 return String.valueOf(competition.getPublicContext().arg(ContextKeys.SECOND));
             }
             case "minute" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 return String.valueOf(competition.getPublicContext().arg(ContextKeys.MINUTE));
             }
             case "hour" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 return String.valueOf(competition.getPublicContext().arg(ContextKeys.HOUR));
             }
@@ -127,7 +141,6 @@ public class CompetitionPapi extends PlaceholderExpansion {
         String[] split = params.split("_", 2);
         switch (split[0]) {
             case "score" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 double score;
                 if (split.length == 1) {
@@ -138,7 +151,6 @@ public class CompetitionPapi extends PlaceholderExpansion {
                 return String.format("%.2f", competition.getGoal().isReversed() ? -score : score);
             }
             case "player" -> {
-                FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
                 if (competition == null) return "";
                 if (split.length == 1) return "Invalid format";
                 return Optional.ofNullable(competition.getRanking().getPlayerAt(Integer.parseInt(split[1]))).orElse("");
@@ -53,6 +53,18 @@ dependencies {
     compileOnly("me.clip:placeholderapi:${rootProject.properties["placeholder_api_version"]}")
     // lz4
     compileOnly("org.lz4:lz4-java:${rootProject.properties["lz4_version"]}")
+    // test
+    testImplementation(platform("org.junit:junit-bom:${rootProject.properties["junit_version"]}"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("org.mockito:mockito-core:${rootProject.properties["mockito_version"]}")
+    testImplementation("com.github.codemonstur:embedded-redis:${rootProject.properties["embedded_redis_version"]}")
+    testImplementation("de.bwaldvogel:mongo-java-server:${rootProject.properties["mongo_java_server_version"]}")
+}
+
+// the tests run the storage code outside a server, so they need what the server or the plugin loader provides
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
 }
 
 tasks {
@@ -91,6 +103,12 @@ java {
     }
 }
 
+tasks.test {
+    useJUnitPlatform()
+    // the log storage tests write records of the maximum size
+    maxHeapSize = "1g"
+}
+
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
     options.release.set(21)
@@ -243,6 +243,7 @@ public class BukkitCustomFishingPluginImpl extends BukkitCustomFishingPlugin {
         if (this.statisticsManager != null) this.statisticsManager.disable();
         if (this.effectManager != null) this.effectManager.disable();
         if (this.hookManager != null) this.hookManager.disable();
+        if (this.gameManager != null) this.gameManager.disable();
         if (this.bagManager != null) this.bagManager.disable();
         if (this.integrationManager != null)  this.integrationManager.disable();
         if (this.storageManager != null) this.storageManager.disable();
@@ -43,7 +43,6 @@ import net.momirealms.customfishing.common.helper.AdventureHelper;
 import net.momirealms.customfishing.common.helper.VersionHelper;
 import net.momirealms.customfishing.common.locale.MessageConstants;
 import net.momirealms.customfishing.common.locale.TranslationManager;
-import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
 import net.momirealms.customfishing.common.sender.Sender;
 import net.momirealms.customfishing.common.util.ClassUtils;
 import net.momirealms.customfishing.common.util.ListUtils;
@@ -79,20 +78,24 @@ public class BukkitActionManager implements ActionManager<Player> {
 
     private final BukkitCustomFishingPlugin plugin;
     private final HashMap<String, ActionFactory<Player>> actionFactoryMap = new HashMap<>();
+    private final DelayedActionScheduler delayedActionScheduler;
     private static final String EXPANSION_FOLDER = "expansions/action";
 
     public BukkitActionManager(BukkitCustomFishingPlugin plugin) {
         this.plugin = plugin;
+        this.delayedActionScheduler = new DelayedActionScheduler(plugin);
         this.registerBuiltInActions();
     }
 
     @Override
     public void disable() {
+        this.delayedActionScheduler.stop();
         this.actionFactoryMap.clear();
     }
 
     @Override
     public void reload() {
+        this.delayedActionScheduler.start();
         this.loadExpansions();
     }
 
@@ -208,10 +211,11 @@ public class BukkitActionManager implements ActionManager<Player> {
             return context -> {
                 if (Math.random() > chance.evaluate(context)) return;
                 List<String> replaced = plugin.getPlaceholderManager().parse(context.holder(), messages, context.placeholderMap());
+                List<Component> components = replaced.stream().map(AdventureHelper::miniMessage).toList();
                 for (Player player : Bukkit.getOnlinePlayers()) {
                     Sender audience = plugin.getSenderFactory().wrap(player);
-                    for (String text : replaced) {
-                        audience.sendMessage(AdventureHelper.miniMessage(text));
+                    for (Component component : components) {
+                        audience.sendMessage(component);
                     }
                 }
             };
@@ -223,20 +227,14 @@ public class BukkitActionManager implements ActionManager<Player> {
                 return context -> {
                     if (Math.random() > chance.evaluate(context)) return;
                     double realRange = range.evaluate(context);
-                    Player owner = context.holder();
                     Location location = requireNonNull(context.arg(ContextKeys.LOCATION));
-                    for (Player player : location.getWorld().getPlayers()) {
-                        if (LocationUtils.getDistance(player.getLocation(), location) <= realRange) {
-                            context.arg(ContextKeys.TEMP_NEAR_PLAYER, player.getName());
-                            List<String> replaced = BukkitPlaceholderManager.getInstance().parse(
-                                    owner,
-                                    messages,
-                                    context.placeholderMap()
-                            );
-                            Sender audience = plugin.getSenderFactory().wrap(player);
-                            for (String text : replaced) {
-                                audience.sendMessage(AdventureHelper.miniMessage(text));
-                            }
+                    Collection<Player> viewers = LocationUtils.getNearbyPlayers(location, realRange);
+                    if (viewers.isEmpty()) return;
+                    List<ViewerComponent> components = renderForViewers(context, messages);
+                    for (Player player : viewers) {
+                        Sender audience = plugin.getSenderFactory().wrap(player);
+                        for (ViewerComponent component : components) {
+                            audience.sendMessage(component.render(player.getName()));
                         }
                     }
                 };
@@ -247,6 +245,17 @@ public class BukkitActionManager implements ActionManager<Player> {
         }, "message-nearby");
     }
 
+    /**
+     * Renders the placeholders shared by all the viewers and parses the texts once.
+     * {near} is kept in the texts and substituted for each viewer by {@link ViewerComponent#render(String)}.
+     */
+    private List<ViewerComponent> renderForViewers(Context<Player> context, List<String> texts) {
+        context.arg(ContextKeys.TEMP_NEAR_PLAYER, ViewerComponent.VIEWER_PLACEHOLDER);
+        List<String> replaced = plugin.getPlaceholderManager().parse(context.holder(), texts, context.placeholderMap());
+        context.remove(ContextKeys.TEMP_NEAR_PLAYER);
+        return replaced.stream().map(ViewerComponent::parse).toList();
+    }
+
     private void registerCommandAction() {
         registerAction((args, chance) -> {
             List<String> commands = ListUtils.toList(args);
@@ -293,13 +302,11 @@ public class BukkitActionManager implements ActionManager<Player> {
                     Player owner = context.holder();
                     double realRange = range.evaluate(context);
                     Location location = requireNonNull(context.arg(ContextKeys.LOCATION));
-                    for (Player player : location.getWorld().getPlayers()) {
-                        if (LocationUtils.getDistance(player.getLocation(), location) <= realRange) {
-                            context.arg(ContextKeys.TEMP_NEAR_PLAYER, player.getName());
-                            List<String> replaced = BukkitPlaceholderManager.getInstance().parse(owner, cmd, context.placeholderMap());
-                            for (String text : replaced) {
-                                Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), text);
-                            }
+                    for (Player player : LocationUtils.getNearbyPlayers(location, realRange)) {
+                        context.arg(ContextKeys.TEMP_NEAR_PLAYER, player.getName());
+                        List<String> replaced = BukkitPlaceholderManager.getInstance().parse(owner, cmd, context.placeholderMap());
+                        for (String text : replaced) {
+                            Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), text);
                         }
                     }
                 };
@@ -340,15 +347,13 @@ public class BukkitActionManager implements ActionManager<Player> {
                 MathValue<Player> range = MathValue.auto(section.get("range"));
                 return context -> {
                     if (Math.random() > chance.evaluate(context)) return;
-                    Player owner = context.holder();
                     Location location = requireNonNull(context.arg(ContextKeys.LOCATION));
                     double realRange = range.evaluate(context);
-                    for (Player player : location.getWorld().getPlayers()) {
-                        if (LocationUtils.getDistance(player.getLocation(), location) <= realRange) {
-                            context.arg(ContextKeys.TEMP_NEAR_PLAYER, player.getName());
-                            String replaced = plugin.getPlaceholderManager().parse(owner, actionbar, context.placeholderMap());
-                            SparrowHeart.getInstance().sendActionBar(player, AdventureHelper.componentToJson(AdventureHelper.miniMessage(replaced)));
-                        }
+                    Collection<Player> viewers = LocationUtils.getNearbyPlayers(location, realRange);
+                    if (viewers.isEmpty()) return;
+                    ViewerComponent component = renderForViewers(context, List.of(actionbar)).get(0);
+                    for (Player player : viewers) {
+                        SparrowHeart.getInstance().sendActionBar(player, AdventureHelper.componentToJson(component.render(player.getName())));
                     }
                 };
             } else {
@@ -588,18 +593,7 @@ public class BukkitActionManager implements ActionManager<Player> {
             }
             return context -> {
                 if (Math.random() > chance.evaluate(context)) return;
-                Location location = context.arg(ContextKeys.LOCATION);
-                if (async) {
-                    plugin.getScheduler().asyncLater(() -> {
-                        for (Action<Player> action : actions)
-                            action.trigger(context);
-                    }, delay * 50L, TimeUnit.MILLISECONDS);
-                } else {
-                    plugin.getScheduler().sync().runLater(() -> {
-                        for (Action<Player> action : actions)
-                            action.trigger(context);
-                    }, delay, location);
-                }
+                delayedActionScheduler.runLater(context, actions, delay, async);
             };
         }, "delay");
         registerAction((args, chance) -> {
@@ -624,22 +618,7 @@ public class BukkitActionManager implements ActionManager<Player> {
             }
             return context -> {
                 if (Math.random() > chance.evaluate(context)) return;
-                Location location = context.arg(ContextKeys.LOCATION);
-                SchedulerTask task;
-                if (async) {
-                    task = plugin.getScheduler().asyncRepeating(() -> {
-                        for (Action<Player> action : actions) {
-                            action.trigger(context);
-                        }
-                    }, delay * 50L, period * 50L, TimeUnit.MILLISECONDS);
-                } else {
-                    task = plugin.getScheduler().sync().runRepeating(() -> {
-                        for (Action<Player> action : actions) {
-                            action.trigger(context);
-                        }
-                    }, delay, period, location);
-                }
-                plugin.getScheduler().asyncLater(task::cancel, duration * 50L, TimeUnit.MILLISECONDS);
+                delayedActionScheduler.runTimer(context, actions, delay, period, duration, async);
             };
         }, "timer");
         registerAction((args, chance) -> {
@@ -858,15 +837,18 @@ public class BukkitActionManager implements ActionManager<Player> {
                 return context -> {
                     if (Math.random() > chance.evaluate(context)) return;
                     Location location = requireNonNull(context.arg(ContextKeys.LOCATION));
-                    for (Player player : location.getWorld().getPlayers()) {
-                        if (LocationUtils.getDistance(player.getLocation(), location) <= range) {
-                            context.arg(ContextKeys.TEMP_NEAR_PLAYER, player.getName());
-                            SparrowHeart.getInstance().sendTitle(player,
-                                    AdventureHelper.componentToJson(AdventureHelper.miniMessage(title.render(context))),
-                                    AdventureHelper.componentToJson(AdventureHelper.miniMessage(subtitle.render(context))),
-                                    fadeIn, stay, fadeOut
-                            );
-                        }
+                    Collection<Player> viewers = LocationUtils.getNearbyPlayers(location, range);
+                    if (viewers.isEmpty()) return;
+                    context.arg(ContextKeys.TEMP_NEAR_PLAYER, ViewerComponent.VIEWER_PLACEHOLDER);
+                    ViewerComponent titleComponent = ViewerComponent.parse(title.render(context));
+                    ViewerComponent subtitleComponent = ViewerComponent.parse(subtitle.render(context));
+                    context.remove(ContextKeys.TEMP_NEAR_PLAYER);
+                    for (Player player : viewers) {
+                        SparrowHeart.getInstance().sendTitle(player,
+                                AdventureHelper.componentToJson(titleComponent.render(player.getName())),
+                                AdventureHelper.componentToJson(subtitleComponent.render(player.getName())),
+                                fadeIn, stay, fadeOut
+                        );
                     }
                 };
             } else {
@@ -0,0 +1,204 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.action;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.action.Action;
+import net.momirealms.customfishing.api.mechanic.context.Context;
+import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.bukkit.scheduler.TimingWheel;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the delayed and repeated actions from two timing wheels, one ticked on the server thread and one ticked asynchronously,
+ * instead of creating a scheduler task for each triggered action.
+ * On Folia the synchronous wheel is ticked by the global region, and the due actions are handed to the region owning their location.
+ */
+public class DelayedActionScheduler implements Listener {
+
+    // the maximum number of pending delayed actions per player, the actions exceeding it are dropped
+    private static final int MAX_PENDING_PER_PLAYER = 512;
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final TimingWheel<DelayedAction> syncWheel = new TimingWheel<>();
+    private final TimingWheel<DelayedAction> asyncWheel = new TimingWheel<>();
+    private final HashMap<UUID, Set<DelayedAction>> pendingByPlayer = new HashMap<>();
+    // guards the wheels and the pending actions
+    private final Object lock = new Object();
+    private SchedulerTask syncTicker;
+    private SchedulerTask asyncTicker;
+
+    public DelayedActionScheduler(BukkitCustomFishingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts ticking the wheels. Does nothing if they are already ticking.
+     */
+    public void start() {
+        if (this.syncTicker != null) return;
+        Bukkit.getPluginManager().registerEvents(this, plugin.getBootstrap());
+        this.syncTicker = plugin.getScheduler().sync().runRepeating(() -> tick(syncWheel, false), 1, 1, null);
+        this.asyncTicker = plugin.getScheduler().asyncRepeating(() -> tick(asyncWheel, true), 50, 50, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ticking the wheels and discards all the pending actions.
+     */
+    public void stop() {
+        HandlerList.unregisterAll(this);
+        if (this.syncTicker != null) {
+            this.syncTicker.cancel();
+            this.syncTicker = null;
+        }
+        if (this.asyncTicker != null) {
+            this.asyncTicker.cancel();
+            this.asyncTicker = null;
+        }
+        synchronized (lock) {
+            this.syncWheel.clear(action -> action.cancelled = true);
+            this.asyncWheel.clear(action -> action.cancelled = true);
+            this.pendingByPlayer.clear();
+        }
+    }
+
+    /**
+     * Runs the actions once after a delay.
+     *
+     * @param context the context of the actions
+     * @param actions the actions
+     * @param delay   the delay in ticks
+     * @param async   whether to run the actions asynchronously
+     */
+    public void runLater(Context<Player> context, List<Action<Player>> actions, int delay, boolean async) {
+        schedule(new DelayedAction(context, actions, async, 0, 0), delay);
+    }
+
+    /**
+     * Runs the actions repeatedly until the duration ends.
+     *
+     * @param context  the context of the actions
+     * @param actions  the actions
+     * @param delay    the delay before the first run in ticks
+     * @param period   the period between two runs in ticks
+     * @param duration the duration in ticks, counted from now
+     * @param async    whether to run the actions asynchronously
+     */
+    public void runTimer(Context<Player> context, List<Action<Player>> actions, int delay, int period, int duration, boolean async) {
+        if (delay >= duration) return;
+        schedule(new DelayedAction(context, actions, async, Math.max(1, period), duration - delay), delay);
+    }
+
+    private void schedule(DelayedAction action, int delay) {
+        Player player = action.context.holder();
+        synchronized (lock) {
+            if (player != null) {
+                Set<DelayedAction> pending = pendingByPlayer.computeIfAbsent(player.getUniqueId(), k -> new HashSet<>());
+                if (pending.size() >= MAX_PENDING_PER_PLAYER) {
+                    plugin.debug(() -> "Dropped a delayed action of " + player.getName() + " as there are too many pending ones");
+                    return;
+                }
+                pending.add(action);
+            }
+            (action.async ? asyncWheel : syncWheel).schedule(action, delay);
+        }
+    }
+
+    private void tick(TimingWheel<DelayedAction> wheel, boolean async) {
+        ArrayList<DelayedAction> due = new ArrayList<>();
+        synchronized (lock) {
+            wheel.advance(due::add);
+            // repeated actions are scheduled again once the wheel is advanced
+            for (DelayedAction action : due) {
+                if (action.period > 0 && action.remaining > action.period) {
+                    action.remaining -= action.period;
+                    wheel.schedule(action, action.period);
+                } else {
+                    removePending(action);
+                }
+            }
+        }
+        for (DelayedAction action : due) {
+            if (async) {
+                plugin.getScheduler().async().execute(action);
+            } else {
+                plugin.getScheduler().sync().run(action, action.location);
+            }
+        }
+    }
+
+    private void removePending(DelayedAction action) {
+        Player player = action.context.holder();
+        if (player == null) return;
+        Set<DelayedAction> pending = pendingByPlayer.get(player.getUniqueId());
+        if (pending != null && pending.remove(action) && pending.isEmpty()) {
+            pendingByPlayer.remove(player.getUniqueId());
+        }
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        synchronized (lock) {
+            Set<DelayedAction> pending = pendingByPlayer.remove(event.getPlayer().getUniqueId());
+            if (pending == null) return;
+            for (DelayedAction action : pending) {
+                action.cancelled = true;
+                (action.async ? asyncWheel : syncWheel).cancel(action);
+            }
+        }
+    }
+
+    private static class DelayedAction extends TimingWheel.Entry implements Runnable {
+
+        private final Context<Player> context;
+        private final List<Action<Player>> actions;
+        private final Location location;
+        private final boolean async;
+        private final int period;
+        // the ticks left before the timer ends, counted from the next run
+        private int remaining;
+        private volatile boolean cancelled;
+
+        private DelayedAction(Context<Player> context, List<Action<Player>> actions, boolean async, int period, int remaining) {
+            this.context = context;
+            this.actions = actions;
+            this.location = context.arg(ContextKeys.LOCATION);
+            this.async = async;
+            this.period = period;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            for (Action<Player> action : actions) {
+                action.trigger(context);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.action;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.common.helper.AdventureHelper;
+
+/**
+ * A message whose shared placeholders have been rendered and parsed once.
+ * The only per-viewer placeholder, {near}, is substituted into the parsed component for each viewer.
+ */
+final class ViewerComponent {
+
+    static final String VIEWER_PLACEHOLDER = "{" + ContextKeys.TEMP_NEAR_PLAYER.key() + "}";
+
+    private final String text;
+    private final Component component;
+    private final boolean hasViewer;
+    // {near} used inside a tag, for instance in a click event, can't be replaced in the component tree
+    private final boolean viewerInTag;
+
+    private ViewerComponent(String text) {
+        this.text = text;
+        this.hasViewer = text.contains(VIEWER_PLACEHOLDER);
+        this.viewerInTag = hasViewer && isInTag(text);
+        this.component = viewerInTag ? null : AdventureHelper.miniMessage(text);
+    }
+
+    /**
+     * Parses a rendered MiniMessage text, in which {near} is kept as it is.
+     *
+     * @param text the rendered text
+     * @return the parsed component
+     */
+    static ViewerComponent parse(String text) {
+        return new ViewerComponent(text);
+    }
+
+    /**
+     * Gets the component for the given viewer.
+     *
+     * @param viewer the name of the viewer
+     * @return the component
+     */
+    Component render(String viewer) {
+        if (!hasViewer) {
+            return component;
+        }
+        if (viewerInTag) {
+            return AdventureHelper.miniMessage(text.replace(VIEWER_PLACEHOLDER, viewer));
+        }
+        return component.replaceText(TextReplacementConfig.builder()
+                .matchLiteral(VIEWER_PLACEHOLDER)
+                .replacement(viewer)
+                .build());
+    }
+
+    private static boolean isInTag(String text) {
+        int index = text.indexOf(VIEWER_PLACEHOLDER);
+        while (index != -1) {
+            if (text.lastIndexOf('<', index) > text.lastIndexOf('>', index)) {
+                return true;
+            }
+            index = text.indexOf(VIEWER_PLACEHOLDER, index + 1);
+        }
+        return false;
+    }
+}
@@ -31,7 +31,6 @@ import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
 import net.momirealms.customfishing.api.mechanic.requirement.RequirementManager;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.api.util.EventUtils;
-import net.momirealms.customfishing.api.util.PlayerUtils;
 import net.momirealms.customfishing.bukkit.config.BukkitConfigManager;
 import net.momirealms.customfishing.common.helper.AdventureHelper;
 import net.momirealms.sparrow.heart.SparrowHeart;
@@ -45,6 +44,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -90,8 +90,9 @@ public class BukkitBagManager implements BagManager, Listener {
     @Override
     public void disable() {
         unload();
-        if (!tempEditMap.isEmpty()) {
-            this.plugin.getStorageManager().getDataSource().updateManyPlayersData(tempEditMap.values(), true);
+        // the storage is disabled later, and writes the queued data before it is
+        for (UserData userData : tempEditMap.values()) {
+            this.plugin.getStorageManager().saveUserData(userData, true);
         }
     }
 
@@ -125,7 +126,7 @@ public class BukkitBagManager implements BagManager, Listener {
             return;
         }
 
-        int cannotPut = PlayerUtils.putItemsToInventory(inventory, item, item.getAmount());
+        int cannotPut = userData.holder().getIndex().put(inventory, item, item.getAmount());
         // some are put into bag
         if (cannotPut != item.getAmount()) {
             ActionManager.trigger(context, collectLootActions);
@@ -168,6 +169,7 @@ public class BukkitBagManager implements BagManager, Listener {
         if (enable) {
             Optional<UserData> onlineUser = plugin.getStorageManager().getOnlineUser(owner);
             onlineUser.ifPresentOrElse(data -> {
+                data.holder().getIndex().invalidate();
                 viewer.openInventory(data.holder().getInventory());
                 SparrowHeart.getInstance().updateInventoryTitle(viewer, AdventureHelper.componentToJson(AdventureHelper.miniMessage(plugin.getPlaceholderManager().parse(Bukkit.getOfflinePlayer(owner), bagTitle, Map.of("{uuid}", owner.toString(), "{player}", data.name())))));
                 future.complete(true);
@@ -194,8 +196,9 @@ public class BukkitBagManager implements BagManager, Listener {
      */
     @EventHandler
     public void onInvClose(InventoryCloseEvent event) {
-        if (!(event.getInventory().getHolder() instanceof FishingBagHolder))
+        if (!(event.getInventory().getHolder() instanceof FishingBagHolder holder))
             return;
+        holder.getIndex().invalidate();
         final Player viewer = (Player) event.getPlayer();
         UserData userData = tempEditMap.remove(viewer.getUniqueId());
         if (userData == null)
@@ -211,8 +214,10 @@ public class BukkitBagManager implements BagManager, Listener {
      */
     @EventHandler (ignoreCancelled = true)
     public void onInvClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof FishingBagHolder))
+        if (!(event.getInventory().getHolder() instanceof FishingBagHolder holder))
             return;
+        // the click may edit any slot of the bag, for instance by shift-clicking
+        holder.getIndex().invalidate();
         ItemStack movedItem = event.getCurrentItem();
         Inventory clicked = event.getClickedInventory();
         if (clicked != event.getWhoClicked().getInventory()) {
@@ -237,6 +242,18 @@ public class BukkitBagManager implements BagManager, Listener {
         event.setCancelled(true);
     }
 
+    /**
+     * Handles InventoryDragEvent to keep the index of the Fishing Bag up to date.
+     *
+     * @param event The InventoryDragEvent triggered when items are dragged in an inventory.
+     */
+    @EventHandler (ignoreCancelled = true)
+    public void onInvDrag(InventoryDragEvent event) {
+        if (!(event.getInventory().getHolder() instanceof FishingBagHolder holder))
+            return;
+        holder.getIndex().invalidate();
+    }
+
     /**
      * Event handler for the PlayerQuitEvent.
      * This method is triggered when a player quits the server.
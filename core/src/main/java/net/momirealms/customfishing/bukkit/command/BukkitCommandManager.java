@@ -58,7 +58,8 @@ public class BukkitCommandManager extends AbstractCommandManager<CommandSender>
             new QueryStatisticsCommand(this),
             new DebugLootCommand(this),
             new DebugBiomeCommand(this),
-            new DebugSNBTCommand(this)
+            new DebugSNBTCommand(this),
+            new DebugSchedulerCommand(this)
     );
 
     private final Index<String, CommandFeature<CommandSender>> INDEX = Index.create(CommandFeature::getFeatureID, FEATURES);
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.command.feature;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.game.GameTicker;
+import net.momirealms.customfishing.bukkit.command.BukkitCommandFeature;
+import net.momirealms.customfishing.bukkit.storage.BukkitStorageManager;
+import net.momirealms.customfishing.bukkit.storage.WriteBehindQueue;
+import net.momirealms.customfishing.bukkit.storage.method.database.sql.AbstractEmbeddedDatabase;
+import net.momirealms.customfishing.bukkit.storage.method.database.sql.SingleWriter;
+import net.momirealms.customfishing.common.command.CustomFishingCommandManager;
+import net.momirealms.customfishing.common.plugin.scheduler.AbstractJavaScheduler;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskMetrics;
+import net.momirealms.customfishing.common.sender.Sender;
+import org.bukkit.command.CommandSender;
+import org.incendo.cloud.Command;
+import org.incendo.cloud.CommandManager;
+
+import java.util.Locale;
+import java.util.Map;
+
+public class DebugSchedulerCommand extends BukkitCommandFeature<CommandSender> {
+
+    public DebugSchedulerCommand(CustomFishingCommandManager<CommandSender> commandManager) {
+        super(commandManager);
+    }
+
+    @Override
+    public Command.Builder<? extends CommandSender> assembleCommand(CommandManager<CommandSender> manager, Command.Builder<CommandSender> builder) {
+        return builder
+                .handler(context -> {
+                    BukkitCustomFishingPlugin plugin = BukkitCustomFishingPlugin.getInstance();
+                    Sender sender = plugin.getSenderFactory().wrap(context.sender());
+                    sender.sendMessage(Component.text("Async tasks (times in ms: avg / p99 / max)", NamedTextColor.GOLD));
+                    for (AbstractJavaScheduler.CategoryStats stats : plugin.getScheduler().categoryStats()) {
+                        TaskMetrics metrics = stats.metrics();
+                        sender.sendMessage(Component.text()
+                                .append(Component.text(stats.category().name(), NamedTextColor.YELLOW))
+                                .append(Component.text(" runs: " + metrics.runs() + " failed: " + metrics.failures()
+                                        + " active: " + stats.active() + " queued: " + stats.queued(), NamedTextColor.WHITE))
+                                .append(Component.text(" wait: " + times(metrics.waitTimes()) + " run: " + times(metrics.executionTimes()), NamedTextColor.GRAY))
+                                .build());
+                    }
+
+                    Map<String, GameTicker.FrameTime> frameTimes = plugin.getGameManager().getGameTicker().frameTimes();
+                    if (!frameTimes.isEmpty()) {
+                        sender.sendMessage(Component.text("Game ticks (times in ms: avg / max)", NamedTextColor.GOLD));
+                        frameTimes.forEach((game, time) -> sender.sendMessage(Component.text()
+                                .append(Component.text(game, NamedTextColor.YELLOW))
+                                .append(Component.text(" ticks: " + time.frames() + " " + format(time.averageNanos() / 1_000_000d) + " / " + format(time.maxNanos() / 1_000_000d), NamedTextColor.WHITE))
+                                .build()));
+                    }
+
+                    if (plugin.getStorageManager() instanceof BukkitStorageManager storageManager) {
+                        WriteBehindQueue.Stats queue = storageManager.getSaveQueueStats();
+                        if (queue != null) {
+                            sender.sendMessage(Component.text("Save queue: " + queue.queueDepth() + " waiting, " + queue.requested() + " saves, "
+                                    + queue.written() + " writes, " + format(queue.coalescingRatio()) + " saves per write", NamedTextColor.WHITE));
+                        }
+                        if (storageManager.getDataSource() instanceof AbstractEmbeddedDatabase database) {
+                            SingleWriter.Stats writer = database.getWriterStats();
+                            if (writer != null) {
+                                sender.sendMessage(Component.text("Database writer: " + writer.writes() + " writes in " + writer.batches() + " commits, "
+                                        + writer.queueDepth() + " waiting, latency " + format(writer.averageLatencyMillis()) + " / " + format(writer.maxLatencyMillis()) + " ms", NamedTextColor.WHITE));
+                            }
+                        }
+                    }
+                });
+    }
+
+    private static String times(TaskMetrics.Histogram histogram) {
+        return format(histogram.average()) + " / " + format(histogram.percentile(99)) + " / " + format(histogram.max());
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.2f", value);
+    }
+
+    @Override
+    public String getFeatureID() {
+        return "debug_scheduler";
+    }
+}
@@ -22,10 +22,11 @@ import com.google.gson.JsonObject;
 import net.kyori.adventure.text.Component;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.storage.DataStorageProvider;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.bukkit.command.BukkitCommandFeature;
 import net.momirealms.customfishing.common.command.CustomFishingCommandManager;
 import net.momirealms.customfishing.common.locale.MessageConstants;
-import net.momirealms.customfishing.common.util.CompletableFutures;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
@@ -40,15 +41,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
 public class ExportDataCommand extends BukkitCommandFeature<CommandSender> {
 
+    // the number of players read at once
+    private static final int BATCH_SIZE = 256;
+
     public ExportDataCommand(CustomFishingCommandManager<CommandSender> commandManager) {
         super(commandManager);
     }
@@ -66,38 +66,26 @@ public class ExportDataCommand extends BukkitCommandFeature<CommandSender> {
 
                     BukkitCustomFishingPlugin plugin = BukkitCustomFishingPlugin.getInstance();
                     handleFeedback(context, MessageConstants.COMMAND_DATA_EXPORT_START);
-                    plugin.getScheduler().async().execute(() -> {
+                    plugin.getScheduler().async(TaskCategory.STORAGE).execute(() -> {
 
                         DataStorageProvider storageProvider = plugin.getStorageManager().getDataSource();
 
-                        Set<UUID> uuids = storageProvider.getUniqueUsers();
-                        Set<CompletableFuture<Void>> futures = new HashSet<>();
-                        AtomicInteger userCount = new AtomicInteger(0);
-                        Map<UUID, String> out = Collections.synchronizedMap(new TreeMap<>());
+                        List<UUID> uuids = new ArrayList<>(storageProvider.getUniqueUsers());
+                        int userCount = 0;
+                        Map<UUID, String> out = new TreeMap<>();
 
                         int amount = uuids.size();
-                        for (UUID uuid : uuids) {
-                            futures.add(storageProvider.getPlayerData(uuid, false, null).thenAccept(it -> {
-                                if (it.isPresent()) {
-                                    out.put(uuid, plugin.getStorageManager().toJson(it.get()));
-                                    userCount.incrementAndGet();
-                                }
-                            }));
-                        }
-
-                        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
-
-                        while (true) {
-                            try {
-                                overallFuture.get(3, TimeUnit.SECONDS);
-                            } catch (InterruptedException | ExecutionException e) {
-                                e.printStackTrace();
-                                break;
-                            } catch (TimeoutException e) {
-                                handleFeedback(context, MessageConstants.COMMAND_DATA_EXPORT_PROGRESS, Component.text(userCount.get()), Component.text(amount));
-                                continue;
+                        long lastProgress = System.currentTimeMillis();
+                        for (int i = 0; i < amount; i += BATCH_SIZE) {
+                            Map<UUID, PlayerData> batch = storageProvider.getManyPlayersData(uuids.subList(i, Math.min(amount, i + BATCH_SIZE)));
+                            for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+                                out.put(entry.getKey(), plugin.getStorageManager().toJson(entry.getValue()));
+                            }
+                            userCount += batch.size();
+                            if (System.currentTimeMillis() - lastProgress >= TimeUnit.SECONDS.toMillis(3)) {
+                                lastProgress = System.currentTimeMillis();
+                                handleFeedback(context, MessageConstants.COMMAND_DATA_EXPORT_PROGRESS, Component.text(userCount), Component.text(amount));
                             }
-                            break;
                         }
 
                         JsonObject outJson = new JsonObject();
@@ -28,6 +28,7 @@ import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.bukkit.command.BukkitCommandFeature;
 import net.momirealms.customfishing.common.command.CustomFishingCommandManager;
 import net.momirealms.customfishing.common.locale.MessageConstants;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import net.momirealms.customfishing.common.util.CompletableFutures;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
@@ -83,7 +84,7 @@ public class ImportDataCommand extends BukkitCommandFeature<CommandSender> {
                     }
 
                     handleFeedback(context, MessageConstants.COMMAND_DATA_IMPORT_START);
-                    plugin.getScheduler().async().execute(() -> {
+                    plugin.getScheduler().async(TaskCategory.STORAGE).execute(() -> {
 
                         JsonObject data;
                         try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8))) {
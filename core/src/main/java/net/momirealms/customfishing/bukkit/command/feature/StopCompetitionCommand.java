@@ -23,8 +23,17 @@ import net.momirealms.customfishing.bukkit.command.BukkitCommandFeature;
 import net.momirealms.customfishing.common.command.CustomFishingCommandManager;
 import net.momirealms.customfishing.common.locale.MessageConstants;
 import org.bukkit.command.CommandSender;
+import org.checkerframework.checker.nullness.qual.NonNull;
 import org.incendo.cloud.Command;
 import org.incendo.cloud.CommandManager;
+import org.incendo.cloud.context.CommandContext;
+import org.incendo.cloud.context.CommandInput;
+import org.incendo.cloud.parser.standard.StringParser;
+import org.incendo.cloud.suggestion.Suggestion;
+import org.incendo.cloud.suggestion.SuggestionProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class StopCompetitionCommand extends BukkitCommandFeature<CommandSender> {
 
@@ -35,13 +44,29 @@ public class StopCompetitionCommand extends BukkitCommandFeature<CommandSender>
     @Override
     public Command.Builder<? extends CommandSender> assembleCommand(CommandManager<CommandSender> manager, Command.Builder<CommandSender> builder) {
         return builder
+                .optional("id", StringParser.stringComponent().suggestionProvider(new SuggestionProvider<>() {
+                    @Override
+                    public @NonNull CompletableFuture<? extends @NonNull Iterable<? extends @NonNull Suggestion>> suggestionsFuture(@NonNull CommandContext<Object> context, @NonNull CommandInput input) {
+                        return CompletableFuture.completedFuture(BukkitCustomFishingPlugin.getInstance().getCompetitionManager().getOnGoingCompetitions().stream().map(competition -> Suggestion.suggestion(competition.getConfig().id())).toList());
+                    }
+                }))
                 .flag(manager.flagBuilder("silent").withAliases("s").build())
                 .handler(context -> {
-                    FishingCompetition competition = BukkitCustomFishingPlugin.getInstance().getCompetitionManager().getOnGoingCompetition();
-                    if (competition == null) {
+                    String id = context.getOrDefault("id", null);
+                    // without an ID, all the ongoing competitions are affected
+                    List<FishingCompetition> competitions;
+                    if (id == null) {
+                        competitions = BukkitCustomFishingPlugin.getInstance().getCompetitionManager().getOnGoingCompetitions();
+                    } else {
+                        FishingCompetition competition = BukkitCustomFishingPlugin.getInstance().getCompetitionManager().getOnGoingCompetition(id);
+                        competitions = competition == null ? List.of() : List.of(competition);
+                    }
+                    if (competitions.isEmpty()) {
                         handleFeedback(context, MessageConstants.COMMAND_COMPETITION_FAILURE_NO_COMPETITION);
                     } else {
-                        competition.stop(true);
+                        for (FishingCompetition competition : competitions) {
+                            competition.stop(true);
+                        }
                         handleFeedback(context, MessageConstants.COMMAND_COMPETITION_STOP_SUCCESS);
                     }
                 });
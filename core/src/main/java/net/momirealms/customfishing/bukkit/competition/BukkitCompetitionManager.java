@@ -41,23 +41,26 @@ import java.util.concurrent.TimeUnit;
 
 public class BukkitCompetitionManager implements CompetitionManager {
     private final BukkitCustomFishingPlugin plugin;
-    private final NavigableMap<CompetitionSchedule, CompetitionConfig> timeConfigMap;
+    private final NavigableMap<CompetitionSchedule, List<CompetitionConfig>> timeConfigMap;
     private final HashMap<String, CompetitionConfig> commandConfigMap;
-    private Competition currentCompetition;
+    private final ConcurrentHashMap<String, Competition> competitions;
     private SchedulerTask timerCheckTask;
     private int nextCompetitionSeconds;
     private int interval;
     private final UUID identifier;
     private final ConcurrentHashMap<UUID, PlayerCount> playerCountMap;
     private RedisPlayerCount redisPlayerCount;
+    private final RewardDispatcher rewardDispatcher;
 
     public BukkitCompetitionManager(BukkitCustomFishingPlugin plugin) {
         this.plugin = plugin;
         this.identifier = UUID.randomUUID();
         this.timeConfigMap = new TreeMap<>();
         this.commandConfigMap = new HashMap<>();
+        this.competitions = new ConcurrentHashMap<>();
         this.playerCountMap = new ConcurrentHashMap<>();
         this.redisPlayerCount = null;
+        this.rewardDispatcher = new RewardDispatcher(plugin);
     }
 
     @Override
@@ -70,6 +73,7 @@ public class BukkitCompetitionManager implements CompetitionManager {
                 TimeUnit.SECONDS
         );
         plugin.debug("Loaded " + commandConfigMap.size() + " competitions");
+        this.rewardDispatcher.start();
 
         if (ConfigManager.redisRanking()) {
             if (this.redisPlayerCount == null) {
@@ -87,8 +91,7 @@ public class BukkitCompetitionManager implements CompetitionManager {
     public void unload() {
         if (this.timerCheckTask != null)
             this.timerCheckTask.cancel();
-        if (currentCompetition != null && currentCompetition.isOnGoing())
-            this.currentCompetition.stop(true);
+        this.stopAll(true);
         if (this.redisPlayerCount != null)
             this.redisPlayerCount.cancel();
         this.commandConfigMap.clear();
@@ -99,8 +102,8 @@ public class BukkitCompetitionManager implements CompetitionManager {
     public void disable() {
         if (this.timerCheckTask != null)
             this.timerCheckTask.cancel();
-        if (currentCompetition != null && currentCompetition.isOnGoing())
-            this.currentCompetition.stop(false);
+        this.stopAll(false);
+        this.rewardDispatcher.stop();
         if (this.redisPlayerCount != null) {
             this.redisPlayerCount.cancel();
             this.redisPlayerCount = null;
@@ -109,13 +112,21 @@ public class BukkitCompetitionManager implements CompetitionManager {
         this.timeConfigMap.clear();
     }
 
+    private void stopAll(boolean triggerEvent) {
+        for (Competition competition : competitions.values()) {
+            if (competition.isOnGoing())
+                competition.stop(triggerEvent);
+        }
+        competitions.clear();
+    }
+
     @Override
     public boolean registerCompetition(CompetitionConfig competitionConfig) {
         if (commandConfigMap.containsKey(competitionConfig.id())) {
             return false;
         }
         for (CompetitionSchedule schedule : competitionConfig.schedules()) {
-            timeConfigMap.put(schedule, competitionConfig);
+            timeConfigMap.computeIfAbsent(schedule, k -> new ArrayList<>()).add(competitionConfig);
         }
         commandConfigMap.put(competitionConfig.id(), competitionConfig);
         return true;
@@ -135,8 +146,8 @@ public class BukkitCompetitionManager implements CompetitionManager {
         int seconds = competitionSchedule.getTotalSeconds();
         int nextCompetitionTime = 7 * 24 * 60 * 60;
 
-        Map.Entry<CompetitionSchedule, CompetitionConfig> floorEntry = timeConfigMap.floorEntry(competitionSchedule);
-        Map.Entry<CompetitionSchedule, CompetitionConfig> ceilingEntry = timeConfigMap.ceilingEntry(competitionSchedule);
+        Map.Entry<CompetitionSchedule, List<CompetitionConfig>> floorEntry = timeConfigMap.floorEntry(competitionSchedule);
+        Map.Entry<CompetitionSchedule, List<CompetitionConfig>> ceilingEntry = timeConfigMap.ceilingEntry(competitionSchedule);
 
         if (floorEntry != null) {
             nextCompetitionTime = Math.min(nextCompetitionTime, floorEntry.getKey().getTimeDelta(seconds));
@@ -146,9 +157,13 @@ public class BukkitCompetitionManager implements CompetitionManager {
         }
 
         this.nextCompetitionSeconds = nextCompetitionTime;
-        CompetitionConfig config = timeConfigMap.get(competitionSchedule);
-        if (config != null) {
-            startCompetition(config, false, null);
+        this.competitions.values().removeIf(competition -> !competition.isOnGoing());
+        List<CompetitionConfig> configs = timeConfigMap.get(competitionSchedule);
+        if (configs != null) {
+            // overlapping schedules start their competitions side by side
+            for (CompetitionConfig config : configs) {
+                startCompetition(config, false, null);
+            }
         }
     }
 
@@ -162,15 +177,41 @@ public class BukkitCompetitionManager implements CompetitionManager {
     }
 
     /**
-     * Gets the ongoing fishing competition, if one is currently in progress.
+     * Gets the ongoing fishing competition started first, if one is currently in progress.
      *
      * @return The ongoing fishing competition, or null if there is none.
      */
     @Override
     @Nullable
     public FishingCompetition getOnGoingCompetition() {
-        if (currentCompetition == null) return null;
-        return currentCompetition.isOnGoing() ? currentCompetition : null;
+        Competition first = null;
+        for (Competition competition : competitions.values()) {
+            if (competition.isOnGoing() && (first == null || competition.getStartTime() < first.getStartTime())) {
+                first = competition;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    @Nullable
+    public FishingCompetition getOnGoingCompetition(String id) {
+        Competition competition = competitions.get(id);
+        return competition != null && competition.isOnGoing() ? competition : null;
+    }
+
+    @Override
+    public List<FishingCompetition> getOnGoingCompetitions() {
+        List<FishingCompetition> ongoing = new ArrayList<>(competitions.size());
+        for (Competition competition : competitions.values()) {
+            if (competition.isOnGoing()) {
+                ongoing.add(competition);
+            }
+        }
+        if (ongoing.size() > 1) {
+            ongoing.sort(Comparator.comparingLong(FishingCompetition::getStartTime));
+        }
+        return ongoing;
     }
 
     @Override
@@ -203,23 +244,26 @@ public class BukkitCompetitionManager implements CompetitionManager {
     }
 
     private void start(CompetitionConfig config) {
-        if (getOnGoingCompetition() != null) {
-            // END
-            currentCompetition.end(true);
+        Competition previous = competitions.get(config.id());
+        if (previous != null && previous.isOnGoing()) {
+            // END the running instance of the same competition, the others keep running
+            previous.end(true);
             plugin.getScheduler().asyncLater(() -> {
                 // start one second later
-                this.currentCompetition = new Competition(plugin, config);
-                this.currentCompetition.start(true);
+                launch(config);
             }, 1, TimeUnit.SECONDS);
         } else {
             // start instantly
-            plugin.getScheduler().async().execute(() -> {
-                this.currentCompetition = new Competition(plugin, config);
-                this.currentCompetition.start(true);
-            });
+            plugin.getScheduler().async().execute(() -> launch(config));
         }
     }
 
+    private void launch(CompetitionConfig config) {
+        Competition competition = new Competition(plugin, config, rewardDispatcher);
+        competition.start(true);
+        this.competitions.put(config.id(), competition);
+    }
+
     /**
      * Gets the number of seconds until the next competition.
      *
@@ -48,10 +48,8 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class Competition implements FishingCompetition {
@@ -66,12 +64,16 @@ public class Competition implements FishingCompetition {
     private long startTime;
     private BossBarManager bossBarManager;
     private ActionBarManager actionBarManager;
+    private final RewardDispatcher rewardDispatcher;
+    // the players who joined the competition on this server
+    private final Set<String> participants = ConcurrentHashMap.newKeySet();
 
-    public Competition(BukkitCustomFishingPlugin plugin, CompetitionConfig config) {
+    public Competition(BukkitCustomFishingPlugin plugin, CompetitionConfig config, RewardDispatcher rewardDispatcher) {
         this.config = config;
         this.plugin = plugin;
+        this.rewardDispatcher = rewardDispatcher;
         this.goal = config.goal() == CompetitionGoal.RANDOM ? CompetitionGoal.getRandom() : config.goal();
-        if (ConfigManager.redisRanking()) this.rankingProvider = new RedisRankingProvider();
+        if (ConfigManager.redisRanking()) this.rankingProvider = new RedisRankingProvider(config.id(), config.durationInSeconds());
                               else this.rankingProvider = new LocalRankingProvider();
         this.publicContext = Context.player(null, true);
         this.publicContext.arg(ContextKeys.GOAL, goal);
@@ -135,47 +137,40 @@ public class Competition implements FishingCompetition {
         if (this.actionBarManager != null)
             this.actionBarManager.unload();
 
-        // give prizes
-        HashMap<String, Action<Player>[]> rewardsMap = config.rewards();
-        if (rankingProvider.getSize() != 0 && rewardsMap != null) {
-            Iterator<Pair<String, Double>> iterator = rankingProvider.getIterator();
-            int i = 1;
-            while (iterator.hasNext()) {
-                Pair<String, Double> competitionPlayer = iterator.next();
-                this.publicContext.arg(ContextKeys.of(i + "_player", String.class), competitionPlayer.left());
-                this.publicContext.arg(ContextKeys.of(i + "_score", String.class), String.format("%.2f", goal.isReversed() ? -competitionPlayer.right() : competitionPlayer.right()));
-                if (i < rewardsMap.size()) {
-                    Player player = Bukkit.getPlayer(competitionPlayer.left());
-                    if (player != null) {
-                        ActionManager.trigger(Context.player(player).combine(this.publicContext), rewardsMap.get(String.valueOf(i)));
-                    }
-                } else {
-                    Action<Player>[] actions = rewardsMap.get("participation");
-                    if (actions != null) {
-                        Player player = Bukkit.getPlayer(competitionPlayer.left()); {
-                            if (player != null) {
-                                ActionManager.trigger(Context.player(player).combine(this.publicContext), actions);
-                            }
-                        }
+        // the final ranking is read off the server thread, as it might be a remote one
+        plugin.getScheduler().async().execute(() -> {
+            // give prizes
+            HashMap<String, Action<Player>[]> rewardsMap = config.rewards();
+            if (rankingProvider.getSize() != 0 && rewardsMap != null) {
+                ArrayList<String> ranking = new ArrayList<>(rankingProvider.getSize());
+                // only the top places are exposed as placeholders, the context is copied for every rewarded player
+                int placeholderLimit = Math.max(ConfigManager.placeholderLimit(), rewardsMap.size());
+                Iterator<Pair<String, Double>> iterator = rankingProvider.getIterator();
+                int i = 1;
+                while (iterator.hasNext()) {
+                    Pair<String, Double> competitionPlayer = iterator.next();
+                    if (i <= placeholderLimit) {
+                        this.publicContext.arg(ContextKeys.of(i + "_player", String.class), competitionPlayer.left());
+                        this.publicContext.arg(ContextKeys.of(i + "_score", String.class), String.format("%.2f", goal.isReversed() ? -competitionPlayer.right() : competitionPlayer.right()));
                     }
+                    ranking.add(competitionPlayer.left());
+                    i++;
                 }
-                i++;
+                this.rewardDispatcher.dispatch(config, ranking, publicContext, participants, rankingProvider);
             }
-        }
 
-        // end actions
-        ActionManager.trigger(publicContext, config.endActions());
+            // end actions
+            ActionManager.trigger(publicContext, config.endActions());
 
-        // call event
-        if (triggerEvent) {
-            plugin.getScheduler().async().execute(() -> {
+            // call event
+            if (triggerEvent) {
                 CompetitionEvent competitionEndEvent = new CompetitionEvent(CompetitionEvent.State.END, this);
                 Bukkit.getPluginManager().callEvent(competitionEndEvent);
-            });
-        }
+            }
 
-        // 1 seconds delay for other servers to read the redis data
-        plugin.getScheduler().asyncLater(this.rankingProvider::clear, 1, TimeUnit.SECONDS);
+            // 1 seconds delay for other servers to read the redis data
+            plugin.getScheduler().asyncLater(this.rankingProvider::clear, 1, TimeUnit.SECONDS);
+        });
     }
 
     private void arrangeTimerTask() {
@@ -272,6 +267,7 @@ public class Competition implements FishingCompetition {
             this.actionBarManager.showActionBarTo(player);
 
         // refresh data
+        this.participants.add(player.getName());
         this.goal.refreshScore(rankingProvider, player, score);
     }
 
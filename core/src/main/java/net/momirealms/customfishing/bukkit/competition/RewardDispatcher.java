@@ -0,0 +1,342 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.competition;
+
+import com.google.gson.JsonParseException;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.action.Action;
+import net.momirealms.customfishing.api.mechanic.action.ActionManager;
+import net.momirealms.customfishing.api.mechanic.competition.CompetitionConfig;
+import net.momirealms.customfishing.api.mechanic.competition.RankingProvider;
+import net.momirealms.customfishing.api.mechanic.context.Context;
+import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.common.helper.GsonHelper;
+import net.momirealms.customfishing.common.helper.VersionHelper;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gives the rewards of the ended competitions. The recipients are grouped by reward tier off the server thread,
+ * and the actions are then run on the server thread in slices limited to a time budget per tick.
+ * Each reward is claimed on the ranking before being given, so that a ranking shared by several servers rewards a player once.
+ * The players online on a server are claimed by it right away, and the players who are offline everywhere a few seconds later,
+ * so that a player is rewarded by the server they are playing on rather than by another server of the group.
+ * The claimed rewards of the players who are offline are saved, and given when they join this server again.
+ */
+public class RewardDispatcher implements Listener {
+
+    // the time spent running rewards in one tick
+    private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final String FILE_NAME = "pending-rewards.json";
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final ConcurrentLinkedQueue<Reward> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean(false);
+    // the claims of the offline players waiting for the other servers to claim their online players
+    private final Set<DeferredClaim> deferredClaims = ConcurrentHashMap.newKeySet();
+    // guarded by itself
+    private PendingRewards pending = new PendingRewards();
+    private SchedulerTask drainTask;
+
+    public RewardDispatcher(BukkitCustomFishingPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Loads the saved rewards and starts running the queued ones. Does nothing if it is already running.
+     */
+    public void start() {
+        if (this.drainTask != null) return;
+        synchronized (this) {
+            this.pending = read();
+        }
+        Bukkit.getPluginManager().registerEvents(this, plugin.getBootstrap());
+        this.drainTask = plugin.getScheduler().sync().runRepeating(this::drain, 1, 1, null);
+    }
+
+    /**
+     * Stops running the queued rewards. The rewards not given yet are saved, so that they are given on the next join.
+     */
+    public void stop() {
+        HandlerList.unregisterAll(this);
+        if (this.drainTask != null) {
+            this.drainTask.cancel();
+            this.drainTask = null;
+        }
+        // the deferred claims are made now, as they would otherwise be lost
+        for (DeferredClaim claim : deferredClaims) {
+            claim.run();
+        }
+        Reward reward;
+        while ((reward = queue.poll()) != null) {
+            keep(reward);
+        }
+        save();
+    }
+
+    /**
+     * Gives the rewards of an ended competition. It should be called off the server thread.
+     * Only the rewards of the players online on this server or who joined the competition on this server are given,
+     * and each of them is claimed on the ranking first, so that a shared ranking doesn't reward a player on several servers.
+     * The offline players are claimed after a delay, which leaves the time to the server a player is online on to claim them.
+     *
+     * @param config          the config of the competition
+     * @param ranking         the final ranking, from the first place
+     * @param publicContext   the public context of the competition at its end
+     * @param participants    the names of the players who joined the competition on this server
+     * @param rankingProvider the ranking of the competition
+     */
+    public void dispatch(CompetitionConfig config, List<String> ranking, Context<Player> publicContext, Set<String> participants, RankingProvider rankingProvider) {
+        HashMap<String, Action<Player>[]> rewardsMap = config.rewards();
+        if (rewardsMap == null || ranking.isEmpty()) return;
+        // the placeholders are frozen, so that the rewards given later don't see another competition
+        Map<String, String> placeholders = new HashMap<>(publicContext.placeholderMap());
+        String instance = config.id() + "@" + System.currentTimeMillis();
+        LinkedHashMap<String, String> online = new LinkedHashMap<>();
+        LinkedHashMap<String, String> offline = new LinkedHashMap<>();
+        for (int i = 0; i < ranking.size(); i++) {
+            int rank = i + 1;
+            String tier = rank < rewardsMap.size() ? String.valueOf(rank) : "participation";
+            if (rewardsMap.get(tier) == null) continue;
+            String name = ranking.get(i);
+            if (Bukkit.getPlayerExact(name) != null) online.put(name, tier);
+            else if (participants.contains(name)) offline.put(name, tier);
+        }
+        claim(config, instance, online, placeholders, rankingProvider);
+        if (offline.isEmpty()) return;
+        // the claims expire after half the duration of the competition, so the delay stays well below it
+        long delay = Math.min(5, Math.max(1, config.durationInSeconds() / 4));
+        DeferredClaim claim = new DeferredClaim(config, instance, offline, placeholders, rankingProvider);
+        deferredClaims.add(claim);
+        plugin.getScheduler().asyncLater(claim, delay, TimeUnit.SECONDS);
+    }
+
+    private void claim(CompetitionConfig config, String instance, Map<String, String> tiers, Map<String, String> placeholders, RankingProvider rankingProvider) {
+        if (tiers.isEmpty()) return;
+        Set<String> claimed;
+        try {
+            claimed = rankingProvider.claimRewards(tiers.keySet());
+        } catch (Exception e) {
+            plugin.getPluginLogger().warn("Failed to claim the rewards of competition " + config.id(), e);
+            return;
+        }
+        HashMap<String, Action<Player>[]> rewardsMap = config.rewards();
+        int total = 0;
+        for (Map.Entry<String, String> entry : tiers.entrySet()) {
+            if (!claimed.contains(entry.getKey())) continue;
+            queue.add(new Reward(entry.getKey(), config.id(), instance, entry.getValue(), rewardsMap.get(entry.getValue()), placeholders));
+            total++;
+        }
+        int queued = total;
+        plugin.debug(() -> "Queued " + queued + " rewards of competition " + config.id() + " out of " + tiers.size() + " claimed players");
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        Reward reward;
+        while (System.nanoTime() - start < TICK_BUDGET_NANOS && (reward = queue.poll()) != null) {
+            Player player = Bukkit.getPlayerExact(reward.player);
+            if (player == null) {
+                keep(reward);
+                continue;
+            }
+            if (VersionHelper.isFolia()) {
+                Reward toGive = reward;
+                plugin.getScheduler().sync().run(() -> give(player, toGive), player.getLocation());
+            } else {
+                give(player, reward);
+            }
+        }
+    }
+
+    private void give(Player player, Reward reward) {
+        Context<Player> context = Context.player(player);
+        for (Map.Entry<String, String> entry : reward.placeholders.entrySet()) {
+            String key = entry.getKey();
+            context.arg(ContextKeys.of(key.substring(1, key.length() - 1), String.class), entry.getValue());
+        }
+        try {
+            ActionManager.trigger(context, reward.actions);
+        } catch (Exception e) {
+            plugin.getPluginLogger().warn("Failed to give the rewards of competition " + reward.competition + " to " + player.getName(), e);
+        }
+    }
+
+    // saves the reward of a player who is offline, it was claimed by this server so no other server gives it
+    private void keep(Reward reward) {
+        synchronized (this) {
+            pending.placeholders.putIfAbsent(reward.instance, reward.placeholders);
+            pending.players.computeIfAbsent(reward.player.toLowerCase(Locale.ENGLISH), k -> new ArrayList<>())
+                    .add(new PendingReward(reward.competition, reward.instance, reward.tier));
+        }
+        scheduleSave();
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        List<PendingReward> rewards;
+        HashMap<String, Map<String, String>> placeholders = new HashMap<>();
+        synchronized (this) {
+            rewards = pending.players.remove(player.getName().toLowerCase(Locale.ENGLISH));
+            if (rewards == null) return;
+            for (PendingReward reward : rewards) {
+                placeholders.put(reward.instance, pending.placeholders.getOrDefault(reward.instance, Map.of()));
+            }
+        }
+        for (PendingReward reward : rewards) {
+            CompetitionConfig config = plugin.getCompetitionManager().getCompetition(reward.competition);
+            Action<Player>[] actions = config == null || config.rewards() == null ? null : config.rewards().get(reward.tier);
+            if (actions == null) {
+                plugin.getPluginLogger().warn("Discarded the rewards of competition " + reward.competition + " for " + player.getName() + " as the tier " + reward.tier + " no longer exists");
+                continue;
+            }
+            queue.add(new Reward(player.getName(), reward.competition, reward.instance, reward.tier, actions, placeholders.get(reward.instance)));
+        }
+        scheduleSave();
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            plugin.getScheduler().asyncLater(this::save, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private void save() {
+        saveScheduled.set(false);
+        String json;
+        synchronized (this) {
+            // the placeholders no longer used by any reward are dropped
+            HashSet<String> used = new HashSet<>();
+            for (List<PendingReward> rewards : pending.players.values()) {
+                for (PendingReward reward : rewards) {
+                    used.add(reward.instance);
+                }
+            }
+            pending.placeholders.keySet().retainAll(used);
+            json = GsonHelper.get().toJson(pending);
+        }
+        File file = new File(plugin.getDataFolder(), FILE_NAME);
+        File temp = new File(plugin.getDataFolder(), FILE_NAME + ".tmp");
+        try {
+            Files.writeString(temp.toPath(), json, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getPluginLogger().warn("Failed to save the pending competition rewards", e);
+        }
+    }
+
+    private PendingRewards read() {
+        File file = new File(plugin.getDataFolder(), FILE_NAME);
+        if (!file.exists()) return new PendingRewards();
+        try {
+            PendingRewards rewards = GsonHelper.get().fromJson(Files.readString(file.toPath(), StandardCharsets.UTF_8), PendingRewards.class);
+            return rewards == null ? new PendingRewards() : rewards;
+        } catch (IOException | JsonParseException e) {
+            plugin.getPluginLogger().warn("Failed to read the pending competition rewards", e);
+            return new PendingRewards();
+        }
+    }
+
+    private class DeferredClaim implements Runnable {
+
+        private final CompetitionConfig config;
+        private final String instance;
+        private final Map<String, String> tiers;
+        private final Map<String, String> placeholders;
+        private final RankingProvider rankingProvider;
+
+        private DeferredClaim(CompetitionConfig config, String instance, Map<String, String> tiers, Map<String, String> placeholders, RankingProvider rankingProvider) {
+            this.config = config;
+            this.instance = instance;
+            this.tiers = tiers;
+            this.placeholders = placeholders;
+            this.rankingProvider = rankingProvider;
+        }
+
+        @Override
+        public void run() {
+            // made once, either when the delay is over or on stop
+            if (!deferredClaims.remove(this)) return;
+            claim(config, instance, tiers, placeholders, rankingProvider);
+        }
+    }
+
+    private static class Reward {
+
+        private final String player;
+        private final String competition;
+        private final String instance;
+        private final String tier;
+        private final Action<Player>[] actions;
+        private final Map<String, String> placeholders;
+
+        private Reward(String player, String competition, String instance, String tier, Action<Player>[] actions, Map<String, String> placeholders) {
+            this.player = player;
+            this.competition = competition;
+            this.instance = instance;
+            this.tier = tier;
+            this.actions = actions;
+            this.placeholders = placeholders;
+        }
+    }
+
+    /**
+     * The rewards saved in the data folder.
+     */
+    private static class PendingRewards {
+
+        // the placeholders of the ended competitions, by competition instance
+        private HashMap<String, Map<String, String>> placeholders = new HashMap<>();
+        // the rewards not given yet, by lower case player name
+        private HashMap<String, List<PendingReward>> players = new HashMap<>();
+    }
+
+    private static class PendingReward {
+
+        private String competition;
+        private String instance;
+        private String tier;
+
+        @SuppressWarnings("unused")
+        private PendingReward() {
+        }
+
+        private PendingReward(String competition, String instance, String tier) {
+            this.competition = competition;
+            this.instance = instance;
+            this.tier = tier;
+        }
+    }
+}
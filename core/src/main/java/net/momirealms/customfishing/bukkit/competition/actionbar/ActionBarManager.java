@@ -20,6 +20,7 @@ package net.momirealms.customfishing.bukkit.competition.actionbar;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.competition.info.ActionBarConfig;
 import net.momirealms.customfishing.bukkit.competition.Competition;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -93,7 +94,7 @@ public class ActionBarManager implements Listener {
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         final Player player = event.getPlayer();
-        BukkitCustomFishingPlugin.getInstance().getScheduler().asyncLater(() -> {
+        BukkitCustomFishingPlugin.getInstance().getScheduler().asyncLater(TaskCategory.HUD, () -> {
             boolean hasJoined = competition.hasPlayerJoined(player);
             if ((hasJoined || actionBarConfig.showToAll())
                     && !senderMap.containsKey(player.getUniqueId())) {
@@ -28,6 +28,7 @@ import net.momirealms.customfishing.common.helper.AdventureHelper;
 import net.momirealms.customfishing.common.locale.MessageConstants;
 import net.momirealms.customfishing.common.locale.TranslationManager;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.entity.Player;
 
 import java.util.concurrent.TimeUnit;
@@ -75,7 +76,7 @@ public class ActionBarSender {
     public void show() {
         this.isShown = true;
         this.refreshTimer = config.refreshRate();
-        senderTask = BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(() -> {
+        senderTask = BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(TaskCategory.HUD, () -> {
             switchTimer++;
             boolean forceUpdate = false;
             if (switchTimer > config.switchInterval()) {
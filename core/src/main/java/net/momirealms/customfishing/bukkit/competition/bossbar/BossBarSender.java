@@ -29,6 +29,7 @@ import net.momirealms.customfishing.common.helper.AdventureHelper;
 import net.momirealms.customfishing.common.locale.MessageConstants;
 import net.momirealms.customfishing.common.locale.TranslationManager;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.entity.Player;
 
 import java.util.Set;
@@ -86,7 +87,7 @@ public class BossBarSender {
         this.isShown = true;
         this.bossBar.addViewer(audience);
         this.refreshTimer = config.refreshRate();
-        this.senderTask = BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(() -> {
+        this.senderTask = BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(TaskCategory.HUD, () -> {
             switchTimer++;
             boolean forceUpdate = false;
             if (switchTimer > config.switchInterval()) {
@@ -233,4 +233,25 @@ public class LocalRankingProvider implements RankingProvider {
             addPlayer(competitionPlayer);
         }
     }
+
+    /**
+     * Sets the score of a player if it is higher than their current score, or creates a new player.
+     * The player is looked up once, and only moved in the ranking when the score improves.
+     *
+     * @param player The name of the player to update or create.
+     * @param score  The new score.
+     */
+    @Override
+    public void updateMax(String player, double score) {
+        synchronized (competitionPlayers) {
+            CompetitionPlayer competitionPlayer = getCompetitionPlayer(player);
+            if (competitionPlayer == null) {
+                addPlayer(new CompetitionPlayer(player, score));
+            } else if (competitionPlayer.getScore() < score) {
+                removePlayer(competitionPlayer);
+                competitionPlayer.setScore(score);
+                addPlayer(competitionPlayer);
+            }
+        }
+    }
 }
@@ -23,20 +23,37 @@ import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.bukkit.storage.method.database.nosql.RedisManager;
 import net.momirealms.customfishing.common.util.Pair;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.resps.Tuple;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 public class RedisRankingProvider implements RankingProvider {
 
+    private final String key;
+    private final String claimKey;
+    private final int claimSeconds;
+
+    /**
+     * Creates a ranking stored in Redis, shared by the servers of the same group.
+     *
+     * @param competition the ID of the competition, so that concurrent competitions don't share a ranking
+     * @param duration    the duration of the competition in seconds, the reward claims expire before its next run ends
+     */
+    public RedisRankingProvider(String competition, int duration) {
+        this.key = "cf_competition_" + ConfigManager.serverGroup() + ":" + competition;
+        this.claimKey = "cf_reward_" + ConfigManager.serverGroup() + ":" + competition;
+        this.claimSeconds = Math.max(5, duration / 2);
+    }
+
     /**
      * Clears the ranking data by removing all players and scores.
      */
     @Override
     public void clear() {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.del("cf_competition_" + ConfigManager.serverGroup());
+            jedis.del(key);
         }
     }
 
@@ -49,7 +66,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public CompetitionPlayer getCompetitionPlayer(String player) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Double score = jedis.zscore("cf_competition_" + ConfigManager.serverGroup(), player);
+            Double score = jedis.zscore(key, player);
             if (score == null || score == 0) return null;
             return new CompetitionPlayer(player, Float.parseFloat(score.toString()));
         }
@@ -58,7 +75,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public CompetitionPlayer getCompetitionPlayer(int rank) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> player = jedis.zrevrangeWithScores("cf_competition_" + ConfigManager.serverGroup(), rank - 1, rank -1);
+            List<Tuple> player = jedis.zrevrangeWithScores(key, rank - 1, rank -1);
             if (player == null || player.isEmpty()) return null;
             return new CompetitionPlayer(player.get(0).getElement(), player.get(0).getScore());
         }
@@ -67,14 +84,14 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public void addPlayer(CompetitionPlayer competitionPlayer) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zincrby("cf_competition_" + ConfigManager.serverGroup(), competitionPlayer.getScore(), competitionPlayer.getPlayer());
+            jedis.zincrby(key, competitionPlayer.getScore(), competitionPlayer.getPlayer());
         }
     }
 
     @Override
     public void removePlayer(String player) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zrem("cf_competition_" + ConfigManager.serverGroup(), player);
+            jedis.zrem(key, player);
         }
     }
 
@@ -86,7 +103,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public Iterator<Pair<String, Double>> getIterator() {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> players = jedis.zrevrangeWithScores("cf_competition_" + ConfigManager.serverGroup(), 0, -1);
+            List<Tuple> players = jedis.zrevrangeWithScores(key, 0, -1);
             return players.stream().map(it -> Pair.of(it.getElement(), it.getScore())).toList().iterator();
         }
     }
@@ -99,7 +116,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public int getSize() {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            long size = jedis.zcard("cf_competition_" + ConfigManager.serverGroup());
+            long size = jedis.zcard(key);
             return (int) size;
         }
     }
@@ -113,7 +130,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public int getPlayerRank(String player) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Long rank = jedis.zrevrank("cf_competition_" + ConfigManager.serverGroup(), player);
+            Long rank = jedis.zrevrank(key, player);
             if (rank == null)
                 return -1;
             return (int) (rank + 1);
@@ -129,7 +146,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public double getPlayerScore(String player) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            Double rank = jedis.zscore("cf_competition_" + ConfigManager.serverGroup(), player);
+            Double rank = jedis.zscore(key, player);
             if (rank == null)
                 return 0;
             return rank.floatValue();
@@ -145,7 +162,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public void refreshData(String player, double score) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zincrby("cf_competition_" + ConfigManager.serverGroup(), score, player);
+            jedis.zincrby(key, score, player);
         }
     }
 
@@ -158,8 +175,48 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public void setData(String player, double score) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            jedis.zadd("cf_competition_" + ConfigManager.serverGroup(), score, player);
+            jedis.zadd(key, score, player);
+        }
+    }
+
+    /**
+     * Sets the score of a player if it is higher than their current score, in a single script call,
+     * so that the servers of the group can't overwrite a higher score with a lower one.
+     *
+     * @param player The name of the player to update or create.
+     * @param score  The new score.
+     */
+    @Override
+    public void updateMax(String player, double score) {
+        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+            RedisScript.UPDATE_MAX.eval(jedis, List.of(key), List.of(player, String.valueOf(score)));
+        }
+    }
+
+    /**
+     * Claims the rewards of players with one HSETNX per player in a single pipeline, so that the servers
+     * reading the same final ranking don't give a reward twice.
+     *
+     * @param players The names of the players whose rewards are to be given by this server.
+     * @return The names of the players whose rewards were claimed by this server.
+     */
+    @Override
+    public Set<String> claimRewards(Collection<String> players) {
+        if (players.isEmpty()) return Set.of();
+        LinkedHashMap<String, Response<Long>> responses = new LinkedHashMap<>();
+        try (Jedis jedis = RedisManager.getInstance().getJedis()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (String player : players) {
+                responses.put(player, pipeline.hsetnx(claimKey, player, "1"));
+            }
+            pipeline.expire(claimKey, claimSeconds);
+            pipeline.sync();
+        }
+        HashSet<String> claimed = new HashSet<>();
+        for (Map.Entry<String, Response<Long>> entry : responses.entrySet()) {
+            if (entry.getValue().get() == 1) claimed.add(entry.getKey());
         }
+        return claimed;
     }
 
     /**
@@ -171,7 +228,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public String getPlayerAt(int rank) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<String> player = jedis.zrevrange("cf_competition_" + ConfigManager.serverGroup(), rank - 1, rank -1);
+            List<String> player = jedis.zrevrange(key, rank - 1, rank -1);
             if (player == null || player.isEmpty()) return null;
             return player.get(0);
         }
@@ -186,7 +243,7 @@ public class RedisRankingProvider implements RankingProvider {
     @Override
     public double getScoreAt(int rank) {
         try (Jedis jedis = RedisManager.getInstance().getJedis()) {
-            List<Tuple> players = jedis.zrevrangeWithScores("cf_competition_" + ConfigManager.serverGroup(), rank - 1, rank -1);
+            List<Tuple> players = jedis.zrevrangeWithScores(key, rank - 1, rank -1);
             if (players == null || players.isEmpty()) return 0;
             return players.get(0).getScore();
         }
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.competition.ranking;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.util.List;
+
+/**
+ * A Lua script run on the Redis server. The script is loaded once and then invoked by its SHA,
+ * and loaded again if the server no longer knows it, for instance after a restart or a {@code SCRIPT FLUSH}.
+ */
+public class RedisScript {
+
+    /**
+     * Sets the score of a member if it is higher than the current one.
+     * KEYS[1] the sorted set, ARGV[1] the member, ARGV[2] the score
+     */
+    public static final RedisScript UPDATE_MAX = new RedisScript("""
+            local current = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            if (not current) or tonumber(current) < tonumber(ARGV[2]) then
+                redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            end
+            """);
+
+    private final String source;
+    private volatile String sha;
+
+    private RedisScript(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Runs the script.
+     *
+     * @param jedis the connection
+     * @param keys  the keys accessed by the script
+     * @param args  the arguments
+     * @return the reply of the script
+     */
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        String sha = this.sha;
+        if (sha == null) {
+            sha = load(jedis);
+        }
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.evalsha(load(jedis), keys, args);
+        }
+    }
+
+    private String load(Jedis jedis) {
+        String sha = jedis.scriptLoad(source);
+        this.sha = sha;
+        return sha;
+    }
+}
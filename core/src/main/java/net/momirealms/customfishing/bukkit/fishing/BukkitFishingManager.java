@@ -182,11 +182,14 @@ public class BukkitFishingManager implements FishingManager, Listener {
 
     @EventHandler (ignoreCancelled = true)
     public void onSneak(PlayerToggleSneakEvent event) {
-        if (!event.isSneaking()) return;
         getFishHook(event.getPlayer()).ifPresent(hook -> {
             Optional<GamingPlayer> optionalGamingPlayer = hook.getGamingPlayer();
             if (optionalGamingPlayer.isPresent()) {
-                if (optionalGamingPlayer.get().handleSneak()) {
+                GamingPlayer gamingPlayer = optionalGamingPlayer.get();
+                boolean cancel = gamingPlayer instanceof AbstractGamingPlayer abstractGamingPlayer
+                        ? abstractGamingPlayer.internalSneak(event.isSneaking())
+                        : event.isSneaking() && gamingPlayer.handleSneak();
+                if (cancel) {
                     event.setCancelled(true);
                 }
             }
@@ -32,10 +32,7 @@ import net.momirealms.customfishing.api.mechanic.misc.value.MathValue;
 import net.momirealms.customfishing.api.mechanic.misc.value.TextValue;
 import net.momirealms.customfishing.api.mechanic.requirement.ConditionalElement;
 import net.momirealms.customfishing.api.mechanic.requirement.RequirementManager;
-import net.momirealms.customfishing.api.util.OffsetUtils;
-import net.momirealms.customfishing.common.helper.AdventureHelper;
 import net.momirealms.customfishing.common.util.*;
-import net.momirealms.sparrow.heart.SparrowHeart;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
@@ -54,10 +51,12 @@ public class BukkitGameManager implements GameManager {
     private final Map<String, GameFactory> gameFactoryMap = new HashMap<>();
     private final Map<String, Game> gameMap = new HashMap<>();
     private final LinkedHashMap<String, ConditionalElement<List<Pair<String, WeightOperation>>, Player>> gameConditions = new LinkedHashMap<>();
+    private final GameTicker gameTicker;
     private static final String EXPANSION_FOLDER = "expansions/minigame";
 
     public BukkitGameManager(BukkitCustomFishingPlugin plugin) {
         this.plugin = plugin;
+        this.gameTicker = new GameTicker(plugin);
         this.registerHoldGame();
         this.registerHoldV2Game();
         this.registerClickGame();
@@ -89,6 +88,12 @@ public class BukkitGameManager implements GameManager {
         this.gameConditions.clear();
     }
 
+    @Override
+    public void disable() {
+        this.unload();
+        this.gameTicker.shutdown();
+    }
+
     private ConditionalElement<List<Pair<String, WeightOperation>>, Player> parseGameConditions(Section section) {
         Section subSection = section.getSection("sub-groups");
         if (subSection == null) {
@@ -142,6 +147,11 @@ public class BukkitGameManager implements GameManager {
         return true;
     }
 
+    @Override
+    public GameTicker getGameTicker() {
+        return gameTicker;
+    }
+
     @Nullable
     @Override
     public Game getNextGame(Effect effect, Context<Player> context) {
@@ -195,6 +205,7 @@ public class BukkitGameManager implements GameManager {
                 private final TextValue<Player> title = TextValue.auto(section.getString("title","{progress}"));
                 private final String font = section.getString("subtitle.font");
                 private final String barImage = section.getString("subtitle.bar");
+                private final GameUILayout layout = new GameUILayout(font);
                 private final String tip = section.getString("tip");
                 private final boolean elasticity = section.getBoolean("arguments.elasticity", false);
                 private final double elasticityPower = section.getDouble("arguments.elasticity-power", 0.7);
@@ -215,13 +226,12 @@ public class BukkitGameManager implements GameManager {
                         @Override
                         public void arrangeTask() {
                             this.judgement_position = (double) (barEffectiveWidth - judgementAreaWidth) / 2;
-                            this.task = plugin.getScheduler().asyncRepeating(this, 50, 33, TimeUnit.MILLISECONDS);
+                            this.task = ticker().schedule(this, 33, TimeUnit.MILLISECONDS);
                         }
 
                         @Override
                         public void tick() {
-                            if (getPlayer().isSneaking()) addV();
-                            else reduceV();
+                            accelerate(input.consumeSneakingRatio());
                             if (timer < 40 - (settings.difficulty() / 10)) {
                                 timer++;
                             } else {
@@ -266,13 +276,10 @@ public class BukkitGameManager implements GameManager {
                             }
                         }
 
-                        private void reduceV() {
-                            fish_velocity -= looseningLoss;
-                        }
-
-                        private void addV() {
-                            played = true;
-                            fish_velocity += pullingStrength;
+                        // the velocity changes by the time the player was sneaking since the last tick
+                        private void accelerate(double sneaking) {
+                            if (sneaking > 0) played = true;
+                            fish_velocity += pullingStrength * sneaking - looseningLoss * (1 - sneaking);
                         }
 
                         private void calibrate() {
@@ -303,15 +310,16 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            String bar = AdventureHelper.surroundWithMiniMessageFont(barImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (judgementAreaOffset + judgement_position))
-                                    + AdventureHelper.surroundWithMiniMessageFont(judgementAreaImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - judgement_position - judgementAreaWidth))
-                                    + OffsetUtils.getOffsetChars((int) (-barEffectiveWidth - 1 + fish_position))
-                                    + AdventureHelper.surroundWithMiniMessageFont(pointerImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1));
+                            String bar = GameUILayout.join(
+                                    layout.image(barImage),
+                                    layout.offset((int) (judgementAreaOffset + judgement_position)),
+                                    layout.image(judgementAreaImage),
+                                    layout.offset((int) (barEffectiveWidth - judgement_position - judgementAreaWidth)),
+                                    layout.offset((int) (-barEffectiveWidth - 1 + fish_position)),
+                                    layout.image(pointerImage),
+                                    layout.offset((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1)));
                             customFishingHook.getContext().arg(ContextKeys.PROGRESS, progress[(int) ((hold_time / time_requirement) * progress.length)]);
-                            SparrowHeart.getInstance().sendTitle(super.getPlayer(), AdventureHelper.miniMessageToJson(tip != null && !played ? tip : title.render(customFishingHook.getContext())), AdventureHelper.miniMessageToJson(bar), 0, 20, 0);
+                            renderer.sendTitle(super.getPlayer(), renderer.title(tip != null && !played ? tip : title.render(customFishingHook.getContext())), bar);
                         }
                     };
                 }
@@ -339,6 +347,7 @@ public class BukkitGameManager implements GameManager {
                 private final TextValue<Player> title = TextValue.auto(section.getString("title", "{progress}"));
                 private final String font = section.getString("subtitle.font");
                 private final String barImage = section.getString("subtitle.bar");
+                private final GameUILayout layout = new GameUILayout(font);
                 private final String tip = section.getString("tip");
                 private final boolean left = section.getBoolean("left-click", false);
                 private final boolean elasticity = section.getBoolean("arguments.elasticity", false);
@@ -359,7 +368,7 @@ public class BukkitGameManager implements GameManager {
                         @Override
                         public void arrangeTask() {
                             this.judgement_position = (double) (barEffectiveWidth - judgementAreaWidth) / 2;
-                            this.task = plugin.getScheduler().asyncRepeating(this, 50, 33, TimeUnit.MILLISECONDS);
+                            this.task = ticker().schedule(this, 33, TimeUnit.MILLISECONDS);
                         }
 
                         @Override
@@ -460,15 +469,16 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            String bar = AdventureHelper.surroundWithMiniMessageFont(barImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (judgementAreaOffset + judgement_position))
-                                    + AdventureHelper.surroundWithMiniMessageFont(judgementAreaImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - judgement_position - judgementAreaWidth))
-                                    + OffsetUtils.getOffsetChars((int) (-barEffectiveWidth - 1 + fish_position))
-                                    + AdventureHelper.surroundWithMiniMessageFont(pointerImage, font)
-                                    + OffsetUtils.getOffsetChars((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1));
+                            String bar = GameUILayout.join(
+                                    layout.image(barImage),
+                                    layout.offset((int) (judgementAreaOffset + judgement_position)),
+                                    layout.image(judgementAreaImage),
+                                    layout.offset((int) (barEffectiveWidth - judgement_position - judgementAreaWidth)),
+                                    layout.offset((int) (-barEffectiveWidth - 1 + fish_position)),
+                                    layout.image(pointerImage),
+                                    layout.offset((int) (barEffectiveWidth - fish_position - pointerIconWidth + 1)));
                             hook.getContext().arg(ContextKeys.PROGRESS, progress[(int) ((hold_time / time_requirement) * progress.length)]);
-                            SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(tip != null && !played ? tip : title.render(hook.getContext())), AdventureHelper.miniMessageToJson(bar), 0, 20, 0);
+                            renderer.sendTitle(getPlayer(), renderer.title(tip != null && !played ? tip : title.render(hook.getContext())), bar);
                         }
                     };
                 }
@@ -530,11 +540,10 @@ public class BukkitGameManager implements GameManager {
                             hook.getContext().arg(ContextKeys.CLICKS_LEFT, requiredTimes - clickedTimes);
                             hook.getContext().arg(ContextKeys.REQUIRED_TIMES, requiredTimes);
                             hook.getContext().arg(ContextKeys.PROGRESS, String.valueOf(clickedTimes));
-                            SparrowHeart.getInstance().sendTitle(
+                            renderer.sendTitle(
                                     getPlayer(),
-                                    AdventureHelper.miniMessageToJson(title.render(hook.getContext())),
-                                    AdventureHelper.miniMessageToJson(subtitle.render(hook.getContext())),
-                                    0, 20, 0);
+                                    renderer.title(title.render(hook.getContext())),
+                                    renderer.subtitle(subtitle.render(hook.getContext())));
                         }
                     };
                 }
@@ -562,6 +571,7 @@ public class BukkitGameManager implements GameManager {
                 private final TextValue<Player> title = TextValue.auto(section.getString("title","{progress}"));
                 private final String font = section.getString("subtitle.font");
                 private final String barImage = section.getString("subtitle.bar");
+                private final GameUILayout layout = new GameUILayout(font);
                 private final String tip = section.getString("tip");
                 private final String actionbarTip = section.getString("actionbar-tip");
 
@@ -576,7 +586,7 @@ public class BukkitGameManager implements GameManager {
 
                         @Override
                         public void arrangeTask() {
-                            this.task = plugin.getScheduler().asyncRepeating(this, 50, 40, TimeUnit.MILLISECONDS);
+                            this.task = ticker().schedule(this, 40, TimeUnit.MILLISECONDS);
                         }
 
                         @Override
@@ -588,7 +598,7 @@ public class BukkitGameManager implements GameManager {
                             } else {
                                 struggling_time--;
                             }
-                            if (getPlayer().isSneaking()) pull();
+                            if (input.consumeSneakingRatio() >= 0.5) pull();
                             else loosen();
                             if (fish_position < successPosition - fishIconWidth - 1) {
                                 setGameResult(true);
@@ -601,7 +611,7 @@ public class BukkitGameManager implements GameManager {
                                 return;
                             }
                             if (actionbarTip != null) {
-                                SparrowHeart.getInstance().sendActionBar(getPlayer(), AdventureHelper.miniMessageToJson(actionbarTip));
+                                renderer.sendActionBar(getPlayer(), layout.fragment(actionbarTip));
                             }
                             showUI();
                         }
@@ -623,13 +633,14 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            String bar = AdventureHelper.surroundWithMiniMessageFont(barImage, font)
-                                    + OffsetUtils.getOffsetChars(fishOffset + fish_position)
-                                    + AdventureHelper.surroundWithMiniMessageFont((struggling_time > 0 ? strugglingFishImage[struggling_time % strugglingFishImage.length] : fishImage), font)
-                                    + OffsetUtils.getOffsetChars(barEffectiveWidth - fish_position - fishIconWidth);
+                            String bar = GameUILayout.join(
+                                    layout.image(barImage),
+                                    layout.offset(fishOffset + fish_position),
+                                    layout.image(struggling_time > 0 ? strugglingFishImage[struggling_time % strugglingFishImage.length] : fishImage),
+                                    layout.offset(barEffectiveWidth - fish_position - fishIconWidth));
                             strain = Math.max(0, Math.min(strain, ultimateTension));
                             hook.getContext().arg(ContextKeys.PROGRESS, tension[(int) ((strain / ultimateTension) * tension.length)]);
-                            SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(tip != null && !played ? tip : title.render(hook.getContext())), AdventureHelper.miniMessageToJson(bar), 0, 20, 0);
+                            renderer.sendTitle(getPlayer(), renderer.title(tip != null && !played ? tip : title.render(hook.getContext())), bar);
                         }
                     };
                 }
@@ -659,6 +670,7 @@ public class BukkitGameManager implements GameManager {
                 private final String downWrong = section.getString("title.down-button-wrong");
                 private final String downCurrent = section.getString("title.down-button-current");
                 private final int maxShown = section.getInt("title.display-amount", 7);
+                private final GameUILayout layout = new GameUILayout(null);
                 private final String tip = section.getString("tip");
                 private final boolean easy = section.getBoolean("easy", false);
                 private final String correctSound = section.getString("sound.correct", "minecraft:block.amethyst_block.hit");
@@ -681,14 +693,14 @@ public class BukkitGameManager implements GameManager {
                             for (int i = 0; i < requiredTimes; i++) {
                                 order[i] = ThreadLocalRandom.current().nextInt(0, easy ? 2 : 4);
                             }
-                            this.task = plugin.getScheduler().asyncRepeating(this, 50, 50, TimeUnit.MILLISECONDS);
+                            this.task = ticker().schedule(this, 50, TimeUnit.MILLISECONDS);
                         }
 
                         @Override
                         protected void tick() {
                             showUI();
                             if (tip != null) {
-                                SparrowHeart.getInstance().sendActionBar(getPlayer(), AdventureHelper.miniMessageToJson(tip));
+                                renderer.sendActionBar(getPlayer(), layout.fragment(tip));
                             }
                         }
 
@@ -751,37 +763,12 @@ public class BukkitGameManager implements GameManager {
 
                         private void showUI() {
                             try {
-                                if (requiredTimes <= maxShown) {
-                                    StringBuilder sb = new StringBuilder();
-                                    for (int x = 0; x < requiredTimes; x++) {
-                                        if (x < clickedTimes) {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(leftCorrect);
-                                                case 1 -> sb.append(rightCorrect);
-                                                case 2 -> sb.append(upCorrect);
-                                                case 3 -> sb.append(downCorrect);
-                                            }
-                                        } else if (clickedTimes == x) {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(fail ? leftWrong : leftCurrent);
-                                                case 1 -> sb.append(fail ? rightWrong : rightCurrent);
-                                                case 2 -> sb.append(fail ? upWrong : upCurrent);
-                                                case 3 -> sb.append(fail ? downWrong : downCurrent);
-                                            }
-                                        } else {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(leftNot);
-                                                case 1 -> sb.append(rightNot);
-                                                case 2 -> sb.append(upNot);
-                                                case 3 -> sb.append(downNot);
-                                            }
-                                        }
-                                    }
-                                    SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(sb.toString()), AdventureHelper.miniMessageToJson(subtitle.render(hook.getContext())), 0, 20, 0);
-                                } else {
+                                int low = 0;
+                                int high = requiredTimes - 1;
+                                if (requiredTimes > maxShown) {
                                     int half = (maxShown - 1) / 2;
-                                    int low = clickedTimes - half;
-                                    int high = clickedTimes + half;
+                                    low = clickedTimes - half;
+                                    high = clickedTimes + half;
                                     if (low < 0) {
                                         high += (-low);
                                         low = 0;
@@ -789,37 +776,42 @@ public class BukkitGameManager implements GameManager {
                                         low -= (high - requiredTimes + 1);
                                         high = requiredTimes - 1;
                                     }
-                                    StringBuilder sb = new StringBuilder();
-                                    for (int x = low; x < high + 1; x++) {
-                                        if (x < clickedTimes) {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(leftCorrect);
-                                                case 1 -> sb.append(rightCorrect);
-                                                case 2 -> sb.append(upCorrect);
-                                                case 3 -> sb.append(downCorrect);
-                                            }
-                                        } else if (clickedTimes == x) {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(fail ? leftWrong : leftCurrent);
-                                                case 1 -> sb.append(fail ? rightWrong : rightCurrent);
-                                                case 2 -> sb.append(fail ? upWrong : upCurrent);
-                                                case 3 -> sb.append(fail ? downWrong : downCurrent);
-                                            }
-                                        } else {
-                                            switch (order[x]) {
-                                                case 0 -> sb.append(leftNot);
-                                                case 1 -> sb.append(rightNot);
-                                                case 2 -> sb.append(upNot);
-                                                case 3 -> sb.append(downNot);
-                                            }
-                                        }
-                                    }
-                                    SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(sb.toString()), AdventureHelper.miniMessageToJson(subtitle.render(hook.getContext())), 0, 20, 0);
                                 }
+                                // the buttons are parsed as a whole, as a tag left open in one of them styles the next ones
+                                StringBuilder buttons = new StringBuilder();
+                                for (int x = low; x < high + 1; x++) {
+                                    buttons.append(getButton(x));
+                                }
+                                renderer.sendTitle(getPlayer(), renderer.title(buttons.toString()), renderer.subtitle(subtitle.render(hook.getContext())));
                             } catch (Exception e) {
                                 plugin.getPluginLogger().warn("Failed to show `dance` UI", e);
                             }
                         }
+
+                        private String getButton(int x) {
+                            if (x < clickedTimes) {
+                                return switch (order[x]) {
+                                    case 0 -> leftCorrect;
+                                    case 1 -> rightCorrect;
+                                    case 2 -> upCorrect;
+                                    default -> downCorrect;
+                                };
+                            } else if (clickedTimes == x) {
+                                return switch (order[x]) {
+                                    case 0 -> fail ? leftWrong : leftCurrent;
+                                    case 1 -> fail ? rightWrong : rightCurrent;
+                                    case 2 -> fail ? upWrong : upCurrent;
+                                    default -> fail ? downWrong : downCurrent;
+                                };
+                            } else {
+                                return switch (order[x]) {
+                                    case 0 -> leftNot;
+                                    case 1 -> rightNot;
+                                    case 2 -> upNot;
+                                    default -> downNot;
+                                };
+                            }
+                        }
                     };
                 }
             };
@@ -847,6 +839,7 @@ public class BukkitGameManager implements GameManager {
                 private final String font = section.getString("subtitle.font");
                 private final String barImage = section.getString("subtitle.bar");
                 private final String pointerImage = section.getString("subtitle.pointer");
+                private final GameUILayout layout = new GameUILayout(font);
 
                 @Override
                 public BiFunction<CustomFishingHook, GameSetting, AbstractGamingPlayer> gamingPlayerProvider() {
@@ -867,7 +860,7 @@ public class BukkitGameManager implements GameManager {
                         @Override
                         public void arrangeTask() {
                             long period = mapValueToIntervalMicroseconds((int) settings.difficulty());
-                            this.task = plugin.getScheduler().asyncRepeating(this, period, period, TimeUnit.MICROSECONDS);
+                            this.task = ticker().schedule(this, period, TimeUnit.MICROSECONDS);
                         }
 
                         @Override
@@ -894,11 +887,12 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            String bar = AdventureHelper.surroundWithMiniMessageFont(barImage, font)
-                                    + OffsetUtils.getOffsetChars(pointerOffset + progress)
-                                    + AdventureHelper.surroundWithMiniMessageFont(pointerImage, font)
-                                    + OffsetUtils.getOffsetChars(totalWidth - progress - pointerWidth);
-                            SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(sendTitle.render(hook.getContext())), AdventureHelper.miniMessageToJson(bar), 0, 20, 0);
+                            String bar = GameUILayout.join(
+                                    layout.image(barImage),
+                                    layout.offset(pointerOffset + progress),
+                                    layout.image(pointerImage),
+                                    layout.offset(totalWidth - progress - pointerWidth));
+                            renderer.sendTitle(getPlayer(), renderer.title(sendTitle.render(hook.getContext())), bar);
                         }
                     };
                 }
@@ -919,6 +913,7 @@ public class BukkitGameManager implements GameManager {
                 private final String barPointer = section.getString("title.pointer", "");
                 private final String barTarget = section.getString("title.target","");
                 private final String subtitle = section.getString("subtitle", "<gray>Reel in at the most critical moment</gray>");
+                private final GameUILayout layout = new GameUILayout(null);
 
                 @Override
                 public BiFunction<CustomFishingHook, GameSetting, AbstractGamingPlayer> gamingPlayerProvider() {
@@ -960,20 +955,21 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            StringBuilder stringBuilder = new StringBuilder();
+                            // the bar is parsed as a whole, as a tag left open in one of its parts styles the next ones
+                            StringBuilder bar = new StringBuilder(left);
                             for (int i = 1; i <= totalWidth; i++) {
                                 if (i == currentIndex + 1) {
-                                    stringBuilder.append(barPointer);
+                                    bar.append(barPointer);
                                     continue;
                                 }
                                 if (i >= successPosition && i <= successPosition + successWidth - 1) {
-                                    stringBuilder.append(barTarget);
+                                    bar.append(barTarget);
                                     continue;
                                 }
-                                stringBuilder.append(barBody);
+                                bar.append(barBody);
                             }
-
-                            SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(left + stringBuilder + right), AdventureHelper.miniMessageToJson(subtitle), 0, 20, 0);
+                            bar.append(right);
+                            renderer.sendTitle(getPlayer(), renderer.title(bar.toString()), layout.fragment(subtitle));
                         }
 
                         @Override
@@ -1005,6 +1001,7 @@ public class BukkitGameManager implements GameManager {
                 private final int pointerOffset = section.getInt("arguments.pointer-offset");
                 private final int maxSpeed = section.getInt("arguments.max-speed", 150);
                 private final int minSpeed = section.getInt("arguments.min-speed", 15);
+                private final GameUILayout layout = new GameUILayout(font);
 
                 @Override
                 public BiFunction<CustomFishingHook, GameSetting, AbstractGamingPlayer> gamingPlayerProvider() {
@@ -1026,7 +1023,7 @@ public class BukkitGameManager implements GameManager {
                         @Override
                         public void arrangeTask() {
                             long period = mapValueToIntervalMicroseconds((int) settings.difficulty());
-                            this.task = plugin.getScheduler().asyncRepeating(this, period, period, TimeUnit.MICROSECONDS);
+                            this.task = ticker().schedule(this, period, TimeUnit.MICROSECONDS);
                         }
 
                         @Override
@@ -1046,14 +1043,15 @@ public class BukkitGameManager implements GameManager {
                         }
 
                         private void showUI() {
-                            String bar = AdventureHelper.surroundWithMiniMessageFont(barImage, font)
-                                    + OffsetUtils.getOffsetChars(judgementAreaOffset + judgement_position)
-                                    + AdventureHelper.surroundWithMiniMessageFont(judgementAreaImage, font)
-                                    + OffsetUtils.getOffsetChars(barEffectiveWidth - judgement_position - judgementAreaWidth)
-                                    + OffsetUtils.getOffsetChars(progress + pointerOffset)
-                                    + AdventureHelper.surroundWithMiniMessageFont(pointerImage, font)
-                                    + OffsetUtils.getOffsetChars(barEffectiveWidth - progress - pointerIconWidth + 1);
-                            SparrowHeart.getInstance().sendTitle(getPlayer(), AdventureHelper.miniMessageToJson(title.render(hook.getContext())), AdventureHelper.miniMessageToJson(bar), 0, 20, 0);
+                            String bar = GameUILayout.join(
+                                    layout.image(barImage),
+                                    layout.offset(judgementAreaOffset + judgement_position),
+                                    layout.image(judgementAreaImage),
+                                    layout.offset(barEffectiveWidth - judgement_position - judgementAreaWidth),
+                                    layout.offset(progress + pointerOffset),
+                                    layout.image(pointerImage),
+                                    layout.offset(barEffectiveWidth - progress - pointerIconWidth + 1));
+                            renderer.sendTitle(getPlayer(), renderer.title(title.render(hook.getContext())), bar);
                         }
 
                         @Override
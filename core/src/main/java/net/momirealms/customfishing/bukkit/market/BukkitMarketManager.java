@@ -19,6 +19,7 @@ package net.momirealms.customfishing.bukkit.market;
 
 import dev.dejvokep.boostedyaml.block.implementation.Section;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.event.MarketSellEvent;
 import net.momirealms.customfishing.api.mechanic.action.Action;
 import net.momirealms.customfishing.api.mechanic.action.ActionManager;
 import net.momirealms.customfishing.api.mechanic.config.SingleItemParser;
@@ -51,7 +52,13 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BlockStateMeta;
 import org.bukkit.inventory.meta.BundleMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -61,7 +68,11 @@ public class BukkitMarketManager implements MarketManager, Listener {
 
     private final BukkitCustomFishingPlugin plugin;
 
+    // the maximum number of kinds of items whose price source is cached
+    private static final int PRICE_CACHE_SIZE = 4096;
+
     private final HashMap<String, MathValue<Player>> priceMap;
+    private final ConcurrentHashMap<PriceKey, PriceSource> priceCache = new ConcurrentHashMap<>();
     private String formula;
     private MathValue<Player> earningsLimit;
     private MathValue<Player> earningsMultiplier;
@@ -97,7 +108,7 @@ public class BukkitMarketManager implements MarketManager, Listener {
     protected Requirement<Player>[] allowShulkerBoxRequirements;
 
     private SchedulerTask resetEarningsTask;
-    private int cachedDate;
+    private ZoneId resetZone;
 
     private boolean allowBundle;
     private boolean allowShulkerBox;
@@ -107,33 +118,32 @@ public class BukkitMarketManager implements MarketManager, Listener {
         this.priceMap = new HashMap<>();
         this.decorativeIcons = new HashMap<>();
         this.marketGUICache = new ConcurrentHashMap<>();
-        this.cachedDate = getRealTimeDate();
     }
 
     @Override
     public void load() {
         this.loadConfig();
         Bukkit.getPluginManager().registerEvents(this, plugin.getBootstrap());
-        this.resetEarningsTask = plugin.getScheduler().asyncRepeating(() -> {
-            int now = getRealTimeDate();
-            if (this.cachedDate != now) {
-                this.cachedDate = now;
-                for (UserData userData : plugin.getStorageManager().getOnlineUsers()) {
-                    userData.earningData().refresh();
-                }
-            }
-        }, 1, 1, TimeUnit.SECONDS);
+        EarningData.newDay(this.resetZone);
+        this.arrangeResetTask();
     }
 
-    private int getRealTimeDate() {
-        Calendar calendar = Calendar.getInstance();
-        return (calendar.get(Calendar.MONTH) +1) * 100 + calendar.get(Calendar.DATE);
+    // the earnings are reset by a single task at midnight, the records check the new day when they are read
+    private void arrangeResetTask() {
+        ZonedDateTime now = ZonedDateTime.now(this.resetZone);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(this.resetZone);
+        long delay = Math.max(1000, Duration.between(now, midnight).toMillis());
+        this.resetEarningsTask = plugin.getScheduler().asyncLater(() -> {
+            EarningData.newDay(this.resetZone);
+            this.arrangeResetTask();
+        }, delay, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void unload() {
         HandlerList.unregisterAll(this);
         this.priceMap.clear();
+        this.priceCache.clear();
         this.decorativeIcons.clear();
         if (this.resetEarningsTask != null)
             this.resetEarningsTask.cancel();
@@ -186,6 +196,14 @@ public class BukkitMarketManager implements MarketManager, Listener {
 
         this.earningsLimit = config.getBoolean("limitation.enable", true) ? MathValue.auto(config.getString("limitation.earnings", "10000")) : MathValue.plain(-1);
         this.earningsMultiplier = MathValue.auto(config.get("earnings-multiplier", 1d));
+        String zone = config.getString("limitation.reset-time-zone", "");
+        try {
+            this.resetZone = zone.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            plugin.getPluginLogger().warn("Invalid time zone " + zone + " for the market earnings reset, using the system one");
+            this.resetZone = ZoneId.systemDefault();
+        }
+        EarningData.historyDays(config.getInt("limitation.history-days", 30));
 
         // Load item prices from the configuration
         Section priceSection = config.getSection("item-price");
@@ -335,10 +353,6 @@ public class BukkitMarketManager implements MarketManager, Listener {
             return;
         }
 
-        EarningData earningData = gui.earningData;
-        earningData.refresh();
-        double earningLimit = earningLimit(gui.context);
-
         if (clickedInv != player.getInventory()) {
             int slot = event.getSlot();
             MarketGUIElement element = gui.getElement(slot);
@@ -369,61 +383,14 @@ public class BukkitMarketManager implements MarketManager, Listener {
             }
 
             if (element.getSymbol() == sellSlot) {
-
-                Pair<Integer, Double> pair = getItemsToSell(gui.context, gui.getItemsInGUI());
-                double totalWorth = pair.right() * earningsMultiplier(gui.context);
-                gui.context.arg(ContextKeys.MONEY, money(totalWorth))
-                        .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
-                        .arg(ContextKeys.REST, money(earningLimit - earningData.earnings))
-                        .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)))
-                        .arg(ContextKeys.SOLD_ITEM_AMOUNT, pair.left());
-
-                if (totalWorth > 0) {
-                    if (earningLimit != -1 && (earningLimit - earningData.earnings) < totalWorth) {
-                        // Can't earn more money
-                        ActionManager.trigger(gui.context, sellLimitActions);
-                    } else {
-                        // Clear items and update earnings
-                        clearWorthyItems(gui.context, gui.getItemsInGUI());
-                        earningData.earnings += totalWorth;
-                        gui.context.arg(ContextKeys.REST, money(earningLimit - earningData.earnings));
-                        gui.context.arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)));
-                        ActionManager.trigger(gui.context, sellAllowActions);
-                    }
-                } else {
-                    // Nothing to sell
-                    ActionManager.trigger(gui.context, sellDenyActions);
-                }
+                sell(gui, gui.getItemsInGUI(), sellAllowActions, sellDenyActions, sellLimitActions);
             } else if (element.getSymbol() == sellAllSlot) {
                 List<ItemStack> itemStacksToSell = storageContentsToList(gui.context.holder().getInventory().getStorageContents());
                 if (sellFishingBag) {
                     Optional<UserData> optionalUserData = BukkitCustomFishingPlugin.getInstance().getStorageManager().getOnlineUser(gui.context.holder().getUniqueId());
                     optionalUserData.ifPresent(userData -> itemStacksToSell.addAll(storageContentsToList(userData.holder().getInventory().getStorageContents())));
                 }
-                Pair<Integer, Double> pair = getItemsToSell(gui.context, itemStacksToSell);
-                double totalWorth = pair.right() * earningsMultiplier(gui.context);
-                gui.context.arg(ContextKeys.MONEY, money(totalWorth))
-                        .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
-                        .arg(ContextKeys.REST, money(earningLimit - earningData.earnings))
-                        .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)))
-                        .arg(ContextKeys.SOLD_ITEM_AMOUNT, pair.left());
-
-                if (totalWorth > 0) {
-                    if (earningLimit != -1 && (earningLimit - earningData.earnings) < totalWorth) {
-                        // Can't earn more money
-                        ActionManager.trigger(gui.context, sellAllLimitActions);
-                    } else {
-                        // Clear items and update earnings
-                        clearWorthyItems(gui.context, itemStacksToSell);
-                        earningData.earnings += totalWorth;
-                        gui.context.arg(ContextKeys.REST, money(earningLimit - earningData.earnings));
-                        gui.context.arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)));
-                        ActionManager.trigger(gui.context, sellAllAllowActions);
-                    }
-                } else {
-                    // Nothing to sell
-                    ActionManager.trigger(gui.context, sellAllDenyActions);
-                }
+                sell(gui, itemStacksToSell, sellAllAllowActions, sellAllDenyActions, sellAllLimitActions);
             }
         } else {
             // Handle interactions with the player's inventory
@@ -471,42 +438,99 @@ public class BukkitMarketManager implements MarketManager, Listener {
         plugin.getScheduler().sync().runLater(gui::refresh, 1, player.getLocation());
     }
 
+    /**
+     * Sells the worthy items in one transaction: the items are appraised in one pass,
+     * a single {@link MarketSellEvent} is called, and the actions giving the money are triggered once.
+     */
+    private void sell(MarketGUI gui, List<ItemStack> itemStacks, Action<Player>[] allowActions, Action<Player>[] denyActions, Action<Player>[] limitActions) {
+        EarningData earningData = gui.earningData;
+        double earningLimit = earningLimit(gui.context);
+        MarketSale sale = appraise(gui.context, itemStacks);
+        double totalWorth = sale.worth() * earningsMultiplier(gui.context);
+        gui.context.arg(ContextKeys.MONEY, money(totalWorth))
+                .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
+                .arg(ContextKeys.REST, money(earningLimit - earningData.earnings()))
+                .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings())))
+                .arg(ContextKeys.SOLD_ITEM_AMOUNT, sale.amount());
+
+        if (totalWorth > 0) {
+            if (earningLimit != -1 && (earningLimit - earningData.earnings()) < totalWorth) {
+                // Can't earn more money
+                ActionManager.trigger(gui.context, limitActions);
+            } else {
+                MarketSellEvent event = new MarketSellEvent(gui.context.holder(), sale.items(), sale.amount(), totalWorth);
+                Bukkit.getPluginManager().callEvent(event);
+                if (event.isCancelled()) return;
+                // Clear items and update earnings
+                for (ItemStack itemStack : sale.items()) {
+                    clearWorthyItem(gui.context, itemStack);
+                }
+                earningData.add(totalWorth);
+                gui.context.arg(ContextKeys.REST, money(earningLimit - earningData.earnings()));
+                gui.context.arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings())));
+                ActionManager.trigger(gui.context, allowActions);
+            }
+        } else {
+            // Nothing to sell
+            ActionManager.trigger(gui.context, denyActions);
+        }
+    }
+
     @Override
-    @SuppressWarnings("UnstableApiUsage")
     public double getItemPrice(Context<Player> context, ItemStack itemStack) {
+        return getItemPrice(context, itemStack, new HashMap<>());
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private double getItemPrice(Context<Player> context, ItemStack itemStack, Map<MathValue<Player>, Double> formulaValues) {
         if (itemStack == null || itemStack.getType() == Material.AIR)
             return 0;
 
-        Item<ItemStack> wrapped = ((BukkitItemFactory) plugin.getItemManager().getFactory()).wrap(itemStack);
-        double price = (double) wrapped.getTag("Price").orElse(0d);
-        if (price != 0) {
+        PriceSource source = getPriceSource(itemStack);
+        if (source.unitPrice() != 0) {
             // If a custom price is defined in the ItemStack's NBT data, use it.
-            return price * itemStack.getAmount();
+            return source.unitPrice() * itemStack.getAmount();
         }
 
-        if (allowBundle && itemStack.getItemMeta() instanceof BundleMeta bundleMeta && RequirementManager.isSatisfied(context, allowBundleRequirements) ) {
-            Pair<Integer, Double> pair = getItemsToSell(context, bundleMeta.getItems());
-            return pair.right();
-        }
-
-        if (allowShulkerBox && itemStack.getItemMeta() instanceof BlockStateMeta stateMeta && RequirementManager.isSatisfied(context, allowShulkerBoxRequirements) ) {
-            if (stateMeta.getBlockState() instanceof ShulkerBox shulkerBox) {
-                Pair<Integer, Double> pair = getItemsToSell(context, Arrays.stream(shulkerBox.getInventory().getStorageContents()).filter(Objects::nonNull).toList());
-                return pair.right();
+        if (source.container()) {
+            ItemMeta meta = itemStack.getItemMeta();
+            if (allowBundle && meta instanceof BundleMeta bundleMeta && RequirementManager.isSatisfied(context, allowBundleRequirements)) {
+                return appraise(context, bundleMeta.getItems(), formulaValues).worth();
+            }
+            if (allowShulkerBox && meta instanceof BlockStateMeta stateMeta && RequirementManager.isSatisfied(context, allowShulkerBoxRequirements)) {
+                if (stateMeta.getBlockState() instanceof ShulkerBox shulkerBox) {
+                    return appraise(context, Arrays.stream(shulkerBox.getInventory().getStorageContents()).filter(Objects::nonNull).toList(), formulaValues).worth();
+                }
             }
         }
 
-        // If no custom price is defined, attempt to fetch the price from a predefined price map.
+        MathValue<Player> formula = source.formula();
+        if (formula == null) return 0;
+        // the formula only depends on the player, so it's evaluated once per sale
+        return formulaValues.computeIfAbsent(formula, k -> k.evaluate(context)) * itemStack.getAmount();
+    }
+
+    // the price of an item doesn't depend on its amount, so the items with the same meta share a price source
+    private PriceSource getPriceSource(ItemStack itemStack) {
+        ItemMeta meta = itemStack.hasItemMeta() ? itemStack.getItemMeta() : null;
+        PriceKey key = new PriceKey(itemStack.getType(), meta);
+        PriceSource source = priceCache.get(key);
+        if (source != null) return source;
+
+        Item<ItemStack> wrapped = ((BukkitItemFactory) plugin.getItemManager().getFactory()).wrap(itemStack);
+        double price = (double) wrapped.getTag("Price").orElse(0d);
+        // If no custom price is defined, the price is fetched from a predefined price map.
         String itemID = itemStack.getType().name();
         Optional<Integer> optionalCMD = wrapped.customModelData();
         if (optionalCMD.isPresent()) {
             itemID = itemID + ":" + optionalCMD.get();
         }
-
-        MathValue<Player> formula = priceMap.get(itemID);
-        if (formula == null) return 0;
-
-        return formula.evaluate(context) * itemStack.getAmount();
+        source = new PriceSource(price, meta instanceof BundleMeta || meta instanceof BlockStateMeta, priceMap.get(itemID));
+        if (priceCache.size() >= PRICE_CACHE_SIZE) {
+            priceCache.clear();
+        }
+        priceCache.put(key, source);
+        return source;
     }
 
     @Override
@@ -524,43 +548,57 @@ public class BukkitMarketManager implements MarketManager, Listener {
         return earningsMultiplier.evaluate(context);
     }
 
-    public Pair<Integer, Double> getItemsToSell(Context<Player> context, List<ItemStack> itemStacks) {
+    /**
+     * Appraises the items in one pass.
+     *
+     * @param context    the context of the player selling the items
+     * @param itemStacks the items
+     * @return the worthy items with their total amount and worth
+     */
+    public MarketSale appraise(Context<Player> context, List<ItemStack> itemStacks) {
+        return appraise(context, itemStacks, new HashMap<>());
+    }
+
+    private MarketSale appraise(Context<Player> context, List<ItemStack> itemStacks, Map<MathValue<Player>, Double> formulaValues) {
+        ArrayList<ItemStack> worthyItems = new ArrayList<>();
         int amount = 0;
         double worth = 0d;
         for (ItemStack itemStack : itemStacks) {
-            double price = getItemPrice(context, itemStack);
+            double price = getItemPrice(context, itemStack, formulaValues);
             if (price > 0 && itemStack != null) {
+                worthyItems.add(itemStack);
                 amount += itemStack.getAmount();
                 worth += price;
             }
         }
-        return Pair.of(amount, worth);
+        return new MarketSale(worthyItems, amount, worth);
     }
 
-    @SuppressWarnings("UnstableApiUsage")
     public void clearWorthyItems(Context<Player> context, List<ItemStack> itemStacks) {
-        for (ItemStack itemStack : itemStacks) {
-            double price = getItemPrice(context, itemStack);
-            if (price > 0 && itemStack != null) {
-                if (allowBundle && itemStack.getItemMeta() instanceof BundleMeta bundleMeta && RequirementManager.isSatisfied(context, allowBundleRequirements)) {
-                    clearWorthyItems(context, bundleMeta.getItems());
-                    List<ItemStack> newItems = new ArrayList<>(bundleMeta.getItems());
-                    newItems.removeIf(item -> item.getAmount() == 0 || item.getType() == Material.AIR);
-                    bundleMeta.setItems(newItems);
-                    itemStack.setItemMeta(bundleMeta);
-                    continue;
-                }
-                if (allowShulkerBox && itemStack.getItemMeta() instanceof BlockStateMeta stateMeta && RequirementManager.isSatisfied(context, allowShulkerBoxRequirements)) {
-                    if (stateMeta.getBlockState() instanceof ShulkerBox shulkerBox) {
-                        clearWorthyItems(context, Arrays.stream(shulkerBox.getInventory().getStorageContents()).filter(Objects::nonNull).toList());
-                        stateMeta.setBlockState(shulkerBox);
-                        itemStack.setItemMeta(stateMeta);
-                        continue;
-                    }
-                }
-                itemStack.setAmount(0);
+        for (ItemStack itemStack : appraise(context, itemStacks).items()) {
+            clearWorthyItem(context, itemStack);
+        }
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private void clearWorthyItem(Context<Player> context, ItemStack itemStack) {
+        if (allowBundle && itemStack.getItemMeta() instanceof BundleMeta bundleMeta && RequirementManager.isSatisfied(context, allowBundleRequirements)) {
+            clearWorthyItems(context, bundleMeta.getItems());
+            List<ItemStack> newItems = new ArrayList<>(bundleMeta.getItems());
+            newItems.removeIf(item -> item.getAmount() == 0 || item.getType() == Material.AIR);
+            bundleMeta.setItems(newItems);
+            itemStack.setItemMeta(bundleMeta);
+            return;
+        }
+        if (allowShulkerBox && itemStack.getItemMeta() instanceof BlockStateMeta stateMeta && RequirementManager.isSatisfied(context, allowShulkerBoxRequirements)) {
+            if (stateMeta.getBlockState() instanceof ShulkerBox shulkerBox) {
+                clearWorthyItems(context, Arrays.stream(shulkerBox.getInventory().getStorageContents()).filter(Objects::nonNull).toList());
+                stateMeta.setBlockState(shulkerBox);
+                itemStack.setItemMeta(stateMeta);
+                return;
             }
         }
+        itemStack.setAmount(0);
     }
 
     protected String money(double money) {
@@ -578,4 +616,17 @@ public class BukkitMarketManager implements MarketManager, Listener {
         }
         return list;
     }
+
+    private record PriceKey(Material type, @Nullable ItemMeta meta) {
+    }
+
+    /**
+     * How an item is priced.
+     *
+     * @param unitPrice the price from the NBT of the item, or 0
+     * @param container whether the item may be sold for the items in it
+     * @param formula   the price from the config, or null
+     */
+    private record PriceSource(double unitPrice, boolean container, @Nullable MathValue<Player> formula) {
+    }
 }
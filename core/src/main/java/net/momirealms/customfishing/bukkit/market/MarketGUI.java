@@ -21,11 +21,11 @@ import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.context.Context;
 import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
 import net.momirealms.customfishing.api.mechanic.market.MarketGUIHolder;
+import net.momirealms.customfishing.api.mechanic.misc.value.TextValue;
 import net.momirealms.customfishing.api.storage.data.EarningData;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.api.util.PlayerUtils;
 import net.momirealms.customfishing.common.helper.AdventureHelper;
-import net.momirealms.customfishing.common.util.Pair;
 import net.momirealms.sparrow.heart.SparrowHeart;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -45,6 +45,9 @@ public class MarketGUI {
     protected final Inventory inventory;
     protected final Context<Player> context;
     protected final EarningData earningData;
+    private final HashMap<Integer, SlotAppraisal> slotAppraisals = new HashMap<>();
+    private IconState sellIconState;
+    private IconState sellAllIconState;
 
     public MarketGUI(BukkitMarketManager manager, Context<Player> context, EarningData earningData) {
         this.manager = manager;
@@ -107,32 +110,41 @@ public class MarketGUI {
 
     /**
      * Refresh the GUI, updating the display based on current data.
+     * Only the item slots changed since the last refresh are priced again,
+     * and an icon is only rebuilt when the state it displays changes.
      * @return The MarketGUI instance.
      */
     public MarketGUI refresh() {
         double earningLimit = manager.earningLimit(context);
         MarketDynamicGUIElement sellElement = (MarketDynamicGUIElement) getElement(manager.sellSlot);
         if (sellElement != null && !sellElement.getSlots().isEmpty()) {
-            Pair<Integer, Double> pair = manager.getItemsToSell(context, getItemsInGUI());
-            double totalWorth = pair.right() * manager.earningsMultiplier(context);
-            int soldAmount = pair.left();
-            context.arg(ContextKeys.MONEY, manager.money(totalWorth))
-                    .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
-                    .arg(ContextKeys.REST, manager.money(earningLimit - earningData.earnings))
-                    .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)))
-                    .arg(ContextKeys.SOLD_ITEM_AMOUNT, soldAmount);
-            if (totalWorth <= 0) {
-                sellElement.setItemStack(manager.sellIconDenyItem.build(context));
-                if (manager.denyTitle != null)
-                    SparrowHeart.getInstance().updateInventoryTitle(context.holder(), AdventureHelper.componentToJson(AdventureHelper.miniMessage(manager.denyTitle.render(context, true))));
-            } else if (earningLimit != -1 && (earningLimit - earningData.earnings < totalWorth)) {
-                sellElement.setItemStack(manager.sellIconLimitItem.build(context));
-                if (manager.limitTitle != null)
-                    SparrowHeart.getInstance().updateInventoryTitle(context.holder(), AdventureHelper.componentToJson(AdventureHelper.miniMessage(manager.limitTitle.render(context, true))));
-            } else {
-                sellElement.setItemStack(manager.sellIconAllowItem.build(context));
-                if (manager.allowTitle != null)
-                    SparrowHeart.getInstance().updateInventoryTitle(context.holder(), AdventureHelper.componentToJson(AdventureHelper.miniMessage(manager.allowTitle.render(context, true))));
+            appraiseChangedSlots();
+            int soldAmount = 0;
+            double worth = 0;
+            for (SlotAppraisal appraisal : slotAppraisals.values()) {
+                soldAmount += appraisal.amount();
+                worth += appraisal.worth();
+            }
+            double totalWorth = worth * manager.earningsMultiplier(context);
+            IconState state = iconState(totalWorth, soldAmount, earningLimit);
+            if (!state.equals(sellIconState)) {
+                setIconArgs(state, totalWorth, earningLimit);
+                ItemStack icon = switch (state.kind()) {
+                    case DENY -> manager.sellIconDenyItem.build(context);
+                    case LIMIT -> manager.sellIconLimitItem.build(context);
+                    case ALLOW -> manager.sellIconAllowItem.build(context);
+                };
+                setIcon(sellElement, icon);
+                if (sellIconState == null || sellIconState.kind() != state.kind()) {
+                    TextValue<Player> title = switch (state.kind()) {
+                        case DENY -> manager.denyTitle;
+                        case LIMIT -> manager.limitTitle;
+                        case ALLOW -> manager.allowTitle;
+                    };
+                    if (title != null)
+                        SparrowHeart.getInstance().updateInventoryTitle(context.holder(), AdventureHelper.componentToJson(AdventureHelper.miniMessage(title.render(context, true))));
+                }
+                sellIconState = state;
             }
         }
 
@@ -143,29 +155,63 @@ public class MarketGUI {
                 Optional<UserData> optionalUserData = BukkitCustomFishingPlugin.getInstance().getStorageManager().getOnlineUser(context.holder().getUniqueId());
                 optionalUserData.ifPresent(userData -> itemStacksToSell.addAll(manager.storageContentsToList(userData.holder().getInventory().getStorageContents())));
             }
-            Pair<Integer, Double> pair = manager.getItemsToSell(context, itemStacksToSell);
-            double totalWorth = pair.right() * manager.earningsMultiplier(context);
-            int soldAmount = pair.left();
-            context.arg(ContextKeys.MONEY, manager.money(totalWorth))
-                    .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
-                    .arg(ContextKeys.REST, manager.money(earningLimit - earningData.earnings))
-                    .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings)))
-                    .arg(ContextKeys.SOLD_ITEM_AMOUNT, soldAmount);
-            if (totalWorth <= 0) {
-                sellAllElement.setItemStack(manager.sellAllIconAllowItem.build(context));
-            } else if (earningLimit != -1 && (earningLimit - earningData.earnings < totalWorth)) {
-                sellAllElement.setItemStack(manager.sellAllIconLimitItem.build(context));
-            } else {
-                sellAllElement.setItemStack(manager.sellAllIconAllowItem.build(context));
+            MarketSale sale = manager.appraise(context, itemStacksToSell);
+            double totalWorth = sale.worth() * manager.earningsMultiplier(context);
+            IconState state = iconState(totalWorth, sale.amount(), earningLimit);
+            if (!state.equals(sellAllIconState)) {
+                setIconArgs(state, totalWorth, earningLimit);
+                ItemStack icon = switch (state.kind()) {
+                    case LIMIT -> manager.sellAllIconLimitItem.build(context);
+                    case DENY, ALLOW -> manager.sellAllIconAllowItem.build(context);
+                };
+                setIcon(sellAllElement, icon);
+                sellAllIconState = state;
             }
         }
+        return this;
+    }
 
-        for (Map.Entry<Integer, MarketGUIElement> entry : itemsSlotMap.entrySet()) {
-            if (entry.getValue() instanceof MarketDynamicGUIElement dynamicGUIElement) {
-                this.inventory.setItem(entry.getKey(), dynamicGUIElement.getItemStack().clone());
+    // prices the item slots whose item differs from the one priced last time
+    private void appraiseChangedSlots() {
+        MarketGUIElement itemElement = getElement(manager.itemSlot);
+        if (itemElement == null) return;
+        for (int slot : itemElement.getSlots()) {
+            ItemStack itemStack = inventory.getItem(slot);
+            boolean empty = itemStack == null || itemStack.getType() == Material.AIR || itemStack.getAmount() == 0;
+            SlotAppraisal previous = slotAppraisals.get(slot);
+            if (previous == null ? empty : !empty && previous.itemStack().equals(itemStack)) {
+                continue;
+            }
+            if (empty) {
+                slotAppraisals.remove(slot);
+            } else {
+                MarketSale sale = manager.appraise(context, List.of(itemStack));
+                slotAppraisals.put(slot, new SlotAppraisal(itemStack.clone(), sale.amount(), sale.worth()));
             }
         }
-        return this;
+    }
+
+    private IconState iconState(double totalWorth, int amount, double earningLimit) {
+        IconState.Kind kind;
+        if (totalWorth <= 0) kind = IconState.Kind.DENY;
+        else if (earningLimit != -1 && (earningLimit - earningData.earnings() < totalWorth)) kind = IconState.Kind.LIMIT;
+        else kind = IconState.Kind.ALLOW;
+        return new IconState(kind, amount, manager.money(totalWorth), manager.money(earningLimit - earningData.earnings()));
+    }
+
+    private void setIconArgs(IconState state, double totalWorth, double earningLimit) {
+        context.arg(ContextKeys.MONEY, state.money())
+                .arg(ContextKeys.MONEY_FORMATTED, String.format("%.2f", totalWorth))
+                .arg(ContextKeys.REST, state.rest())
+                .arg(ContextKeys.REST_FORMATTED, String.format("%.2f", (earningLimit - earningData.earnings())))
+                .arg(ContextKeys.SOLD_ITEM_AMOUNT, state.amount());
+    }
+
+    private void setIcon(MarketDynamicGUIElement element, ItemStack icon) {
+        element.setItemStack(icon);
+        for (int slot : element.getSlots()) {
+            this.inventory.setItem(slot, icon.clone());
+        }
     }
 
     public List<ItemStack> getItemsInGUI() {
@@ -201,4 +247,20 @@ public class MarketGUI {
             }
         }
     }
+
+    /**
+     * The appraisal of the item in a slot when it was last priced.
+     */
+    private record SlotAppraisal(ItemStack itemStack, int amount, double worth) {
+    }
+
+    /**
+     * What a functional icon displays, the icon is rebuilt only when it changes.
+     */
+    private record IconState(Kind kind, int amount, String money, String rest) {
+
+        private enum Kind {
+            ALLOW, DENY, LIMIT
+        }
+    }
 }
@@ -0,0 +1,32 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.market;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * The appraisal of the items a player is selling.
+ *
+ * @param items  the worthy items, a bundle or a shulker box is included for the items in it
+ * @param amount the number of worthy items
+ * @param worth  the total worth of the items, without the earnings multiplier
+ */
+public record MarketSale(List<ItemStack> items, int amount, double worth) {
+}
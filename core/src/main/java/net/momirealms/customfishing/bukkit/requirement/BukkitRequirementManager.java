@@ -23,13 +23,16 @@ import net.momirealms.customfishing.api.integration.LevelerProvider;
 import net.momirealms.customfishing.api.integration.SeasonProvider;
 import net.momirealms.customfishing.api.mechanic.action.Action;
 import net.momirealms.customfishing.api.mechanic.action.ActionManager;
-import net.momirealms.customfishing.api.mechanic.competition.FishingCompetition;
+import net.momirealms.customfishing.api.mechanic.context.Context;
 import net.momirealms.customfishing.api.mechanic.context.ContextKeys;
+import net.momirealms.customfishing.api.mechanic.context.EnvironmentSnapshot;
 import net.momirealms.customfishing.api.mechanic.effect.EffectProperties;
 import net.momirealms.customfishing.api.mechanic.loot.Loot;
 import net.momirealms.customfishing.api.mechanic.misc.season.Season;
 import net.momirealms.customfishing.api.mechanic.misc.value.MathValue;
+import net.momirealms.customfishing.api.mechanic.misc.value.PlainMathValueImpl;
 import net.momirealms.customfishing.api.mechanic.misc.value.TextValue;
+import net.momirealms.customfishing.api.mechanic.requirement.EmptyRequirement;
 import net.momirealms.customfishing.api.mechanic.requirement.Requirement;
 import net.momirealms.customfishing.api.mechanic.requirement.RequirementExpansion;
 import net.momirealms.customfishing.api.mechanic.requirement.RequirementFactory;
@@ -46,9 +49,7 @@ import net.momirealms.customfishing.common.util.ListUtils;
 import net.momirealms.customfishing.common.util.Pair;
 import net.momirealms.sparrow.heart.SparrowHeart;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
@@ -61,6 +62,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.regex.Pattern;
 
 import static java.util.Objects.requireNonNull;
 
@@ -114,29 +116,42 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
 
     @NotNull
     @Override
-    @SuppressWarnings("unchecked")
     public Requirement<Player>[] parseRequirements(Section section, boolean runActions) {
-        List<Requirement<Player>> requirements = new ArrayList<>();
+        return compile(collectRequirements(section, runActions));
+    }
+
+    private List<CompiledRequirement> collectRequirements(Section section, boolean runActions) {
+        List<CompiledRequirement> requirements = new ArrayList<>();
         if (section != null)
             for (Map.Entry<String, Object> entry : section.getStringRouteMappedValues(false).entrySet()) {
                 String typeOrName = entry.getKey();
                 if (hasRequirement(typeOrName)) {
-                    requirements.add(parseRequirement(typeOrName, entry.getValue()));
+                    requirements.add(compileRequirement(typeOrName, entry.getValue()));
                 } else {
                     Section s = section.getSection(typeOrName);
                     if (s != null) {
-                        requirements.add(parseRequirement(s, runActions));
+                        requirements.add(compileRequirement(s, runActions));
                     } else {
                         plugin.getPluginLogger().warn("Section: " + section.getRouteAsString() + "." + typeOrName + " is invalid.");
                     }
                 }
             }
-        return requirements.toArray(new Requirement[0]);
+        return requirements;
     }
 
     @NotNull
     @Override
     public Requirement<Player> parseRequirement(@NotNull Section section, boolean runActions) {
+        return compileRequirement(section, runActions).requirement();
+    }
+
+    @NotNull
+    @Override
+    public Requirement<Player> parseRequirement(@NotNull String type, @NotNull Object value) {
+        return compileRequirement(type, value).requirement();
+    }
+
+    private CompiledRequirement compileRequirement(@NotNull Section section, boolean runActions) {
         List<Action<Player>> actionList = new ArrayList<>();
         if (runActions && section.contains("not-met-actions")) {
             actionList.addAll(List.of(plugin.getActionManager().parseActions(requireNonNull(section.getSection("not-met-actions")))));
@@ -144,25 +159,53 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
         String type = section.getString("type");
         if (type == null) {
             plugin.getPluginLogger().warn("No requirement type found at " + section.getRouteAsString());
-            return Requirement.empty();
+            return CompiledRequirement.EMPTY;
         }
         var factory = getRequirementFactory(type);
         if (factory == null) {
             plugin.getPluginLogger().warn("Requirement type: " + type + " not exists");
-            return Requirement.empty();
+            return CompiledRequirement.EMPTY;
         }
-        return factory.process(section.get("value"), actionList, runActions);
+        // nested requirements (&&, ||) may carry their own not-met-actions
+        boolean hasActions = runActions && section.getRoutesAsStrings(true).stream().anyMatch(route -> route.endsWith("not-met-actions"));
+        return new CompiledRequirement(factory.process(section.get("value"), actionList, runActions), factory.cost(), hasActions);
     }
 
-    @NotNull
-    @Override
-    public Requirement<Player> parseRequirement(@NotNull String type, @NotNull Object value) {
+    private CompiledRequirement compileRequirement(@NotNull String type, @NotNull Object value) {
         RequirementFactory<Player> factory = getRequirementFactory(type);
         if (factory == null) {
             plugin.getPluginLogger().warn("Requirement type: " + type + " doesn't exist.");
-            return Requirement.empty();
+            return CompiledRequirement.EMPTY;
+        }
+        return new CompiledRequirement(factory.process(value), factory.cost(), false);
+    }
+
+    /**
+     * Compiles parsed requirements that must all be satisfied into the array that is evaluated at runtime.
+     * Requirements that are always satisfied are removed, and the rest are sorted cheapest first
+     * unless one of them triggers actions or has side effects, in which case the config order is kept.
+     */
+    @SuppressWarnings("unchecked")
+    private Requirement<Player>[] compile(List<CompiledRequirement> requirements) {
+        List<CompiledRequirement> compiled = new ArrayList<>(requirements.size());
+        boolean keepOrder = false;
+        for (CompiledRequirement requirement : requirements) {
+            if (requirement.requirement() instanceof EmptyRequirement<Player>) continue;
+            if (requirement.hasActions() || requirement.cost() == RequirementFactory.COST_SIDE_EFFECT) keepOrder = true;
+            compiled.add(requirement);
+        }
+        if (!keepOrder) {
+            compiled.sort(Comparator.comparingInt(CompiledRequirement::cost));
         }
-        return factory.process(value);
+        return compiled.stream().map(CompiledRequirement::requirement).toArray(Requirement[]::new);
+    }
+
+    private record CompiledRequirement(Requirement<Player> requirement, int cost, boolean hasActions) {
+        private static final CompiledRequirement EMPTY = new CompiledRequirement(Requirement.empty(), 0, false);
+    }
+
+    private void registerRequirement(@NotNull RequirementFactory<Player> requirementFactory, int cost, @NotNull String... types) {
+        registerRequirement(RequirementFactory.withCost(requirementFactory, cost), types);
     }
 
     private void registerBuiltInRequirements() {
@@ -242,14 +285,14 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
             }
             if (runActions) ActionManager.trigger(context, actions);
             return false;
-        }), "is-bedrock-player");
+        }), RequirementFactory.COST_PLAYER, "is-bedrock-player");
     }
 
     private void registerImpossibleRequirement() {
         registerRequirement(((args, actions, runActions) -> context -> {
             if (runActions) ActionManager.trigger(context, actions);
             return false;
-        }), "impossible");
+        }), RequirementFactory.COST_CONTEXT, "impossible");
     }
 
     private void registerCompetitionRequirement() {
@@ -263,15 +306,15 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                             return true;
                         }
                     } else {
-                        FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition();
-                        if (onCompetition) {
-                            if (competition != null)
-                                if (ids.contains(competition.getConfig().id()))
-                                    return true;
-                        } else {
-                            if (competition == null)
-                                return true;
+                        boolean anyOnGoing = false;
+                        for (String id : ids) {
+                            if (plugin.getCompetitionManager().getOnGoingCompetition(id) != null) {
+                                anyOnGoing = true;
+                                break;
+                            }
                         }
+                        if (anyOnGoing == onCompetition)
+                            return true;
                     }
                     if (runActions) ActionManager.trigger(context, actions);
                     return false;
@@ -280,7 +323,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at competition requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "competition");
+        }, RequirementFactory.COST_PLAYER, "competition");
     }
 
     private void registerInBagRequirement() {
@@ -292,7 +335,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "in-fishingbag");
+        }, RequirementFactory.COST_CONTEXT, "in-fishingbag");
     }
 
     private void registerEquipmentRequirement() {
@@ -311,7 +354,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at equipment requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "equipment");
+        }, RequirementFactory.COST_PLAYER, "equipment");
     }
 
     private void registerItemInHandRequirement() {
@@ -334,7 +377,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at item-in-hand requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "item-in-hand");
+        }, RequirementFactory.COST_PLAYER, "item-in-hand");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 boolean mainOrOff = section.getString("hand","main").equalsIgnoreCase("main");
@@ -355,7 +398,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !item-in-hand requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!item-in-hand");
+        }, RequirementFactory.COST_PLAYER, "!item-in-hand");
     }
 
     private void registerPluginLevelRequirement() {
@@ -379,7 +422,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at plugin-level requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "plugin-level");
+        }, RequirementFactory.COST_PLACEHOLDER, "plugin-level");
     }
 
     private void registerTimeRequirement() {
@@ -398,7 +441,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "time");
+        }, RequirementFactory.COST_PLAYER, "time");
     }
 
     private void registerYRequirement() {
@@ -417,13 +460,20 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "ypos");
+        }, RequirementFactory.COST_PLAYER, "ypos");
     }
 
     private void registerOrRequirement() {
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
-                Requirement<Player>[] requirements = parseRequirements(section, runActions);
+                List<CompiledRequirement> members = collectRequirements(section, runActions);
+                // a member that is always satisfied makes the whole requirement always satisfied
+                for (CompiledRequirement member : members) {
+                    if (member.requirement() instanceof EmptyRequirement<Player>) {
+                        return Requirement.empty();
+                    }
+                }
+                Requirement<Player>[] requirements = compile(members);
                 return context -> {
                     for (Requirement<Player> requirement : requirements)
                         if (requirement.isSatisfied(context))
@@ -435,13 +485,16 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at || requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "||");
+        }, RequirementFactory.COST_UNKNOWN, "||");
     }
 
     private void registerAndRequirement() {
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 Requirement<Player>[] requirements = parseRequirements(section, runActions);
+                if (requirements.length == 0) {
+                    return Requirement.empty();
+                }
                 return context -> {
                     outer: {
                         for (Requirement<Player> requirement : requirements)
@@ -456,7 +509,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at && requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "&&");
+        }, RequirementFactory.COST_UNKNOWN, "&&");
     }
 
     private void registerFirstCaptureRequirement() {
@@ -469,7 +522,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "first-capture");
+        }, RequirementFactory.COST_CONTEXT, "first-capture");
     }
 
     private void registerInWaterRequirement() {
@@ -481,7 +534,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "in-water");
+        }, RequirementFactory.COST_CONTEXT, "in-water");
     }
 
     private void registerInVoidRequirement() {
@@ -493,7 +546,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "in-void");
+        }, RequirementFactory.COST_CONTEXT, "in-void");
     }
 
     private void registerInLavaRequirement() {
@@ -516,7 +569,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "lava-fishing");
+        }, RequirementFactory.COST_CONTEXT, "lava-fishing");
         registerRequirement((args, actions, runActions) -> {
             boolean inLava = (boolean) args;
             return context -> {
@@ -525,7 +578,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "in-lava");
+        }, RequirementFactory.COST_CONTEXT, "in-lava");
     }
 
     private void registerRodRequirement() {
@@ -537,7 +590,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "rod");
+        }, RequirementFactory.COST_CONTEXT, "rod");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> rods = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -546,7 +599,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!rod");
+        }, RequirementFactory.COST_CONTEXT, "!rod");
     }
 
     private void registerGroupRequirement() {
@@ -564,7 +617,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "group");
+        }, RequirementFactory.COST_CONTEXT, "group");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> groups = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -583,7 +636,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!group");
+        }, RequirementFactory.COST_CONTEXT, "!group");
     }
 
     private void registerLootRequirement() {
@@ -595,7 +648,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "loot");
+        }, RequirementFactory.COST_CONTEXT, "loot");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> arg = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -604,7 +657,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!loot");
+        }, RequirementFactory.COST_CONTEXT, "!loot");
     }
 
     private void registerHookRequirement() {
@@ -616,7 +669,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "hook");
+        }, RequirementFactory.COST_CONTEXT, "hook");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> hooks = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -625,7 +678,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!hook");
+        }, RequirementFactory.COST_CONTEXT, "!hook");
         registerRequirement((args, actions, runActions) -> {
             boolean has = (boolean) args;
             return context -> {
@@ -635,7 +688,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "has-hook");
+        }, RequirementFactory.COST_CONTEXT, "has-hook");
     }
 
     private void registerBaitRequirement() {
@@ -647,7 +700,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "bait");
+        }, RequirementFactory.COST_CONTEXT, "bait");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> arg = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -656,7 +709,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!bait");
+        }, RequirementFactory.COST_CONTEXT, "!bait");
         registerRequirement((args, actions, runActions) -> {
             boolean has = (boolean) args;
             return context -> {
@@ -666,7 +719,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "has-bait");
+        }, RequirementFactory.COST_CONTEXT, "has-bait");
     }
 
     private void registerSizeRequirement() {
@@ -679,20 +732,24 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "has-size");
+        }, RequirementFactory.COST_CONTEXT, "has-size");
     }
 
     private void registerOpenWaterRequirement() {
         registerRequirement((args, actions, runActions) -> {
             boolean openWater = (boolean) args;
             return context -> {
-                boolean current = Optional.ofNullable(context.arg(ContextKeys.OPEN_WATER)).orElse(false);
+                Boolean current = context.arg(ContextKeys.OPEN_WATER);
+                if (current == null) {
+                    EnvironmentSnapshot environment = EnvironmentSnapshot.of(context);
+                    current = environment != null && environment.openWater();
+                }
                 if (openWater == current)
                     return true;
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "open-water");
+        }, RequirementFactory.COST_CONTEXT, "open-water");
     }
 
     private void registerIsNewSizeRecordRequirement() {
@@ -705,7 +762,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "new-size-record");
+        }, RequirementFactory.COST_CONTEXT, "new-size-record");
     }
 
     private void registerHasStatsRequirement() {
@@ -721,7 +778,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "has-stats");
+        }, RequirementFactory.COST_CONTEXT, "has-stats");
     }
 
     private void registerLootTypeRequirement() {
@@ -737,7 +794,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "loot-type");
+        }, RequirementFactory.COST_CONTEXT, "loot-type");
         registerRequirement((args, actions, runActions) -> {
             List<String> types = ListUtils.toList(args);
             return context -> {
@@ -750,7 +807,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!loot-type");
+        }, RequirementFactory.COST_CONTEXT, "!loot-type");
     }
 
     private void registerListRequirement() {
@@ -761,7 +818,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn(" - " + e);
             }
             return Requirement.empty();
-        }, "list");
+        }, RequirementFactory.COST_CONTEXT, "list");
     }
 
     private void registerEnvironmentRequirement() {
@@ -774,7 +831,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "environment");
+        }, RequirementFactory.COST_PLAYER, "environment");
         registerRequirement((args, actions, runActions) -> {
             List<String> environments = ListUtils.toList(args);
             return context -> {
@@ -784,31 +841,20 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!environment");
+        }, RequirementFactory.COST_PLAYER, "!environment");
     }
 
     private void registerIceFishingRequirement() {
         registerRequirement((args, actions, runActions) -> {
             boolean iceFishing = (boolean) args;
             return context -> {
-                Location location = requireNonNull(context.arg(ContextKeys.OTHER_LOCATION));
-                int water = 0, ice = 0;
-                for (int i = -2; i <= 2; i++)
-                    for (int j = -1; j <= 2; j++)
-                        for (int k = -2; k <= 2; k++) {
-                            Block block = location.clone().add(i, j, k).getBlock();
-                            Material material = block.getType();
-                            switch (material) {
-                                case ICE -> ice++;
-                                case WATER -> water++;
-                            }
-                        }
-                if ((ice >= 16 && water >= 25) == iceFishing)
+                EnvironmentSnapshot environment = requireNonNull(EnvironmentSnapshot.of(context));
+                if ((environment.iceCount() >= 16 && environment.waterCount() >= 25) == iceFishing)
                     return true;
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "ice-fishing");
+        }, RequirementFactory.COST_WORLD_SCAN, "ice-fishing");
     }
 
     private void registerLiquidDepthRequirement() {
@@ -829,18 +875,12 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 return Requirement.empty();
             }
             return context -> {
-                Location location = requireNonNull(context.arg(ContextKeys.OTHER_LOCATION));
-                Location startLocation = location.getBlock().isLiquid() ? location.clone() : location.clone().subtract(0, 1, 0);
-                int depth = 0;
-                while (startLocation.getBlock().isLiquid()) {
-                    startLocation.subtract(0, 1, 0);
-                    depth++;
-                }
+                int depth = requireNonNull(EnvironmentSnapshot.of(context)).liquidDepth();
                 if (depth >= min && depth <= max) return true;
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "liquid-depth");
+        }, RequirementFactory.COST_WORLD_SCAN, "liquid-depth");
     }
 
     private void registerTotemRequirement() {
@@ -856,7 +896,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "totem");
+        }, RequirementFactory.COST_CONTEXT, "totem");
     }
 
     private void registerLevelRequirement() {
@@ -869,7 +909,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "level");
+        }, RequirementFactory.COST_PLACEHOLDER, "level");
     }
 
     private void registerMoneyRequirement() {
@@ -882,44 +922,53 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "money");
+        }, RequirementFactory.COST_PLACEHOLDER, "money");
     }
 
     private void registerRandomRequirement() {
         registerRequirement((args, actions, runActions) -> {
             MathValue<Player> value = MathValue.auto(args);
+            if (value instanceof PlainMathValueImpl<Player> && value.evaluate(null) >= 1) {
+                return Requirement.empty();
+            }
             return context -> {
                 if (Math.random() < value.evaluate(context, true))
                     return true;
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "random");
+        }, RequirementFactory.COST_PLACEHOLDER, "random");
     }
 
     private void registerBiomeRequirement() {
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> biomes = new HashSet<>(ListUtils.toList(args));
             return context -> {
-                Location location = requireNonNull(Optional.ofNullable(context.arg(ContextKeys.OTHER_LOCATION)).orElse(context.arg(ContextKeys.LOCATION)));
-                String currentBiome = SparrowHeart.getInstance().getBiomeResourceLocation(location);
+                String currentBiome = getBiome(context);
                 if (biomes.contains(currentBiome))
                     return true;
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "biome");
+        }, RequirementFactory.COST_WORLD_SCAN, "biome");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> biomes = new HashSet<>(ListUtils.toList(args));
             return context -> {
-                Location location = requireNonNull(Optional.ofNullable(context.arg(ContextKeys.OTHER_LOCATION)).orElse(context.arg(ContextKeys.LOCATION)));
-                String currentBiome = SparrowHeart.getInstance().getBiomeResourceLocation(location);
+                String currentBiome = getBiome(context);
                 if (!biomes.contains(currentBiome))
                     return true;
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!biome");
+        }, RequirementFactory.COST_WORLD_SCAN, "!biome");
+    }
+
+    private String getBiome(Context<Player> context) {
+        EnvironmentSnapshot environment = EnvironmentSnapshot.of(context);
+        if (environment != null) {
+            return environment.biome();
+        }
+        return SparrowHeart.getInstance().getBiomeResourceLocation(requireNonNull(context.arg(ContextKeys.LOCATION)));
     }
 
     private void registerMoonPhaseRequirement() {
@@ -933,7 +982,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "moon-phase");
+        }, RequirementFactory.COST_PLAYER, "moon-phase");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> moonPhases = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -944,7 +993,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!moon-phase");
+        }, RequirementFactory.COST_PLAYER, "!moon-phase");
     }
 
     private void registerWorldRequirement() {
@@ -957,7 +1006,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "world");
+        }, RequirementFactory.COST_PLAYER, "world");
         registerRequirement((args, actions, runActions) -> {
             HashSet<String> worlds = new HashSet<>(ListUtils.toList(args));
             return context -> {
@@ -967,7 +1016,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "!world");
+        }, RequirementFactory.COST_PLAYER, "!world");
     }
 
     private void registerWeatherRequirement() {
@@ -984,13 +1033,13 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "weather");
+        }, RequirementFactory.COST_PLAYER, "weather");
     }
 
     private void registerCoolDownRequirement() {
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
-                String key = section.getString("key");
+                int key = plugin.getCoolDownManager().keyOrdinal(section.getString("key", ""));
                 int time = section.getInt("time");
                 return context -> {
                     if (!plugin.getCoolDownManager().isCoolDown(context.holder().getUniqueId(), key, time))
@@ -1002,7 +1051,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at cooldown requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "cooldown");
+        }, RequirementFactory.COST_SIDE_EFFECT, "cooldown");
     }
 
     private void registerDateRequirement() {
@@ -1016,7 +1065,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "date");
+        }, RequirementFactory.COST_PLAYER, "date");
     }
 
     private void registerPermissionRequirement() {
@@ -1029,7 +1078,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "permission");
+        }, RequirementFactory.COST_PLAYER, "permission");
         registerRequirement((args, actions, runActions) -> {
             List<String> perms = ListUtils.toList(args);
             return context -> {
@@ -1040,7 +1089,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                     }
                 return true;
             };
-        }, "!permission");
+        }, RequirementFactory.COST_PLAYER, "!permission");
     }
 
     private void registerSeasonRequirement() {
@@ -1056,7 +1105,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "season");
+        }, RequirementFactory.COST_PLACEHOLDER, "season");
     }
 
     private void registerPAPIRequirement() {
@@ -1073,7 +1122,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at < requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "<");
+        }, RequirementFactory.COST_PLACEHOLDER, "<");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 MathValue<Player> v1 = MathValue.auto(section.get("value1"));
@@ -1087,7 +1136,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at <= requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "<=");
+        }, RequirementFactory.COST_PLACEHOLDER, "<=");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 MathValue<Player> v1 = MathValue.auto(section.get("value1"));
@@ -1101,7 +1150,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at != requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!=");
+        }, RequirementFactory.COST_PLACEHOLDER, "!=");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 MathValue<Player> v1 = MathValue.auto(section.get("value1"));
@@ -1115,7 +1164,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at == requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "==", "=");
+        }, RequirementFactory.COST_PLACEHOLDER, "==", "=");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 MathValue<Player> v1 = MathValue.auto(section.get("value1"));
@@ -1129,7 +1178,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at >= requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, ">=");
+        }, RequirementFactory.COST_PLACEHOLDER, ">=");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 MathValue<Player> v1 = MathValue.auto(section.get("value1"));
@@ -1143,13 +1192,13 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at > requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, ">");
+        }, RequirementFactory.COST_PLACEHOLDER, ">");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("papi", ""));
-                String v2 = section.getString("regex", "");
+                Pattern pattern = Pattern.compile(section.getString("regex", ""));
                 return context -> {
-                    if (v1.render(context, true).matches(v2)) return true;
+                    if (pattern.matcher(v1.render(context, true)).matches()) return true;
                     if (runActions) ActionManager.trigger(context, actions);
                     return false;
                 };
@@ -1157,7 +1206,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at regex requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "regex");
+        }, RequirementFactory.COST_PLACEHOLDER, "regex");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1171,7 +1220,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at startsWith requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "startsWith");
+        }, RequirementFactory.COST_PLACEHOLDER, "startsWith");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1185,7 +1234,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !startsWith requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!startsWith");
+        }, RequirementFactory.COST_PLACEHOLDER, "!startsWith");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1199,7 +1248,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at endsWith requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "endsWith");
+        }, RequirementFactory.COST_PLACEHOLDER, "endsWith");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1213,7 +1262,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !endsWith requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!endsWith");
+        }, RequirementFactory.COST_PLACEHOLDER, "!endsWith");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1227,7 +1276,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at contains requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "contains");
+        }, RequirementFactory.COST_PLACEHOLDER, "contains");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1241,7 +1290,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !contains requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!contains");
+        }, RequirementFactory.COST_PLACEHOLDER, "!contains");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> papi = TextValue.auto(section.getString("papi", ""));
@@ -1255,7 +1304,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at in-list requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "in-list");
+        }, RequirementFactory.COST_PLACEHOLDER, "in-list");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> papi = TextValue.auto(section.getString("papi", ""));
@@ -1269,7 +1318,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !in-list requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!in-list");
+        }, RequirementFactory.COST_PLACEHOLDER, "!in-list");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1283,7 +1332,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at equals requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "equals");
+        }, RequirementFactory.COST_PLACEHOLDER, "equals");
         registerRequirement((args, actions, runActions) -> {
             if (args instanceof Section section) {
                 TextValue<Player> v1 = TextValue.auto(section.getString("value1", ""));
@@ -1297,7 +1346,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 plugin.getPluginLogger().warn("Invalid value type: " + args.getClass().getSimpleName() + " found at !equals requirement which is expected be `Section`");
                 return Requirement.empty();
             }
-        }, "!equals");
+        }, RequirementFactory.COST_PLACEHOLDER, "!equals");
     }
 
     @SuppressWarnings("deprecation")
@@ -1345,7 +1394,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (runActions) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "potion-effect");
+        }, RequirementFactory.COST_PLAYER, "potion-effect");
     }
 
     private void registerSneakRequirement() {
@@ -1363,7 +1412,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "sneak");
+        }, RequirementFactory.COST_PLAYER, "sneak");
     }
 
     protected void registerGameModeRequirement() {
@@ -1378,7 +1427,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "gamemode");
+        }, RequirementFactory.COST_PLAYER, "gamemode");
     }
 
     protected void registerIsFirstLootRequirement() {
@@ -1391,7 +1440,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "is-first-loot");
+        }, RequirementFactory.COST_CONTEXT, "is-first-loot");
     }
 
     protected void registerLootOrderRequirement() {
@@ -1403,7 +1452,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "loot-order");
+        }, RequirementFactory.COST_CONTEXT, "loot-order");
     }
 
     protected void registerHasPlayerLootRequirement() {
@@ -1415,7 +1464,7 @@ public class BukkitRequirementManager implements RequirementManager<Player> {
                 if (advanced) ActionManager.trigger(context, actions);
                 return false;
             };
-        }, "has-player");
+        }, RequirementFactory.COST_CONTEXT, "has-player");
     }
 
     /**
@@ -0,0 +1,230 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.scheduler;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel measured in ticks.
+ * Inserting and cancelling an entry is O(1), and advancing the wheel by one tick only touches
+ * the entries that expire at that tick, plus the occasional cascade of a higher level bucket.
+ * This class is not thread safe.
+ *
+ * @param <E> the type of the entries
+ */
+public class TimingWheel<E extends TimingWheel.Entry> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final Bucket[][] wheels;
+    // entries too far in the future for the top level
+    private final Bucket overflow;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel() {
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                this.wheels[level][slot] = new Bucket();
+            }
+        }
+        this.overflow = new Bucket();
+    }
+
+    /**
+     * Gets the current tick of the wheel.
+     *
+     * @return the current tick
+     */
+    public long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of pending entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules an entry to expire after the given number of ticks.
+     * An entry that is already scheduled is moved.
+     *
+     * @param entry the entry
+     * @param delay the delay in ticks, at least one tick
+     */
+    public void schedule(E entry, long delay) {
+        Entry e = entry;
+        if (e.bucket != null) {
+            cancel(entry);
+        }
+        e.deadline = currentTick + Math.max(1, delay);
+        place(e);
+        size++;
+    }
+
+    /**
+     * Removes an entry from the wheel.
+     *
+     * @param entry the entry
+     * @return true if the entry was pending
+     */
+    public boolean cancel(E entry) {
+        Entry e = entry;
+        if (e.bucket == null) return false;
+        e.bucket.remove(e);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel by one tick and passes the expired entries to the consumer.
+     * The expired entries are removed from the wheel before being consumed, so they can be scheduled again.
+     *
+     * @param expired the consumer of the expired entries
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(Consumer<E> expired) {
+        currentTick++;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                if (level == LEVELS - 1) {
+                    cascade(overflow);
+                }
+                cascade(wheels[level][(int) ((currentTick >>> (BITS * level)) & MASK)]);
+            }
+        }
+        Bucket bucket = wheels[0][(int) (currentTick & MASK)];
+        Entry entry;
+        while ((entry = bucket.poll()) != null) {
+            size--;
+            expired.accept((E) entry);
+        }
+    }
+
+    /**
+     * Removes all the entries and passes them to the consumer.
+     *
+     * @param removed the consumer of the removed entries
+     */
+    @SuppressWarnings("unchecked")
+    public void clear(Consumer<E> removed) {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                Entry entry;
+                while ((entry = bucket.poll()) != null) {
+                    removed.accept((E) entry);
+                }
+            }
+        }
+        Entry entry;
+        while ((entry = overflow.poll()) != null) {
+            removed.accept((E) entry);
+        }
+        size = 0;
+    }
+
+    private void cascade(Bucket bucket) {
+        // detach the entries first, as the overflowed entries may be placed back into the same bucket
+        Entry entry = bucket.head;
+        bucket.head = null;
+        bucket.tail = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void place(Entry entry) {
+        long deadline = entry.deadline;
+        if (deadline - currentTick < SLOTS) {
+            wheels[0][(int) (deadline & MASK)].add(entry);
+            return;
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            long distance = (deadline >>> (BITS * level)) - (currentTick >>> (BITS * level));
+            if (distance < SLOTS) {
+                wheels[level][(int) ((deadline >>> (BITS * level)) & MASK)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    /**
+     * An entry of the wheel. An entry can only be scheduled in one wheel at a time.
+     */
+    public static class Entry {
+
+        private long deadline;
+        private Bucket bucket;
+        private Entry prev;
+        private Entry next;
+
+        /**
+         * Checks if the entry is waiting in a wheel.
+         *
+         * @return true if the entry is pending
+         */
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private static final class Bucket {
+
+        private Entry head;
+        private Entry tail;
+
+        private void add(Entry entry) {
+            entry.bucket = this;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) head = entry;
+            else tail.next = entry;
+            tail = entry;
+        }
+
+        private void remove(Entry entry) {
+            if (entry.prev == null) head = entry.next;
+            else entry.prev.next = entry.next;
+            if (entry.next == null) tail = entry.prev;
+            else entry.next.prev = entry.prev;
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        private Entry poll() {
+            Entry entry = head;
+            if (entry != null) remove(entry);
+            return entry;
+        }
+    }
+}
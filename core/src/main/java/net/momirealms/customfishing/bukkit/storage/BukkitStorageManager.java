@@ -20,6 +20,7 @@ package net.momirealms.customfishing.bukkit.storage;
 import com.google.gson.JsonSyntaxException;
 import dev.dejvokep.boostedyaml.YamlDocument;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.bag.FishingBagHolder;
 import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.api.storage.DataStorageProvider;
 import net.momirealms.customfishing.api.storage.StorageManager;
@@ -28,14 +29,17 @@ import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.bukkit.storage.method.database.nosql.MongoDBProvider;
 import net.momirealms.customfishing.bukkit.storage.method.database.nosql.RedisManager;
+import net.momirealms.customfishing.bukkit.storage.method.database.sql.AbstractHikariDatabase;
 import net.momirealms.customfishing.bukkit.storage.method.database.sql.H2Provider;
 import net.momirealms.customfishing.bukkit.storage.method.database.sql.MariaDBProvider;
 import net.momirealms.customfishing.bukkit.storage.method.database.sql.MySQLProvider;
 import net.momirealms.customfishing.bukkit.storage.method.database.sql.SQLiteProvider;
 import net.momirealms.customfishing.bukkit.storage.method.file.JsonProvider;
+import net.momirealms.customfishing.bukkit.storage.method.file.LogProvider;
 import net.momirealms.customfishing.bukkit.storage.method.file.YAMLProvider;
 import net.momirealms.customfishing.common.helper.GsonHelper;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -49,6 +53,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Optional;
@@ -68,6 +73,8 @@ public class BukkitStorageManager implements StorageManager, Listener {
     private RedisManager redisManager;
     private String serverID;
     private SchedulerTask timerSaveTask;
+    private WriteBehindQueue saveQueue;
+    private int writeBehindTimeout;
 
     public BukkitStorageManager(BukkitCustomFishingPlugin plugin) {
         this.plugin = plugin;
@@ -80,6 +87,10 @@ public class BukkitStorageManager implements StorageManager, Listener {
     public void reload() {
         YamlDocument config = plugin.getConfigManager().loadConfig("database.yml");
         this.serverID = config.getString("unique-server-id", "default");
+        if (this.saveQueue == null)
+            this.saveQueue = new WriteBehindQueue(plugin, () -> this.dataSource, config.getInt("write-behind.workers", 2));
+        this.writeBehindTimeout = config.getInt("write-behind.shutdown-timeout", 30);
+        this.saveQueue.configure(config.getLong("write-behind.delay", 1000L), config.getInt("write-behind.batch-size", 64));
         try {
             config.save(new File(plugin.getBootstrap().getDataFolder(), "database.yml"));
         } catch (IOException e) {
@@ -88,12 +99,17 @@ public class BukkitStorageManager implements StorageManager, Listener {
         // Check if storage type has changed and reinitialize if necessary
         StorageType storageType = StorageType.valueOf(config.getString("data-storage-method", "H2"));
         if (storageType != previousType) {
-            if (this.dataSource != null) this.dataSource.disable();
+            if (this.dataSource != null) {
+                // the queued data belongs to the previous storage
+                this.saveQueue.flush(TimeUnit.SECONDS.toMillis(30));
+                this.dataSource.disable();
+            }
             this.previousType = storageType;
             switch (storageType) {
                 case H2 -> this.dataSource = new H2Provider(plugin);
                 case JSON -> this.dataSource = new JsonProvider(plugin);
                 case YAML -> this.dataSource = new YAMLProvider(plugin);
+                case LOG -> this.dataSource = new LogProvider(plugin);
                 case SQLite -> this.dataSource = new SQLiteProvider(plugin);
                 case MySQL -> this.dataSource = new MySQLProvider(plugin);
                 case MariaDB -> this.dataSource = new MariaDBProvider(plugin);
@@ -124,12 +140,17 @@ public class BukkitStorageManager implements StorageManager, Listener {
 
         // Schedule periodic data saving if dataSaveInterval is configured
         if (ConfigManager.dataSaveInterval() > 0)
-            this.timerSaveTask = this.plugin.getScheduler().asyncRepeating(
+            this.timerSaveTask = this.plugin.getScheduler().asyncRepeating(TaskCategory.STORAGE,
                     () -> {
                         long time1 = System.currentTimeMillis();
-                        this.dataSource.updateManyPlayersData(this.onlineUserMap.values(), !ConfigManager.lockData());
-                        if (ConfigManager.logDataSaving())
-                            plugin.getPluginLogger().info("Data Saved for online players. Took " + (System.currentTimeMillis() - time1) + "ms.");
+                        ArrayList<CompletableFuture<Boolean>> futures = new ArrayList<>();
+                        for (UserData userData : this.onlineUserMap.values()) {
+                            futures.add(this.saveQueue.save(userData.uuid(), userData::toPlayerData, !ConfigManager.lockData(), false));
+                        }
+                        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+                            if (ConfigManager.logDataSaving())
+                                plugin.getPluginLogger().info("Data Saved for online players. Took " + (System.currentTimeMillis() - time1) + "ms. " + this.saveQueue.stats());
+                        });
                     },
                     ConfigManager.dataSaveInterval(),
                     ConfigManager.dataSaveInterval(),
@@ -145,13 +166,22 @@ public class BukkitStorageManager implements StorageManager, Listener {
         HandlerList.unregisterAll(this);
         if (this.timerSaveTask != null)
             this.timerSaveTask.cancel();
-        if (this.dataSource != null && !onlineUserMap.isEmpty())
-            this.dataSource.updateManyPlayersData(onlineUserMap.values(), true);
+        if (this.saveQueue != null) {
+            for (UserData userData : onlineUserMap.values()) {
+                this.saveQueue.save(userData.uuid(), userData::toPlayerData, true, true);
+            }
+            this.saveQueue.shutdown(TimeUnit.SECONDS.toMillis(writeBehindTimeout));
+            this.saveQueue = null;
+        }
         if (this.dataSource != null)
             this.dataSource.disable();
         if (this.redisManager != null)
             this.redisManager.disable();
         this.onlineUserMap.clear();
+        plugin.debug(() -> {
+            FishingBagHolder.LazyStats stats = FishingBagHolder.lazyStats();
+            return "Bags never deserialized: " + stats.skipped() + "/" + stats.created();
+        });
     }
 
     @NotNull
@@ -188,7 +218,17 @@ public class BukkitStorageManager implements StorageManager, Listener {
 
     @Override
     public CompletableFuture<Boolean> saveUserData(UserData userData, boolean unlock) {
-        return dataSource.updatePlayerData(userData.uuid(), userData.toPlayerData(), unlock);
+        return saveQueue.save(userData.uuid(), userData::toPlayerData, unlock, false);
+    }
+
+    /**
+     * Gets the stats of the queue of the saves.
+     *
+     * @return the stats, or null if the storage is disabled
+     */
+    @Nullable
+    public WriteBehindQueue.Stats getSaveQueueStats() {
+        return saveQueue == null ? null : saveQueue.stats();
     }
 
     @NotNull
@@ -200,7 +240,7 @@ public class BukkitStorageManager implements StorageManager, Listener {
     /**
      * Event handler for when a player joins the server.
      * Locks the player's data and initiates data retrieval if Redis is not used,
-     * otherwise, it starts a Redis data retrieval task.
+     * otherwise, it waits for the data released by the previous server and falls back to the data source.
      */
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
@@ -210,13 +250,17 @@ public class BukkitStorageManager implements StorageManager, Listener {
         if (!hasRedis) {
             waitLock(uuid, 1);
         } else {
-            plugin.getScheduler().asyncLater(() -> redisManager.getChangeServer(uuid).thenAccept(changeServer -> {
-                if (!changeServer) {
+            redisManager.acquirePlayerData(uuid).thenAccept(optionalData -> {
+                Player online = Bukkit.getPlayer(uuid);
+                if (online == null || !online.isOnline())
+                    return;
+                if (optionalData.isEmpty()) {
                     waitLock(uuid, 3);
-                } else {
-                    new RedisGetDataTask(uuid);
+                    return;
                 }
-            }), 500, TimeUnit.MILLISECONDS);
+                addOnlineUser(online, optionalData.get());
+                if (ConfigManager.lockData()) dataSource.lockOrUnlockPlayerData(uuid, true);
+            });
         }
     }
 
@@ -235,16 +279,16 @@ public class BukkitStorageManager implements StorageManager, Listener {
         UserData onlineUser = onlineUserMap.remove(uuid);
         if (onlineUser == null) return;
         PlayerData data = onlineUser.toPlayerData();
+        WriteBehindQueue saveQueue = this.saveQueue;
 
         if (hasRedis) {
-            redisManager.setChangeServer(uuid).thenRun(
-                    () -> redisManager.updatePlayerData(uuid, data, true).thenRun(
-                            () -> dataSource.updatePlayerData(uuid, data, true).thenAccept(
-                                    result -> {
-                                      if (result) locked.remove(uuid);
-            })));
+            redisManager.releasePlayerData(uuid, data).thenRun(
+                    () -> saveQueue.save(uuid, () -> data, true, true).thenAccept(
+                            result -> {
+                                if (result) locked.remove(uuid);
+            }));
         } else {
-            dataSource.updatePlayerData(uuid, data, true).thenAccept(
+            saveQueue.save(uuid, () -> data, true, true).thenAccept(
                     result -> {
                         if (result) locked.remove(uuid);
                     });
@@ -252,57 +296,21 @@ public class BukkitStorageManager implements StorageManager, Listener {
     }
 
     /**
-     * Runnable task for asynchronously retrieving data from Redis.
-     * Retries up to 6 times and cancels the task if the player is offline.
-     */
-    private class RedisGetDataTask implements Runnable {
-
-        private final UUID uuid;
-        private int triedTimes;
-        private final SchedulerTask task;
-
-        public RedisGetDataTask(UUID uuid) {
-            this.uuid = uuid;
-            this.task = plugin.getScheduler().asyncRepeating(this, 0, 333, TimeUnit.MILLISECONDS);
-        }
-
-        @Override
-        public void run() {
-            triedTimes++;
-            Player player = Bukkit.getPlayer(uuid);
-            if (player == null || !player.isOnline()) {
-                // offline
-                task.cancel();
-                return;
-            }
-            if (triedTimes >= 6) {
-                waitLock(uuid, 3);
-                task.cancel();
-                return;
-            }
-            redisManager.getPlayerData(uuid, false, null).thenAccept(optionalData -> {
-                if (optionalData.isPresent()) {
-                    addOnlineUser(player, optionalData.get());
-                    task.cancel();
-                    if (ConfigManager.lockData()) dataSource.lockOrUnlockPlayerData(uuid, true);
-                }
-            });
-        }
-    }
-
-    /**
-     * Waits for data lock release with a delay and a maximum of three retries.
+     * Waits for data lock release with a delay and a maximum of three retries,
+     * plus the duration of a lease on the databases shared by several servers.
      *
      * @param uuid  The UUID of the player.
      * @param times The number of times this method has been retried.
      */
     private void waitLock(UUID uuid, int times) {
-        plugin.getScheduler().asyncLater(() -> {
+        plugin.getScheduler().asyncLater(TaskCategory.STORAGE, () -> {
         var player = Bukkit.getPlayer(uuid);
         if (player == null || !player.isOnline())
             return;
-        if (times > 3) {
-            plugin.getPluginLogger().warn("Tried 3 times getting data for " + uuid + ". Giving up.");
+        // the lock held by a server that stopped is released once its lease expires
+        int maxTimes = 3 + (dataSource instanceof AbstractHikariDatabase database ? database.getLeaseDuration() : 0);
+        if (times > maxTimes) {
+            plugin.getPluginLogger().warn("Tried " + maxTimes + " times getting data for " + uuid + ". Giving up.");
             return;
         }
         this.dataSource.getPlayerData(uuid, ConfigManager.lockData(), null).thenAccept(optionalData -> {
@@ -0,0 +1,238 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.storage.DataStorageProvider;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Queues the saves of player data and writes them in batches on a few worker threads.
+ * Only the latest data of a player is kept while it waits, so the saves made in a short time
+ * are serialized and written once.
+ */
+public class WriteBehindQueue {
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final Supplier<DataStorageProvider> dataSource;
+    private final ConcurrentHashMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+    // the saves taken from the queue and not written yet
+    private final Set<CompletableFuture<Boolean>> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+    private final SchedulerTask drainTask;
+    private volatile long delayNanos;
+    private volatile int batchSize;
+    private volatile boolean stopped;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * Starts a queue.
+     *
+     * @param plugin     the plugin
+     * @param dataSource the data source to write to
+     * @param workers    the number of threads writing the data
+     */
+    public WriteBehindQueue(BukkitCustomFishingPlugin plugin, Supplier<DataStorageProvider> dataSource, int workers) {
+        this.plugin = plugin;
+        this.dataSource = dataSource;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), new ThreadFactoryBuilder().setNameFormat("cf-save-%d").build());
+        this.drainTask = plugin.getScheduler().asyncRepeating(TaskCategory.STORAGE, () -> drain(false), 250, 250, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets how the saves are written.
+     *
+     * @param delay     the time in milliseconds a save waits for the next ones
+     * @param batchSize the maximum number of players written at once
+     */
+    public void configure(long delay, int batchSize) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Queues the data of a player. It replaces the data of the player still waiting in the queue,
+     * which stays unlocked after writing if either save unlocks it, so that a quit save isn't turned into a locked write.
+     *
+     * @param uuid   the UUID of the player
+     * @param data   supplies the data, called when it is written
+     * @param unlock whether to unlock the data after writing
+     * @param urgent whether to write it without waiting for the next saves
+     * @return a future completed with whether the data is written
+     */
+    public CompletableFuture<Boolean> save(UUID uuid, Supplier<PlayerData> data, boolean unlock, boolean urgent) {
+        requested.incrementAndGet();
+        if (stopped) {
+            written.incrementAndGet();
+            return dataSource.get().updateOrInsertPlayerData(uuid, data.get(), unlock);
+        }
+        Pending entry = pending.compute(uuid, (k, previous) -> {
+            Pending next = previous == null ? new Pending() : previous;
+            next.data = data;
+            next.unlock |= unlock;
+            next.urgent |= urgent;
+            return next;
+        });
+        if (urgent) {
+            workers.execute(() -> drain(false));
+        }
+        return entry.future;
+    }
+
+    /**
+     * Writes all the queued data, and waits for it to be written.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if all the data is written in time
+     */
+    public boolean flush(long timeout) {
+        drain(true);
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Writes all the queued data and stops the workers. The saves made afterward are written directly.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     */
+    public void shutdown(long timeout) {
+        drainTask.cancel();
+        long start = System.currentTimeMillis();
+        boolean done = flush(timeout);
+        stopped = true;
+        // the saves made while flushing
+        drain(true);
+        workers.shutdown();
+        try {
+            done &= workers.awaitTermination(Math.max(0, timeout - (System.currentTimeMillis() - start)), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done = false;
+        }
+        if (!done) {
+            plugin.getPluginLogger().warn("Timed out writing the player data on shutdown. " + inFlight.size() + " players' data may be lost.");
+        }
+        plugin.debug(() -> "Save queue stats: " + stats());
+    }
+
+    /**
+     * Gets the stats of the queue.
+     *
+     * @return the stats
+     */
+    public Stats stats() {
+        long requested = this.requested.get();
+        long written = this.written.get();
+        return new Stats(pending.size() + inFlight.size(), requested, written, written == 0 ? 1 : (double) requested / written);
+    }
+
+    private void drain(boolean all) {
+        if (pending.isEmpty()) return;
+        long now = System.nanoTime();
+        ArrayList<Map.Entry<UUID, Pending>> locked = new ArrayList<>();
+        ArrayList<Map.Entry<UUID, Pending>> unlocked = new ArrayList<>();
+        for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+            Pending value = entry.getValue();
+            if (!all && !value.urgent && now - value.since < delayNanos) continue;
+            // the entry is left if it has been taken by another drain
+            if (!pending.remove(entry.getKey(), value)) continue;
+            inFlight.add(value.future);
+            (value.unlock ? unlocked : locked).add(Map.entry(entry.getKey(), value));
+        }
+        submit(locked, false);
+        submit(unlocked, true);
+    }
+
+    private void submit(List<Map.Entry<UUID, Pending>> entries, boolean unlock) {
+        int batchSize = this.batchSize;
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            List<Map.Entry<UUID, Pending>> batch = entries.subList(i, Math.min(entries.size(), i + batchSize));
+            Runnable write = () -> write(batch, unlock);
+            if (stopped) {
+                write.run();
+            } else {
+                workers.execute(write);
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<UUID, Pending>> batch, boolean unlock) {
+        LinkedHashMap<UUID, PlayerData> data = new LinkedHashMap<>();
+        Set<UUID> failed = new HashSet<>();
+        for (Map.Entry<UUID, Pending> entry : batch) {
+            try {
+                data.put(entry.getKey(), entry.getValue().data.get());
+            } catch (Exception e) {
+                plugin.getPluginLogger().warn("Failed to serialize " + entry.getKey() + "'s data.", e);
+                failed.add(entry.getKey());
+            }
+        }
+        try {
+            failed.addAll(dataSource.get().upsertManyPlayersData(data, unlock));
+        } catch (Exception e) {
+            plugin.getPluginLogger().warn("Failed to write the data of " + data.size() + " players", e);
+            failed.addAll(data.keySet());
+        }
+        written.addAndGet(batch.size());
+        for (Map.Entry<UUID, Pending> entry : batch) {
+            CompletableFuture<Boolean> future = entry.getValue().future;
+            inFlight.remove(future);
+            future.complete(!failed.contains(entry.getKey()));
+        }
+    }
+
+    /**
+     * The stats of a queue.
+     *
+     * @param queueDepth      the number of players whose data is waiting or being written
+     * @param requested       the number of saves
+     * @param written         the number of times some data is written
+     * @param coalescingRatio the number of saves per write
+     */
+    public record Stats(int queueDepth, long requested, long written, double coalescingRatio) {
+    }
+
+    private static class Pending {
+
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final long since = System.nanoTime();
+        private Supplier<PlayerData> data;
+        private boolean unlock;
+        private boolean urgent;
+    }
+}
@@ -18,17 +18,21 @@
 package net.momirealms.customfishing.bukkit.storage.method.database.nosql;
 
 import com.mongodb.*;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.*;
 import com.mongodb.client.model.*;
-import com.mongodb.client.result.UpdateResult;
 import dev.dejvokep.boostedyaml.YamlDocument;
 import dev.dejvokep.boostedyaml.block.implementation.Section;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.api.storage.StorageType;
+import net.momirealms.customfishing.api.storage.data.EarningData;
+import net.momirealms.customfishing.api.storage.data.InventoryData;
 import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.api.storage.data.StatisticData;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.bukkit.storage.method.AbstractStorage;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
 import org.bson.conversions.Bson;
@@ -37,10 +41,23 @@ import org.bukkit.Bukkit;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A data storage implementation that stores the fields of player data as BSON documents in MongoDB.
+ * The documents written by the older versions hold the serialized data as a binary, and are converted on their next write.
+ * The fields last written for the players locked by this server are kept, so that only the changed ones are written again.
+ */
 public class MongoDBProvider extends AbstractStorage {
 
+    private static final int SCHEMA_VERSION = 2;
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final ConcurrentHashMap<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
     private MongoClient mongoClient;
     private MongoDatabase database;
     private String collectionPrefix;
@@ -63,6 +80,7 @@ public class MongoDBProvider extends AbstractStorage {
             settings.applyConnectionString(new ConnectionString(section.getString("connection-uri", "")));
             this.mongoClient = MongoClients.create(settings.build());
             this.database = mongoClient.getDatabase(section.getString("database", "minecraft"));
+            createIndexes();
             return;
         }
 
@@ -81,6 +99,15 @@ public class MongoDBProvider extends AbstractStorage {
         ))));
         this.mongoClient = MongoClients.create(settings.build());
         this.database = mongoClient.getDatabase(section.getString("database", "minecraft"));
+        createIndexes();
+    }
+
+    private void createIndexes() {
+        try {
+            collection().createIndex(Indexes.ascending("uuid"));
+        } catch (MongoException e) {
+            plugin.getPluginLogger().warn("Failed to create the index of the data collection", e);
+        }
     }
 
     @Override
@@ -117,84 +144,100 @@ public class MongoDBProvider extends AbstractStorage {
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        if (executor == null) executor = plugin.getScheduler().async();
+        if (executor == null) executor = plugin.getScheduler().async(TaskCategory.STORAGE);
         executor.execute(() -> {
-        MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
-        Document doc = collection.find(Filters.eq("uuid", uuid)).first();
-        if (doc == null) {
-            if (Bukkit.getPlayer(uuid) != null) {
-                if (lock) lockOrUnlockPlayerData(uuid, true);
-                var data = PlayerData.empty();
-                data.uuid(uuid);
-                future.complete(Optional.of(data));
-            } else {
-                future.complete(Optional.empty());
-            }
-        } else {
-            Binary binary = (Binary) doc.get("data");
-            PlayerData data = plugin.getStorageManager().fromBytes(binary.getData());
-            data.uuid(uuid);
-            if (doc.getInteger("lock") != 0 && getCurrentSeconds() - ConfigManager.dataSaveInterval() <= doc.getInteger("lock")) {
-                data.locked(true);
-                future.complete(Optional.of(data));
-                return;
-            }
-            if (lock) lockOrUnlockPlayerData(uuid, true);
-            future.complete(Optional.of(data));
+        try {
+            future.complete(Optional.ofNullable(lock ? getAndLock(uuid) : get(uuid)));
+        } catch (MongoException e) {
+            plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
+            future.completeExceptionally(e);
         }
         });
         return future;
     }
 
     @Override
-    public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
-        var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().async().execute(() -> {
-        MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
-        try {
-            Document query = new Document("uuid", uuid);
-            Bson updates = Updates.combine(
-                    Updates.set("lock", unlock ? 0 : getCurrentSeconds()),
-                    Updates.set("data", new Binary(playerData.toBytes())));
-            UpdateOptions options = new UpdateOptions().upsert(true);
-            UpdateResult result = collection.updateOne(query, updates, options);
-            future.complete(result.wasAcknowledged());
+    public Map<UUID, PlayerData> getManyPlayersData(Collection<UUID> uuids) {
+        LinkedHashMap<UUID, PlayerData> result = new LinkedHashMap<>();
+        if (uuids.isEmpty()) return result;
+        try (MongoCursor<Document> cursor = collection().find(Filters.in("uuid", uuids)).projection(Projections.excludeId()).iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                UUID uuid = doc.get("uuid", UUID.class);
+                result.put(uuid, decode(uuid, doc));
+            }
         } catch (MongoException e) {
-            future.completeExceptionally(e);
+            plugin.getPluginLogger().warn("Failed to get the data of " + uuids.size() + " players", e);
         }
-        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
+        var future = new CompletableFuture<Boolean>();
+        plugin.getScheduler().async(TaskCategory.STORAGE).execute(() -> future.complete(upsertManyPlayersData(Map.of(uuid, playerData), unlock).isEmpty()));
         return future;
     }
 
     @Override
     public void updateManyPlayersData(Collection<? extends UserData> users, boolean unlock) {
-        MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
+        LinkedHashMap<UUID, PlayerData> data = new LinkedHashMap<>();
+        for (UserData user : users) {
+            data.put(user.uuid(), user.toPlayerData());
+        }
+        Set<UUID> failed = upsertManyPlayersData(data, unlock);
+        if (!failed.isEmpty()) {
+            plugin.getPluginLogger().warn("Failed to update data for " + failed.size() + " online players");
+        }
+    }
+
+    @Override
+    public Set<UUID> upsertManyPlayersData(Map<UUID, PlayerData> data, boolean unlock) {
+        if (data.isEmpty()) return Set.of();
+        int lock = unlock ? 0 : getCurrentSeconds();
+        ArrayList<UUID> uuids = new ArrayList<>(data.size());
+        ArrayList<Snapshot> written = new ArrayList<>(data.size());
+        ArrayList<UpdateOneModel<Document>> models = new ArrayList<>(data.size());
+        for (Map.Entry<UUID, PlayerData> entry : data.entrySet()) {
+            UUID uuid = entry.getKey();
+            Snapshot snapshot = new Snapshot(sequence.incrementAndGet(), encode(entry.getValue()));
+            uuids.add(uuid);
+            written.add(snapshot);
+            models.add(new UpdateOneModel<>(Filters.eq("uuid", uuid), changes(uuid, snapshot, lock), UPSERT));
+        }
+        Set<UUID> failed = new HashSet<>();
         try {
-            int lock = unlock ? 0 : getCurrentSeconds();
-            var list = users.stream().map(it -> new UpdateOneModel<Document>(
-                    new Document("uuid", it.uuid()),
-                    Updates.combine(
-                            Updates.set("lock", lock),
-                            Updates.set("data", new Binary(plugin.getStorageManager().toBytes(it.toPlayerData())))
-                    ),
-                    new UpdateOptions().upsert(true)
-            )
-            ).toList();
-            if (list.isEmpty()) return;
-            collection.bulkWrite(list);
+            collection().bulkWrite(models, UNORDERED);
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(uuids.get(error.getIndex()));
+            }
+            plugin.getPluginLogger().warn("Failed to update data for " + failed.size() + " players", e);
         } catch (MongoException e) {
-            plugin.getPluginLogger().warn("Failed to update data for online players", e);
+            plugin.getPluginLogger().warn("Failed to update data for " + data.size() + " players", e);
+            failed.addAll(uuids);
+        }
+        for (int i = 0; i < uuids.size(); i++) {
+            UUID uuid = uuids.get(i);
+            if (unlock || failed.contains(uuid)) {
+                // the next lock reads the data again, and a failed write leaves the stored data unknown
+                snapshots.remove(uuid);
+            } else {
+                // the writes may complete out of order, the latest one is kept
+                snapshots.merge(uuid, written.get(i), (previous, next) -> previous.sequence > next.sequence ? previous : next);
+            }
         }
+        return failed;
     }
 
     @Override
     public void lockOrUnlockPlayerData(UUID uuid, boolean lock) {
-        MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
+        if (!lock) snapshots.remove(uuid);
         try {
             Document query = new Document("uuid", uuid);
             Bson updates = Updates.combine(Updates.set("lock", !lock ? 0 : getCurrentSeconds()));
             UpdateOptions options = new UpdateOptions().upsert(true);
-            collection.updateOne(query, updates, options);
+            collection().updateOne(query, updates, options);
         } catch (MongoException e) {
             plugin.getPluginLogger().warn("Failed to lock data for " + uuid, e);
         }
@@ -204,7 +247,7 @@ public class MongoDBProvider extends AbstractStorage {
     public Set<UUID> getUniqueUsers() {
         // no legacy files
         Set<UUID> uuids = new HashSet<>();
-        MongoCollection<Document> collection = database.getCollection(getCollectionName("data"));
+        MongoCollection<Document> collection = collection();
         try {
             Bson projectionFields = Projections.fields(Projections.include("uuid"));
             try (MongoCursor<Document> cursor = collection.find().projection(projectionFields).iterator()) {
@@ -217,4 +260,137 @@ public class MongoDBProvider extends AbstractStorage {
         }
         return uuids;
     }
+
+    private MongoCollection<Document> collection() {
+        return database.getCollection(getCollectionName("data"));
+    }
+
+    private PlayerData get(UUID uuid) {
+        Document doc = collection().find(Filters.eq("uuid", uuid)).projection(Projections.excludeId()).first();
+        if (doc == null) return emptyIfOnline(uuid, false);
+        PlayerData data = decode(uuid, doc);
+        int lock = doc.getInteger("lock", 0);
+        if (lock != 0 && getCurrentSeconds() - ConfigManager.dataSaveInterval() <= lock) data.locked(true);
+        return data;
+    }
+
+    private PlayerData getAndLock(UUID uuid) {
+        int now = getCurrentSeconds();
+        // takes the lock and reads the data in one round trip if nobody holds it
+        Document doc = collection().findOneAndUpdate(
+                Filters.and(Filters.eq("uuid", uuid), Filters.or(
+                        Filters.exists("lock", false),
+                        Filters.eq("lock", 0),
+                        Filters.lt("lock", now - ConfigManager.dataSaveInterval())
+                )),
+                Updates.set("lock", now),
+                new FindOneAndUpdateOptions().projection(Projections.excludeId()).returnDocument(ReturnDocument.AFTER)
+        );
+        if (doc != null) {
+            PlayerData data = decode(uuid, doc);
+            if (doc.containsKey("schema")) snapshots.put(uuid, new Snapshot(sequence.incrementAndGet(), encode(data)));
+            return data;
+        }
+        // only the lock is needed to tell a locked data from a missing one
+        Document lock = collection().find(Filters.eq("uuid", uuid)).projection(Projections.fields(Projections.include("lock"), Projections.excludeId())).first();
+        if (lock == null) return emptyIfOnline(uuid, true);
+        PlayerData data = PlayerData.empty();
+        data.uuid(uuid);
+        data.locked(true);
+        return data;
+    }
+
+    private PlayerData emptyIfOnline(UUID uuid, boolean lock) {
+        if (Bukkit.getPlayer(uuid) == null) return null;
+        if (lock) lockOrUnlockPlayerData(uuid, true);
+        var data = PlayerData.empty();
+        data.uuid(uuid);
+        return data;
+    }
+
+    private Bson changes(UUID uuid, Snapshot next, int lock) {
+        Snapshot previous = snapshots.get(uuid);
+        ArrayList<Bson> updates = new ArrayList<>();
+        updates.add(Updates.set("lock", lock));
+        for (Map.Entry<String, Object> field : next.document.entrySet()) {
+            if (previous == null || !Objects.equals(previous.document.get(field.getKey()), field.getValue())) {
+                updates.add(Updates.set(field.getKey(), field.getValue()));
+            }
+        }
+        // the binary data of the older versions is dropped once the fields are written
+        if (previous == null) updates.add(Updates.unset("data"));
+        return Updates.combine(updates);
+    }
+
+    private static Document encode(PlayerData data) {
+        StatisticData statistics = data.statistics();
+        Map<String, Integer> amounts = statistics == null || statistics.amountMap == null ? Map.of() : statistics.amountMap;
+        Map<String, Float> sizes = statistics == null || statistics.sizeMap == null ? Map.of() : statistics.sizeMap;
+        // sorted, so that the same statistics make the same document
+        TreeSet<String> ids = new TreeSet<>(amounts.keySet());
+        ids.addAll(sizes.keySet());
+        ArrayList<Document> stats = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Document stat = new Document("id", id);
+            Integer amount = amounts.get(id);
+            if (amount != null) stat.append("amount", amount);
+            Float size = sizes.get(id);
+            if (size != null) stat.append("size", size.doubleValue());
+            stats.add(stat);
+        }
+        InventoryData bag = data.bagData() == null ? InventoryData.empty() : data.bagData();
+        EarningData earning = data.earningData() == null ? EarningData.empty() : data.earningData();
+        Document history = new Document();
+        earning.history().forEach(history::append);
+        return new Document("schema", SCHEMA_VERSION)
+                .append("name", data.name())
+                .append("stats", stats)
+                .append("bag", new Document("inventory", bag.serialized).append("size", bag.size))
+                .append("trade", new Document("earnings", earning.earnings()).append("date", earning.date()).append("history", history));
+    }
+
+    private PlayerData decode(UUID uuid, Document doc) {
+        if (!doc.containsKey("schema")) {
+            PlayerData data;
+            if (doc.get("data") instanceof Binary binary) {
+                data = plugin.getStorageManager().fromBytes(binary.getData());
+            } else {
+                // only locked so far
+                data = PlayerData.empty();
+            }
+            data.uuid(uuid);
+            return data;
+        }
+        HashMap<String, Integer> amounts = new HashMap<>();
+        HashMap<String, Float> sizes = new HashMap<>();
+        for (Document stat : doc.getList("stats", Document.class, List.of())) {
+            String id = stat.getString("id");
+            if (stat.get("amount") instanceof Number amount) amounts.put(id, amount.intValue());
+            if (stat.get("size") instanceof Number size) sizes.put(id, size.floatValue());
+        }
+        PlayerData.Builder builder = PlayerData.builder()
+                .uuid(uuid)
+                .name(Objects.requireNonNullElse(doc.getString("name"), PlayerData.DEFAULT_NAME))
+                .statistics(new StatisticData(amounts, sizes));
+        Document bag = doc.get("bag", Document.class);
+        if (bag != null) {
+            builder.bag(new InventoryData(Objects.requireNonNullElse(bag.getString("inventory"), ""), bag.getInteger("size", 9)));
+        }
+        Document trade = doc.get("trade", Document.class);
+        if (trade != null) {
+            LinkedHashMap<String, Double> history = new LinkedHashMap<>();
+            Document days = trade.get("history", Document.class);
+            if (days != null) {
+                days.forEach((day, earnings) -> {
+                    if (earnings instanceof Number number) history.put(day, number.doubleValue());
+                });
+            }
+            double earnings = trade.get("earnings") instanceof Number number ? number.doubleValue() : 0;
+            builder.earnings(new EarningData(earnings, trade.getInteger("date", 0), history));
+        }
+        return builder.build();
+    }
+
+    private record Snapshot(long sequence, Document document) {
+    }
 }
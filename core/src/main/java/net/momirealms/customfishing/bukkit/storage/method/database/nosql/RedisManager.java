@@ -20,29 +20,41 @@ package net.momirealms.customfishing.bukkit.storage.method.database.nosql;
 import dev.dejvokep.boostedyaml.YamlDocument;
 import dev.dejvokep.boostedyaml.block.implementation.Section;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.competition.FishingCompetition;
 import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
 import net.momirealms.customfishing.api.storage.StorageType;
 import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.bukkit.storage.method.AbstractStorage;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.jetbrains.annotations.NotNull;
 import redis.clients.jedis.*;
 import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.XAddParams;
 import redis.clients.jedis.params.XReadParams;
 import redis.clients.jedis.resps.StreamEntry;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class RedisManager extends AbstractStorage {
 
     private static RedisManager instance;
     private final static String STREAM = "customfishing";
+    // the time to wait for a handoff when the player joins before the previous server releases the data
+    private final static int HANDOFF_GRACE_MILLIS = 500;
+    // the data released by other servers awaited by the players joining this server
+    private final ConcurrentHashMap<UUID, Handoff> handoffs = new ConcurrentHashMap<>();
+    private int handoffTimeout;
     private JedisPool jedisPool;
     private String password;
     private int port;
@@ -99,6 +111,7 @@ public class RedisManager extends AbstractStorage {
         port = section.getInt("port", 6379);
         host = section.getString("host", "localhost");
         useSSL = section.getBoolean("use-ssl", false);
+        handoffTimeout = section.getInt("handoff-timeout", 3000);
 
         if (password.isBlank()) {
             jedisPool = new JedisPool(jedisPoolConfig, host, port, 0, useSSL);
@@ -147,7 +160,8 @@ public class RedisManager extends AbstractStorage {
             try (Jedis jedis = jedisPool.getResource()) {
                 HashMap<String, String> messages = new HashMap<>();
                 messages.put("value", message);
-                jedis.xadd(getStream(), StreamEntryID.NEW_ENTRY, messages);
+                // only the new entries are read, so the stream is trimmed to keep the released data from piling up
+                jedis.xadd(getStream(), XAddParams.xAddParams().maxLen(256).approximateTrimming(), messages);
             }
         } else {
             try (Jedis jedis = jedisPool.getResource()) {
@@ -192,9 +206,14 @@ public class RedisManager extends AbstractStorage {
     private void handleMessage(String message) throws IOException {
         DataInputStream input = new DataInputStream(new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)));
         String server = input.readUTF();
+        String type = input.readUTF();
+        // the player data is shared by all the servers, whatever their group
+        if (type.equals("handoff")) {
+            handleHandoff(input);
+            return;
+        }
         if (!ConfigManager.serverGroup().equals(server))
             return;
-        String type = input.readUTF();
         switch (type) {
             case "competition" -> {
                 String action = input.readUTF();
@@ -203,12 +222,12 @@ public class RedisManager extends AbstractStorage {
                         plugin.getCompetitionManager().startCompetition(input.readUTF(), true, null);
                     }
                     case "end" -> {
-                        if (plugin.getCompetitionManager().getOnGoingCompetition() != null)
-                            plugin.getCompetitionManager().getOnGoingCompetition().end(true);
+                        for (FishingCompetition competition : targetCompetitions(input))
+                            competition.end(true);
                     }
                     case "stop" -> {
-                        if (plugin.getCompetitionManager().getOnGoingCompetition() != null)
-                            plugin.getCompetitionManager().getOnGoingCompetition().stop(true);
+                        for (FishingCompetition competition : targetCompetitions(input))
+                            competition.stop(true);
                     }
                 }
             }
@@ -221,52 +240,122 @@ public class RedisManager extends AbstractStorage {
         }
     }
 
+    // the ID of the competition is optional, all the ongoing competitions are targeted without it
+    private List<FishingCompetition> targetCompetitions(DataInputStream input) throws IOException {
+        if (input.available() > 0) {
+            FishingCompetition competition = plugin.getCompetitionManager().getOnGoingCompetition(input.readUTF());
+            return competition == null ? List.of() : List.of(competition);
+        }
+        return plugin.getCompetitionManager().getOnGoingCompetitions();
+    }
+
     @Override
     public StorageType getStorageType() {
         return StorageType.Redis;
     }
 
+    private void handleHandoff(DataInputStream input) throws IOException {
+        UUID uuid = UUID.fromString(input.readUTF());
+        long version = Long.parseLong(input.readUTF());
+        Handoff handoff = handoffs.get(uuid);
+        if (handoff == null || version < handoff.minVersion)
+            return;
+        PlayerData playerData = plugin.getStorageManager().fromBytes(input.readAllBytes());
+        playerData.uuid(uuid);
+        if (handoff.future.complete(Optional.of(playerData))) {
+            plugin.getScheduler().async(TaskCategory.REDIS).execute(() -> consume(uuid));
+        }
+    }
+
     /**
-     * Set a "change server" flag for a specified player UUID in Redis.
+     * Releases the data of a player who quits this server, so that the server the player joins next takes it over.
+     * The data is published along with a version number, and also kept for a few seconds
+     * in case the player joins the next server before the message is sent.
      *
-     * @param uuid The UUID of the player.
-     * @return A CompletableFuture indicating the operation's completion.
+     * @param uuid       The UUID of the player.
+     * @param playerData The player's data.
+     * @return A CompletableFuture indicating whether the data is released.
      */
-    public CompletableFuture<Void> setChangeServer(UUID uuid) {
-        var future = new CompletableFuture<Void>();
-        plugin.getScheduler().async().execute(() -> {
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.setex(
-                    getRedisKey("cf_server", uuid),
-                    10,
-                    new byte[0]
-            );
-        }
-        future.complete(null);
+    public CompletableFuture<Boolean> releasePlayerData(UUID uuid, PlayerData playerData) {
+        var future = new CompletableFuture<Boolean>();
+        plugin.getScheduler().async(TaskCategory.REDIS).execute(() -> {
+            byte[] payload = playerData.toBytes();
+            try (Jedis jedis = jedisPool.getResource()) {
+                byte[] versionKey = getRedisKey("cf_version", uuid);
+                long version = jedis.incr(versionKey);
+                Transaction transaction = jedis.multi();
+                transaction.expire(versionKey, 86400);
+                transaction.setex(getRedisKey("cf_data", uuid), 10, payload);
+                transaction.setex(getRedisKey("cf_server", uuid), 10, String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+                transaction.exec();
+                try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                     DataOutputStream out = new DataOutputStream(byteArrayOutputStream)) {
+                    out.writeUTF(ConfigManager.serverGroup());
+                    out.writeUTF("handoff");
+                    out.writeUTF(uuid.toString());
+                    out.writeUTF(String.valueOf(version));
+                    out.write(payload);
+                    publishRedisMessage(byteArrayOutputStream.toString(StandardCharsets.UTF_8));
+                }
+                future.complete(true);
+            } catch (Exception e) {
+                plugin.getPluginLogger().warn("Failed to release the data of " + uuid, e);
+                future.complete(false);
+            }
         });
         return future;
     }
 
     /**
-     * Get the "change server" flag for a specified player UUID from Redis and remove it.
+     * Takes over the data of a player who joins this server, released by the server the player quits.
+     * The future is completed as soon as the data arrives, or with an empty value if the player doesn't come from
+     * another server or the data doesn't arrive in time, in which case the data should be read from the database.
      *
      * @param uuid The UUID of the player.
-     * @return A CompletableFuture with a Boolean indicating whether the flag was set.
+     * @return A CompletableFuture with an optional PlayerData.
      */
-    public CompletableFuture<Boolean> getChangeServer(UUID uuid) {
-        var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().async().execute(() -> {
-        try (Jedis jedis = jedisPool.getResource()) {
-            byte[] key = getRedisKey("cf_server", uuid);
-            if (jedis.get(key) != null) {
-                jedis.del(key);
-                future.complete(true);
-            } else {
-                future.complete(false);
+    public CompletableFuture<Optional<PlayerData>> acquirePlayerData(UUID uuid) {
+        Handoff handoff = new Handoff();
+        handoffs.put(uuid, handoff);
+        handoff.future.whenComplete((result, throwable) -> handoffs.remove(uuid, handoff));
+        plugin.getScheduler().async(TaskCategory.REDIS).execute(() -> {
+            int timeout;
+            try (Jedis jedis = jedisPool.getResource()) {
+                byte[] version = jedis.get(getRedisKey("cf_server", uuid));
+                if (version == null) {
+                    // the previous server may not have released the data yet
+                    timeout = HANDOFF_GRACE_MILLIS;
+                } else {
+                    handoff.minVersion = Long.parseLong(new String(version, StandardCharsets.UTF_8));
+                    // the message is missed if it was sent before the player joined
+                    byte[] data = jedis.get(getRedisKey("cf_data", uuid));
+                    if (data != null) {
+                        PlayerData playerData = plugin.getStorageManager().fromBytes(data);
+                        playerData.uuid(uuid);
+                        if (handoff.future.complete(Optional.of(playerData))) {
+                            jedis.del(getRedisKey("cf_data", uuid), getRedisKey("cf_server", uuid));
+                        }
+                        return;
+                    }
+                    timeout = handoffTimeout;
+                }
+            } catch (Exception e) {
+                plugin.getPluginLogger().warn("Failed to get the released data of " + uuid, e);
+                handoff.future.complete(Optional.empty());
+                return;
             }
-        }
+            plugin.getScheduler().asyncLater(TaskCategory.REDIS, () -> handoff.future.complete(Optional.empty()), timeout, TimeUnit.MILLISECONDS);
         });
-        return future;
+        return handoff.future;
+    }
+
+    // removes the released data once it is taken over
+    private void consume(UUID uuid) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(getRedisKey("cf_data", uuid), getRedisKey("cf_server", uuid));
+        } catch (JedisException e) {
+            plugin.getPluginLogger().warn("Failed to remove the released data of " + uuid, e);
+        }
     }
 
     /**
@@ -280,7 +369,7 @@ public class RedisManager extends AbstractStorage {
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        if (executor == null) executor = plugin.getScheduler().async();
+        if (executor == null) executor = plugin.getScheduler().async(TaskCategory.REDIS);
         executor.execute(() -> {
             try (Jedis jedis = jedisPool.getResource()) {
                 byte[] key = getRedisKey("cf_data", uuid);
@@ -311,7 +400,7 @@ public class RedisManager extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean ignore) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().async().execute(() -> {
+        plugin.getScheduler().async(TaskCategory.REDIS).execute(() -> {
         try (Jedis jedis = jedisPool.getResource()) {
             jedis.setex(
                     getRedisKey("cf_data", uuid),
@@ -365,6 +454,13 @@ public class RedisManager extends AbstractStorage {
         return "Unknown";
     }
 
+    private static class Handoff {
+
+        private final CompletableFuture<Optional<PlayerData>> future = new CompletableFuture<>();
+        // the version of the data released last, the older messages are ignored
+        private volatile long minVersion;
+    }
+
     public class BlockingThreadTask {
 
         private boolean stopped;
@@ -386,7 +482,10 @@ public class RedisManager extends AbstractStorage {
                             if (messages != null && !messages.isEmpty()) {
                                 for (Map.Entry<String, List<StreamEntry>> message : messages) {
                                     if (message.getKey().equals(getStream())) {
-                                        var value = message.getValue().get(0).getFields().get("value");
+                                        StreamEntry entry = message.getValue().get(0);
+                                        // reads on from this entry, so that the entries added between two reads aren't missed
+                                        map.put(getStream(), entry.getID());
+                                        var value = entry.getFields().get("value");
                                         try {
                                             handleMessage(value);
                                         } catch (IOException e) {
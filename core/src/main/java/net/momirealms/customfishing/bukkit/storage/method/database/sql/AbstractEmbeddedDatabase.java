@@ -0,0 +1,241 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.database.sql;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.api.storage.user.UserData;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An abstract base class for the embedded databases, which are only accessed by this server.
+ * All the writes go through a {@link SingleWriter}, and the reads are served on a separate connection.
+ */
+public abstract class AbstractEmbeddedDatabase extends AbstractSQLDatabase {
+
+    private SingleWriter writer;
+    private ExecutorService reader;
+    // only used by the reader thread
+    private Connection readConnection;
+
+    public AbstractEmbeddedDatabase(BukkitCustomFishingPlugin plugin) {
+        super(plugin);
+    }
+
+    /**
+     * Opens a new connection to the database.
+     *
+     * @return A database connection.
+     * @throws SQLException If there is an error establishing a connection.
+     */
+    protected abstract Connection openConnection() throws SQLException;
+
+    /**
+     * Starts the writer and the reader of the database.
+     *
+     * @param name           The name of the database, used to name the threads.
+     * @param commitInterval The time in milliseconds to wait for more writes before committing.
+     */
+    protected void start(String name, long commitInterval) {
+        this.writer = new SingleWriter(plugin, "cf-" + name + "-writer", this::openConnection, commitInterval);
+        this.reader = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("cf-" + name + "-reader").build());
+    }
+
+    /**
+     * Commits the queued writes and stops the writer and the reader.
+     */
+    protected void stop() {
+        if (writer != null) {
+            writer.shutdown();
+            plugin.debug(() -> getStorageType() + " writer stats: " + writer.stats());
+        }
+        if (reader != null) {
+            reader.execute(() -> {
+                try {
+                    if (readConnection != null && !readConnection.isClosed())
+                        readConnection.close();
+                } catch (SQLException e) {
+                    plugin.getPluginLogger().warn("Failed to close the reading connection", e);
+                }
+            });
+            reader.shutdown();
+        }
+    }
+
+    /**
+     * Gets the stats of the writer.
+     *
+     * @return The stats, or null if the database is not started.
+     */
+    @Nullable
+    public SingleWriter.Stats getWriterStats() {
+        return writer == null ? null : writer.stats();
+    }
+
+    /**
+     * Get a new connection to the database. The caller is responsible for closing it.
+     *
+     * @return A database connection.
+     * @throws SQLException If there is an error establishing a connection.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return openConnection();
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (readConnection == null || readConnection.isClosed()) {
+            readConnection = openConnection();
+        }
+        return readConnection;
+    }
+
+    @Override
+    public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
+        var future = new CompletableFuture<Optional<PlayerData>>();
+        boolean shared = executor == null;
+        if (shared) executor = reader;
+        executor.execute(() -> {
+            // the changes not committed yet must be visible to the read
+            writer.awaitWrites();
+            Connection connection = null;
+            try {
+                connection = shared ? readConnection() : getConnection();
+                try (PreparedStatement statement = connection.prepareStatement(sql().selectByUUID)) {
+                    statement.setString(1, uuid.toString());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (rs.next()) {
+                            PlayerData data = plugin.getStorageManager().fromBytes(getData(rs));
+                            data.uuid(uuid);
+                            int lockValue = rs.getInt(2);
+                            if (lock && lockValue != 0 && getCurrentSeconds() - 30 <= lockValue) {
+                                data.locked(true);
+                                future.complete(Optional.of(data));
+                                plugin.getPluginLogger().warn("Player " + uuid + "'s data is locked. Retrying...");
+                                return;
+                            }
+                            if (lock) lockOrUnlockPlayerData(uuid, true);
+                            future.complete(Optional.of(data));
+                        } else if (Bukkit.getPlayer(uuid) != null) {
+                            // the player is online
+                            var data = PlayerData.empty();
+                            data.uuid(uuid);
+                            insertPlayerData(uuid, data, lock, null);
+                            future.complete(Optional.of(data));
+                        } else {
+                            future.complete(Optional.empty());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
+                future.completeExceptionally(e);
+            } finally {
+                if (!shared && connection != null) {
+                    try {
+                        connection.close();
+                    } catch (SQLException ignored) {
+                    }
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
+        byte[] data = playerData.toBytes();
+        return write(uuid, "update", connection -> upsert(connection, uuid, data, unlock));
+    }
+
+    @Override
+    public void updateManyPlayersData(Collection<? extends UserData> users, boolean unlock) {
+        LinkedHashMap<UUID, byte[]> data = new LinkedHashMap<>();
+        for (UserData user : users) {
+            data.put(user.uuid(), plugin.getStorageManager().toBytes(user.toPlayerData()));
+        }
+        if (data.isEmpty()) return;
+        try {
+            writer.submit(connection -> upsertMany(connection, data, unlock)).join();
+        } catch (CompletionException | CancellationException e) {
+            plugin.getPluginLogger().warn("Failed to update data for online players", e);
+        }
+    }
+
+    @Override
+    public Set<UUID> upsertManyPlayersData(Map<UUID, PlayerData> data, boolean unlock) {
+        if (data.isEmpty()) return Set.of();
+        Map<UUID, byte[]> serialized = serialize(data);
+        try {
+            Set<UUID> rejected = ConcurrentHashMap.newKeySet();
+            writer.submit(connection -> rejected.addAll(upsertMany(connection, serialized, unlock))).join();
+            return rejected;
+        } catch (CompletionException | CancellationException e) {
+            plugin.getPluginLogger().warn("Failed to update data for " + data.size() + " players", e);
+            return data.keySet();
+        }
+    }
+
+    @Override
+    protected void insertPlayerData(UUID uuid, PlayerData playerData, boolean lock, @Nullable Connection previous) {
+        byte[] data = plugin.getStorageManager().toBytes(playerData);
+        write(uuid, "insert", connection -> upsert(connection, uuid, data, !lock));
+    }
+
+    @Override
+    public void lockOrUnlockPlayerData(UUID uuid, boolean lock) {
+        write(uuid, "lock", connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql().lockByUUID)) {
+                statement.setInt(1, lock ? getCurrentSeconds() : 0);
+                statement.setString(2, uuid.toString());
+                statement.execute();
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateOrInsertPlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
+        byte[] data = plugin.getStorageManager().toBytes(playerData);
+        return write(uuid, "update", connection -> upsert(connection, uuid, data, unlock));
+    }
+
+    @Override
+    public Set<UUID> getUniqueUsers() {
+        writer.awaitWrites();
+        return super.getUniqueUsers();
+    }
+
+    private CompletableFuture<Boolean> write(UUID uuid, String operation, SingleWriter.Write write) {
+        return writer.submit(write).handle((result, throwable) -> {
+            if (throwable != null) {
+                plugin.getPluginLogger().warn("Failed to " + operation + " " + uuid + "'s data.", throwable);
+                return false;
+            }
+            return true;
+        });
+    }
+}
@@ -106,14 +106,27 @@ public abstract class AbstractHikariDatabase extends AbstractSQLDatabase {
         hikariConfig.setDataSourceProperties(properties);
         dataSource = new HikariDataSource(hikariConfig);
         super.createTableIfNotExist();
+        super.leases = new LeaseManager(plugin, this, config.getInt("lease-duration", 10));
+        super.leases.start();
     }
 
     @Override
     public void disable() {
+        if (leases != null)
+            leases.stop();
         if (dataSource != null && !dataSource.isClosed())
             dataSource.close();
     }
 
+    /**
+     * Gets the time a lease of this server lasts without being renewed.
+     *
+     * @return the time in seconds, or 0 if there's no lease
+     */
+    public int getLeaseDuration() {
+        return leases == null ? 0 : leases.duration();
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
         return dataSource.getConnection();
@@ -21,6 +21,7 @@ import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.storage.data.PlayerData;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.bukkit.storage.method.AbstractStorage;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -39,6 +40,9 @@ import java.util.concurrent.Executor;
 public abstract class AbstractSQLDatabase extends AbstractStorage {
 
     protected String tablePrefix;
+    // the lease of this server, only on the databases shared by several servers
+    protected LeaseManager leases;
+    private volatile Statements statements;
 
     public AbstractSQLDatabase(BukkitCustomFishingPlugin plugin) {
         super(plugin);
@@ -113,44 +117,98 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         return tablePrefix;
     }
 
-    @SuppressWarnings("DuplicatedCode")
+    /**
+     * Set the serialized data of a player as a statement parameter.
+     *
+     * @param statement The statement.
+     * @param index     The index of the parameter.
+     * @param data      The serialized data.
+     * @throws SQLException If the parameter can't be set.
+     */
+    protected void setData(PreparedStatement statement, int index, byte[] data) throws SQLException {
+        statement.setBlob(index, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Get the serialized data of a player from the current row of a result set.
+     *
+     * @param rs The result set.
+     * @return The serialized data.
+     * @throws SQLException If the data can't be read.
+     */
+    protected byte[] getData(ResultSet rs) throws SQLException {
+        final Blob blob = rs.getBlob("data");
+        final byte[] dataByteArray = blob.getBytes(1, (int) blob.length());
+        blob.free();
+        return dataByteArray;
+    }
+
+    /**
+     * Get the upsert statement of the database, which inserts the data of a player or updates the existing one.
+     * The parameters are the UUID, the lock and the data, and the table name is left as {@code %s}.
+     * By default, it is the MySQL one.
+     *
+     * @return The statement template.
+     */
+    protected String getUpsertTemplate() {
+        return SqlConstants.SQL_UPSERT_MYSQL;
+    }
+
+    /**
+     * Get the SQL statements of this database, built once the table prefix is known.
+     *
+     * @return The statements.
+     */
+    protected Statements sql() {
+        Statements statements = this.statements;
+        if (statements == null || !statements.table.equals(getTableName("data"))) {
+            statements = new Statements(getTableName("data"), getUpsertTemplate());
+            this.statements = statements;
+        }
+        return statements;
+    }
+
     @Override
     public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
         var future = new CompletableFuture<Optional<PlayerData>>();
-        if (executor == null) executor = plugin.getScheduler().async();
+        if (executor == null) executor = plugin.getScheduler().async(TaskCategory.STORAGE);
         executor.execute(() -> {
-            try (
-                    Connection connection = getConnection();
-                    PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
-            ) {
-                statement.setString(1, uuid.toString());
-                ResultSet rs = statement.executeQuery();
-                if (rs.next()) {
-                    final Blob blob = rs.getBlob("data");
-                    final byte[] dataByteArray = blob.getBytes(1, (int) blob.length());
-                    blob.free();
-                    PlayerData data = plugin.getStorageManager().fromBytes(dataByteArray);
-                    data.uuid(uuid);
-                    if (lock) {
-                        int lockValue = rs.getInt(2);
-                        if (lockValue != 0 && getCurrentSeconds() - 30 <= lockValue) {
-                            connection.close();
-                            data.locked(true);
+            try (Connection connection = getConnection()) {
+                // the lock is taken along with the check, so that two servers can't both take it
+                boolean acquired = false;
+                int now = getCurrentSeconds();
+                if (lock && leases != null) {
+                    acquired = leases.tryLock(connection, uuid, now);
+                } else if (lock) {
+                    try (PreparedStatement statement = connection.prepareStatement(sql().tryLock)) {
+                        statement.setInt(1, now);
+                        statement.setString(2, uuid.toString());
+                        statement.setInt(3, now - 30);
+                        acquired = statement.executeUpdate() > 0;
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(sql().selectByUUID)) {
+                    statement.setString(1, uuid.toString());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (rs.next()) {
+                            PlayerData data = plugin.getStorageManager().fromBytes(getData(rs));
+                            data.uuid(uuid);
+                            if (lock && !acquired) {
+                                data.locked(true);
+                                plugin.getPluginLogger().warn("Player " + uuid + "'s data is locked. Retrying...");
+                            }
+                            future.complete(Optional.of(data));
+                        } else if (Bukkit.getPlayer(uuid) != null) {
+                            // the player is online
+                            var data = PlayerData.empty();
+                            data.uuid(uuid);
+                            upsert(connection, uuid, plugin.getStorageManager().toBytes(data), !lock);
+                            if (lock && leases != null) leases.tryLock(connection, uuid, now);
                             future.complete(Optional.of(data));
-                            plugin.getPluginLogger().warn("Player " + uuid + "'s data is locked. Retrying...");
-                            return;
+                        } else {
+                            future.complete(Optional.empty());
                         }
                     }
-                    if (lock) lockOrUnlockPlayerData(uuid, true);
-                    future.complete(Optional.of(data));
-                } else if (Bukkit.getPlayer(uuid) != null) {
-                    // the player is online
-                    var data = PlayerData.empty();
-                    data.uuid(uuid);
-                    insertPlayerData(uuid, data, lock, connection);
-                    future.complete(Optional.of(data));
-                } else {
-                    future.complete(Optional.empty());
                 }
             } catch (SQLException e) {
                 plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
@@ -163,37 +221,29 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().async().execute(() -> {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data")))
-        ) {
-            statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-            statement.setBlob(2, new ByteArrayInputStream(playerData.toBytes()));
-            statement.setString(3, uuid.toString());
-            statement.executeUpdate();
-            future.complete(true);
-        } catch (SQLException e) {
-            plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
-            future.completeExceptionally(e);
-        }
+        plugin.getScheduler().async(TaskCategory.STORAGE).execute(() -> {
+            try (Connection connection = getConnection()) {
+                upsert(connection, uuid, playerData.toBytes(), unlock);
+                future.complete(true);
+            } catch (SQLException e) {
+                plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
+                future.completeExceptionally(e);
+            }
         });
         return future;
     }
 
     @Override
     public void updateManyPlayersData(Collection<? extends UserData> users, boolean unlock) {
-        String sql = String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data"));
+        LinkedHashMap<UUID, byte[]> data = new LinkedHashMap<>();
+        for (UserData user : users) {
+            data.put(user.uuid(), plugin.getStorageManager().toBytes(user.toPlayerData()));
+        }
+        if (data.isEmpty()) return;
         try (Connection connection = getConnection()) {
             connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                for (UserData user : users) {
-                    statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-                    statement.setBlob(2, new ByteArrayInputStream(plugin.getStorageManager().toBytes(user.toPlayerData())));
-                    statement.setString(3, user.uuid().toString());
-                    statement.addBatch();
-                }
-                statement.executeBatch();
+            try {
+                upsertMany(connection, data, unlock);
                 connection.commit();
             } catch (SQLException e) {
                 connection.rollback();
@@ -204,15 +254,133 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         }
     }
 
-    protected void insertPlayerData(UUID uuid, PlayerData playerData, boolean lock, @Nullable Connection previous) {
-        try (
-            Connection connection = previous == null ? getConnection() : previous;
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_INSERT_DATA_BY_UUID, getTableName("data")))
-        ) {
+    @Override
+    public Set<UUID> upsertManyPlayersData(Map<UUID, PlayerData> data, boolean unlock) {
+        if (data.isEmpty()) return Set.of();
+        Map<UUID, byte[]> serialized = serialize(data);
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Set<UUID> rejected = upsertMany(connection, serialized, unlock);
+                connection.commit();
+                return rejected;
+            } catch (SQLException e) {
+                connection.rollback();
+                plugin.getPluginLogger().warn("Failed to update data for " + data.size() + " players", e);
+            }
+        } catch (SQLException e) {
+            plugin.getPluginLogger().warn("Failed to get connection when saving players' data", e);
+        }
+        return data.keySet();
+    }
+
+    /**
+     * Serialize the data of many players.
+     *
+     * @param data The data of the players, by UUID.
+     * @return The serialized data, in the same order.
+     */
+    protected Map<UUID, byte[]> serialize(Map<UUID, PlayerData> data) {
+        LinkedHashMap<UUID, byte[]> serialized = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PlayerData> entry : data.entrySet()) {
+            serialized.put(entry.getKey(), plugin.getStorageManager().toBytes(entry.getValue()));
+        }
+        return serialized;
+    }
+
+    /**
+     * Write the data of a player along with its lock in one statement.
+     *
+     * @param connection The connection.
+     * @param uuid       The UUID of the player.
+     * @param data       The serialized data.
+     * @param unlock     Whether to unlock the data.
+     * @throws SQLException If the data can't be written.
+     */
+    protected void upsert(Connection connection, UUID uuid, byte[] data, boolean unlock) throws SQLException {
+        Long token = leases == null ? null : leases.token(uuid);
+        if (token != null) {
+            try (PreparedStatement statement = connection.prepareStatement(leases.fencedWrite())) {
+                setFencedWrite(statement, uuid, data, unlock, token);
+                if (statement.executeUpdate() == 0) {
+                    throw new SQLException("The write is rejected as the lock of " + uuid + "'s data is taken by another server");
+                }
+            }
+            leases.written(uuid, token, unlock);
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql().upsert)) {
             statement.setString(1, uuid.toString());
-            statement.setInt(2, lock ? getCurrentSeconds() : 0);
-            statement.setBlob(3, new ByteArrayInputStream(plugin.getStorageManager().toBytes(playerData)));
-            statement.execute();
+            statement.setInt(2, unlock ? 0 : getCurrentSeconds());
+            setData(statement, 3, data);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Write the data of many players in one batch. It doesn't commit.
+     *
+     * @param connection The connection.
+     * @param data       The serialized data of the players, by UUID.
+     * @param unlock     Whether to unlock the data.
+     * @return The UUIDs of the players whose data is rejected as their lock is taken by another server.
+     * @throws SQLException If the data can't be written.
+     */
+    protected Set<UUID> upsertMany(Connection connection, Map<UUID, byte[]> data, boolean unlock) throws SQLException {
+        int lock = unlock ? 0 : getCurrentSeconds();
+        LinkedHashMap<UUID, Long> fenced = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql().upsert)) {
+            boolean empty = true;
+            for (Map.Entry<UUID, byte[]> entry : data.entrySet()) {
+                Long token = leases == null ? null : leases.token(entry.getKey());
+                if (token != null) {
+                    fenced.put(entry.getKey(), token);
+                    continue;
+                }
+                statement.setString(1, entry.getKey().toString());
+                statement.setInt(2, lock);
+                setData(statement, 3, entry.getValue());
+                statement.addBatch();
+                empty = false;
+            }
+            if (!empty) statement.executeBatch();
+        }
+        if (fenced.isEmpty()) return Set.of();
+        HashSet<UUID> rejected = new HashSet<>();
+        ArrayList<UUID> uuids = new ArrayList<>(fenced.keySet());
+        try (PreparedStatement statement = connection.prepareStatement(leases.fencedWrite())) {
+            for (UUID uuid : uuids) {
+                setFencedWrite(statement, uuid, data.get(uuid), unlock, fenced.get(uuid));
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < uuids.size(); i++) {
+                UUID uuid = uuids.get(i);
+                // some drivers report SUCCESS_NO_INFO for batches, in which case the token tells if the write was applied
+                int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+                boolean applied = count > 0 || count == Statement.SUCCESS_NO_INFO && leases.holds(connection, uuid, fenced.get(uuid));
+                if (!applied) {
+                    rejected.add(uuid);
+                    plugin.getPluginLogger().warn("The write is rejected as the lock of " + uuid + "'s data is taken by another server");
+                } else {
+                    leases.written(uuid, fenced.get(uuid), unlock);
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private void setFencedWrite(PreparedStatement statement, UUID uuid, byte[] data, boolean unlock, long token) throws SQLException {
+        setData(statement, 1, data);
+        statement.setInt(2, unlock ? 0 : getCurrentSeconds());
+        statement.setLong(3, leases.lease(unlock));
+        statement.setString(4, uuid.toString());
+        statement.setLong(5, token);
+    }
+
+    protected void insertPlayerData(UUID uuid, PlayerData playerData, boolean lock, @Nullable Connection previous) {
+        try (Connection connection = previous == null ? getConnection() : previous) {
+            upsert(connection, uuid, plugin.getStorageManager().toBytes(playerData), !lock);
         } catch (SQLException e) {
             plugin.getPluginLogger().warn("Failed to insert " + uuid + "'s data.", e);
         }
@@ -220,9 +388,17 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
 
     @Override
     public void lockOrUnlockPlayerData(UUID uuid, boolean lock) {
+        if (leases != null) {
+            try (Connection connection = getConnection()) {
+                leases.setLock(connection, uuid, lock, getCurrentSeconds());
+            } catch (SQLException e) {
+                plugin.getPluginLogger().warn("Failed to lock " + uuid + "'s data.", e);
+            }
+            return;
+        }
         try (
             Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_LOCK_BY_UUID, getTableName("data")))
+            PreparedStatement statement = connection.prepareStatement(sql().lockByUUID)
         ) {
             statement.setInt(1, lock ? getCurrentSeconds() : 0);
             statement.setString(2, uuid.toString());
@@ -235,31 +411,13 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     @Override
     public CompletableFuture<Boolean> updateOrInsertPlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
         var future = new CompletableFuture<Boolean>();
-        plugin.getScheduler().async().execute(() -> {
-            try (
-                Connection connection = getConnection();
-                PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
-            ) {
-                statement.setString(1, uuid.toString());
-                ResultSet rs = statement.executeQuery();
-                if (rs.next()) {
-                    try (
-                        PreparedStatement statement2 = connection.prepareStatement(String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data")))
-                    ) {
-                        statement2.setInt(1, unlock ? 0 : getCurrentSeconds());
-                        statement2.setBlob(2, new ByteArrayInputStream(plugin.getStorageManager().toBytes(playerData)));
-                        statement2.setString(3, uuid.toString());
-                        statement2.executeUpdate();
-                    } catch (SQLException e) {
-                        plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
-                    }
-                    future.complete(true);
-                } else {
-                    insertPlayerData(uuid, playerData, !unlock, connection);
-                    future.complete(true);
-                }
+        plugin.getScheduler().async(TaskCategory.STORAGE).execute(() -> {
+            try (Connection connection = getConnection()) {
+                upsert(connection, uuid, plugin.getStorageManager().toBytes(playerData), unlock);
+                future.complete(true);
             } catch (SQLException e) {
-                plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
+                plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
+                future.complete(false);
             }
         });
         return future;
@@ -269,7 +427,7 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
     public Set<UUID> getUniqueUsers() {
         Set<UUID> uuids = new HashSet<>();
         try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_ALL_UUID, getTableName("data")))) {
+             PreparedStatement statement = connection.prepareStatement(sql().selectAllUUID)) {
             try (ResultSet rs = statement.executeQuery()) {
                 while (rs.next()) {
                     UUID uuid = UUID.fromString(rs.getString("uuid"));
@@ -282,14 +440,39 @@ public abstract class AbstractSQLDatabase extends AbstractStorage {
         return uuids;
     }
 
+    /**
+     * The SQL statements of a database, with the table name filled in.
+     */
+    protected static class Statements {
+
+        private final String table;
+        protected final String selectByUUID;
+        protected final String selectAllUUID;
+        protected final String upsert;
+        protected final String lockByUUID;
+        protected final String tryLock;
+
+        private Statements(String table, String upsertTemplate) {
+            this.table = table;
+            this.selectByUUID = String.format(SqlConstants.SQL_SELECT_BY_UUID, table);
+            this.selectAllUUID = String.format(SqlConstants.SQL_SELECT_ALL_UUID, table);
+            this.upsert = String.format(upsertTemplate, table);
+            this.lockByUUID = String.format(SqlConstants.SQL_LOCK_BY_UUID, table);
+            this.tryLock = String.format(SqlConstants.SQL_TRY_LOCK_BY_UUID, table);
+        }
+    }
+
     /**
      * Constants defining SQL statements used for database operations.
      */
     public static class SqlConstants {
         public static final String SQL_SELECT_BY_UUID = "SELECT * FROM `%s` WHERE `uuid` = ?";
         public static final String SQL_SELECT_ALL_UUID = "SELECT uuid FROM `%s`";
-        public static final String SQL_UPDATE_BY_UUID = "UPDATE `%s` SET `lock` = ?, `data` = ? WHERE `uuid` = ?";
         public static final String SQL_LOCK_BY_UUID = "UPDATE `%s` SET `lock` = ? WHERE `uuid` = ?";
-        public static final String SQL_INSERT_DATA_BY_UUID = "INSERT INTO `%s`(`uuid`, `lock`, `data`) VALUES(?, ?, ?)";
+        // takes the lock if it is free or expired
+        public static final String SQL_TRY_LOCK_BY_UUID = "UPDATE `%s` SET `lock` = ? WHERE `uuid` = ? AND (`lock` = 0 OR `lock` < ?)";
+        public static final String SQL_UPSERT_MYSQL = "INSERT INTO `%s`(`uuid`, `lock`, `data`) VALUES(?, ?, ?) ON DUPLICATE KEY UPDATE `lock` = VALUES(`lock`), `data` = VALUES(`data`)";
+        public static final String SQL_UPSERT_SQLITE = "INSERT INTO `%s`(`uuid`, `lock`, `data`) VALUES(?, ?, ?) ON CONFLICT(`uuid`) DO UPDATE SET `lock` = excluded.`lock`, `data` = excluded.`data`";
+        public static final String SQL_UPSERT_H2 = "MERGE INTO `%s`(`uuid`, `lock`, `data`) KEY(`uuid`) VALUES(?, ?, ?)";
     }
 }
@@ -28,9 +28,9 @@ import java.sql.Connection;
 import java.util.EnumSet;
 
 /**
- * An implementation of AbstractSQLDatabase that uses the H2 embedded database for player data storage.
+ * An implementation of AbstractEmbeddedDatabase that uses the H2 embedded database for player data storage.
  */
-public class H2Provider extends AbstractSQLDatabase {
+public class H2Provider extends AbstractEmbeddedDatabase {
 
     private Object connectionPool;
     private Method disposeMethod;
@@ -61,10 +61,12 @@ public class H2Provider extends AbstractSQLDatabase {
         }
 
         super.createTableIfNotExist();
+        super.start("h2", config.getLong("H2.commit-interval", 10L));
     }
 
     @Override
     public void disable() {
+        super.stop();
         if (connectionPool != null) {
             try {
                 disposeMethod.invoke(connectionPool);
@@ -80,11 +82,16 @@ public class H2Provider extends AbstractSQLDatabase {
     }
 
     @Override
-    public Connection getConnection() {
+    protected Connection openConnection() {
         try {
             return (Connection) getConnectionMethod.invoke(connectionPool);
         } catch (ReflectiveOperationException e) {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    protected String getUpsertTemplate() {
+        return SqlConstants.SQL_UPSERT_H2;
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.database.sql;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the lease of this server on a database shared by several servers.
+ * The locks of player data refer to the lease of the server holding them instead of a time, so that one query
+ * renews all of them, and the locks of a server that stops are released as soon as its lease expires.
+ * Every time a lock changes hands its fencing token is increased, and the writes made with an older token
+ * are rejected, so that a server that lost its lease can't overwrite the data taken over by another one.
+ * The times are those of the database, so that the clocks of the servers don't matter.
+ */
+public class LeaseManager {
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final AbstractSQLDatabase database;
+    private final int duration;
+    private final String dataTable;
+    private final String leaseTable;
+    // the fencing tokens of the locks held by this server
+    private final ConcurrentHashMap<UUID, Long> tokens = new ConcurrentHashMap<>();
+    private volatile long lease;
+    // the lease is renewed on its own thread, so that it doesn't wait behind the database I/O it protects
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Creates a lease manager.
+     *
+     * @param plugin   the plugin
+     * @param database the database
+     * @param duration the time in seconds a lease lasts without being renewed
+     */
+    public LeaseManager(BukkitCustomFishingPlugin plugin, AbstractSQLDatabase database, int duration) {
+        this.plugin = plugin;
+        this.database = database;
+        this.duration = Math.max(3, duration);
+        this.dataTable = database.getTableName("data");
+        this.leaseTable = database.getTableName("lease");
+    }
+
+    /**
+     * Adds the lease columns to the tables created by the older versions, takes a lease and starts renewing it.
+     */
+    public void start() {
+        try (Connection connection = database.getConnection()) {
+            migrate(connection);
+            this.lease = acquire(connection);
+        } catch (SQLException e) {
+            plugin.getPluginLogger().severe("Failed to take a lease on the database", e);
+        }
+        long period = TimeUnit.SECONDS.toMillis(duration) / 3;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cf-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops renewing the lease and gives it up, which releases the locks still referring to it.
+     */
+    public void stop() {
+        if (heartbeat != null) heartbeat.shutdownNow();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM `" + leaseTable + "` WHERE `id` = ?")) {
+            statement.setLong(1, lease);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getPluginLogger().warn("Failed to give up the lease on the database", e);
+        }
+        tokens.clear();
+    }
+
+    /**
+     * Gets the time a lease lasts without being renewed.
+     *
+     * @return the time in seconds
+     */
+    public int duration() {
+        return duration;
+    }
+
+    /**
+     * Takes the lock of a player's data if it is free, held by a server whose lease expired, or already held by this server.
+     *
+     * @param connection the connection
+     * @param uuid       the UUID of the player
+     * @param now        the current time in seconds, stored for the older versions
+     * @return true if the lock is taken, false if the data doesn't exist or is locked by another server
+     * @throws SQLException if the lock can't be updated
+     */
+    public boolean tryLock(Connection connection, UUID uuid, int now) throws SQLException {
+        return lock(connection, uuid, now, false);
+    }
+
+    /**
+     * Sets or clears the lock of a player's data without checking who holds it.
+     * Taking the lock goes through the same fencing as {@link #tryLock(Connection, UUID, int)}, so that the writes
+     * still in flight from the previous holder are rejected.
+     *
+     * @param connection the connection
+     * @param uuid       the UUID of the player
+     * @param lock       whether to lock the data
+     * @param now        the current time in seconds, stored for the older versions
+     * @throws SQLException if the lock can't be updated
+     */
+    public void setLock(Connection connection, UUID uuid, boolean lock, int now) throws SQLException {
+        if (lock) {
+            lock(connection, uuid, now, true);
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE `" + dataTable + "` SET `lock` = 0, `lease` = 0 WHERE `uuid` = ?")) {
+            statement.setString(1, uuid.toString());
+            statement.executeUpdate();
+        }
+        tokens.remove(uuid);
+    }
+
+    /**
+     * Gets the fencing token of the lock held by this server on a player's data.
+     *
+     * @param uuid the UUID of the player
+     * @return the token, or null if this server doesn't hold the lock
+     */
+    public Long token(UUID uuid) {
+        return tokens.get(uuid);
+    }
+
+    /**
+     * Checks whether the lock of a player's data is still held with the given token.
+     *
+     * @param connection the connection
+     * @param uuid       the UUID of the player
+     * @param token      the fencing token
+     * @return true if the token is the current one
+     * @throws SQLException if the token can't be read
+     */
+    public boolean holds(Connection connection, UUID uuid, long token) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT `token` FROM `" + dataTable + "` WHERE `uuid` = ?")) {
+            statement.setString(1, uuid.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getLong(1) == token;
+            }
+        }
+    }
+
+    /**
+     * Gets the statement writing the data of a player only if the lock is still held with the given token.
+     * The parameters are the data, the lock, the lease, the UUID and the token.
+     *
+     * @return the statement
+     */
+    public String fencedWrite() {
+        return "UPDATE `" + dataTable + "` SET `data` = ?, `lock` = ?, `lease` = ? WHERE `uuid` = ? AND `token` = ?";
+    }
+
+    /**
+     * Gets the lease to store along with the data written by this server.
+     *
+     * @param unlock whether the data is unlocked
+     * @return the lease
+     */
+    public long lease(boolean unlock) {
+        return unlock ? 0 : lease;
+    }
+
+    /**
+     * Called once the data of a player is written.
+     *
+     * @param uuid   the UUID of the player
+     * @param token  the token the data was written with
+     * @param unlock whether the data was unlocked
+     */
+    public void written(UUID uuid, long token, boolean unlock) {
+        if (unlock) tokens.remove(uuid, token);
+    }
+
+    private boolean lock(Connection connection, UUID uuid, int now, boolean force) throws SQLException {
+        long lease = this.lease;
+        String sql = "UPDATE `" + dataTable + "` SET `token` = CASE WHEN `lease` = ? THEN `token` ELSE `token` + 1 END, `lease` = ?, `lock` = ? WHERE `uuid` = ?";
+        if (!force) {
+            sql += " AND (`lease` = 0 OR `lease` = ? OR `lease` NOT IN (SELECT `id` FROM `" + leaseTable + "` WHERE `expires` >= UNIX_TIMESTAMP()))";
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lease);
+            statement.setLong(2, lease);
+            statement.setInt(3, now);
+            statement.setString(4, uuid.toString());
+            if (!force) statement.setLong(5, lease);
+            if (statement.executeUpdate() == 0) return false;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT `token` FROM `" + dataTable + "` WHERE `uuid` = ?")) {
+            statement.setString(1, uuid.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) return false;
+                tokens.put(uuid, rs.getLong(1));
+                return true;
+            }
+        }
+    }
+
+    private void renew() {
+        try (Connection connection = database.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE `" + leaseTable + "` SET `expires` = UNIX_TIMESTAMP() + ? WHERE `id` = ? AND `expires` >= UNIX_TIMESTAMP()")) {
+                statement.setInt(1, duration);
+                statement.setLong(2, lease);
+                if (statement.executeUpdate() > 0) return;
+            }
+            // the lease expired, the locks not taken by other servers yet are moved to a new one
+            long previous = lease;
+            long next = acquire(connection);
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE `" + dataTable + "` SET `lease` = ? WHERE `lease` = ?")) {
+                statement.setLong(1, next);
+                statement.setLong(2, previous);
+                statement.executeUpdate();
+            }
+            this.lease = next;
+            plugin.getPluginLogger().warn("The lease on the database expired before being renewed. The data locked by other servers in the meantime can no longer be saved by this server.");
+        } catch (SQLException | RuntimeException e) {
+            // an exception escaping would cancel the renewals
+            plugin.getPluginLogger().warn("Failed to renew the lease on the database", e);
+        }
+    }
+
+    private long acquire(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // the leases of the servers stopped long ago
+            statement.executeUpdate("DELETE FROM `" + leaseTable + "` WHERE `expires` < UNIX_TIMESTAMP() - 86400");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO `" + leaseTable + "`(`server`, `expires`) VALUES(?, UNIX_TIMESTAMP() + ?)", Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, plugin.getStorageManager().getServerID());
+            statement.setInt(2, duration);
+            statement.executeUpdate();
+            try (ResultSet rs = statement.getGeneratedKeys()) {
+                if (!rs.next()) throw new SQLException("No lease ID is generated");
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private void migrate(Connection connection) throws SQLException {
+        boolean hasLease = false;
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, dataTable, "lease")) {
+            if (rs.next()) hasLease = true;
+        }
+        if (hasLease) return;
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE `" + dataTable + "` ADD COLUMN `lease` BIGINT NOT NULL DEFAULT 0, ADD COLUMN `token` BIGINT NOT NULL DEFAULT 0");
+        }
+        plugin.getPluginLogger().info("Added the lease columns to " + dataTable);
+    }
+}
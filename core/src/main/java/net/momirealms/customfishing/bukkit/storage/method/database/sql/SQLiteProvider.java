@@ -17,15 +17,10 @@
 
 package net.momirealms.customfishing.bukkit.storage.method.database.sql;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import dev.dejvokep.boostedyaml.YamlDocument;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.storage.StorageType;
-import net.momirealms.customfishing.api.storage.data.PlayerData;
-import net.momirealms.customfishing.api.storage.user.UserData;
 import net.momirealms.customfishing.common.dependency.Dependency;
-import org.bukkit.Bukkit;
-import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.lang.reflect.Constructor;
@@ -33,18 +28,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.EnumSet;
+import java.util.Properties;
 
-public class SQLiteProvider extends AbstractSQLDatabase {
+/**
+ * An implementation of AbstractEmbeddedDatabase that uses the SQLite database in WAL mode for player data storage.
+ */
+public class SQLiteProvider extends AbstractEmbeddedDatabase {
 
-    private Connection connection;
     private File databaseFile;
     private Constructor<?> connectionConstructor;
-    private ExecutorService executor;
 
     public SQLiteProvider(BukkitCustomFishingPlugin plugin) {
         super(plugin);
@@ -60,24 +53,15 @@ public class SQLiteProvider extends AbstractSQLDatabase {
             throw new RuntimeException(e);
         }
 
-        this.executor = Executors.newFixedThreadPool(1, new ThreadFactoryBuilder().setNameFormat("cf-sqlite-%d").build());
-
         this.databaseFile = new File(plugin.getDataFolder(), config.getString("SQLite.file", "data") + ".db");
         super.tablePrefix = config.getString("SQLite.table-prefix", "customfishing");
         super.createTableIfNotExist();
+        super.start("sqlite", config.getLong("SQLite.commit-interval", 10L));
     }
 
     @Override
     public void disable() {
-        if (executor != null) {
-            executor.shutdown();
-        }
-        try {
-            if (connection != null && !connection.isClosed())
-                connection.close();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        super.stop();
     }
 
     @Override
@@ -86,23 +70,22 @@ public class SQLiteProvider extends AbstractSQLDatabase {
     }
 
     /**
-     * Get a connection to the SQLite database.
+     * Open a connection to the SQLite database.
+     * The readers don't block the writer in WAL mode, and a commit only syncs the log at checkpoints.
      *
      * @return A database connection.
      * @throws SQLException If there is an error establishing a connection.
      */
     @Override
-    public Connection getConnection() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            return connection;
-        }
+    protected Connection openConnection() throws SQLException {
         try {
             var properties = new Properties();
             properties.setProperty("foreign_keys", Boolean.toString(true));
             properties.setProperty("encoding", "'UTF-8'");
-            properties.setProperty("synchronous", "FULL");
-            connection = (Connection) this.connectionConstructor.newInstance("jdbc:sqlite:" + databaseFile.toString(), databaseFile.toString(), properties);
-            return connection;
+            properties.setProperty("journal_mode", "WAL");
+            properties.setProperty("synchronous", "NORMAL");
+            properties.setProperty("busy_timeout", "5000");
+            return (Connection) this.connectionConstructor.newInstance("jdbc:sqlite:" + databaseFile.toString(), databaseFile.toString(), properties);
         } catch (ReflectiveOperationException e) {
             if (e.getCause() instanceof SQLException) {
                 throw (SQLException) e.getCause();
@@ -111,136 +94,18 @@ public class SQLiteProvider extends AbstractSQLDatabase {
         }
     }
 
-    @SuppressWarnings("DuplicatedCode")
-    @Override
-    public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
-        var future = new CompletableFuture<Optional<PlayerData>>();
-        if (executor == null) executor = this.executor;
-        executor.execute(() -> {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
-        ) {
-            statement.setString(1, uuid.toString());
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                final byte[] dataByteArray = rs.getBytes("data");
-                PlayerData data = plugin.getStorageManager().fromBytes(dataByteArray);
-                data.uuid(uuid);
-                int lockValue = rs.getInt(2);
-                if (lockValue != 0 && getCurrentSeconds() - 30 <= lockValue) {
-                    connection.close();
-                    data.locked(true);
-                    future.complete(Optional.of(data));
-                    return;
-                }
-                if (lock) lockOrUnlockPlayerData(uuid, true);
-                future.complete(Optional.of(data));
-            } else if (Bukkit.getPlayer(uuid) != null) {
-                var data = PlayerData.empty();
-                data.uuid(uuid);
-                insertPlayerData(uuid, data, lock, connection);
-                future.complete(Optional.of(data));
-            } else {
-                future.complete(Optional.empty());
-            }
-        } catch (SQLException e) {
-            plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
-            future.completeExceptionally(e);
-        }
-        });
-        return future;
-    }
-
-    @Override
-    public CompletableFuture<Boolean> updateOrInsertPlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
-        var future = new CompletableFuture<Boolean>();
-        executor.execute(() -> {
-            try (
-                    Connection connection = getConnection();
-                    PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_SELECT_BY_UUID, getTableName("data")))
-            ) {
-                statement.setString(1, uuid.toString());
-                ResultSet rs = statement.executeQuery();
-                if (rs.next()) {
-                    try (
-                        PreparedStatement statement2 = connection.prepareStatement(String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data")))
-                    ) {
-                        statement2.setInt(1, unlock ? 0 : getCurrentSeconds());
-                        statement2.setBytes(2, plugin.getStorageManager().toBytes(playerData));
-                        statement2.setString(3, uuid.toString());
-                        statement2.executeUpdate();
-                    } catch (SQLException e) {
-                        plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
-                    }
-                    future.complete(true);
-                } else {
-                    insertPlayerData(uuid, playerData, !unlock, connection);
-                    future.complete(true);
-                }
-            } catch (SQLException e) {
-                plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
-            }
-        });
-        return future;
-    }
-
     @Override
-    public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
-        var future = new CompletableFuture<Boolean>();
-        executor.execute(() -> {
-        try (
-            Connection connection = getConnection();
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data")))
-        ) {
-            statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-            statement.setBytes(2, playerData.toBytes());
-            statement.setString(3, uuid.toString());
-            statement.executeUpdate();
-            future.complete(true);
-        } catch (SQLException e) {
-            plugin.getPluginLogger().warn("Failed to update " + uuid + "'s data.", e);
-            future.completeExceptionally(e);
-        }
-        });
-        return future;
+    protected void setData(PreparedStatement statement, int index, byte[] data) throws SQLException {
+        statement.setBytes(index, data);
     }
 
     @Override
-    public void updateManyPlayersData(Collection<? extends UserData> users, boolean unlock) {
-        String sql = String.format(SqlConstants.SQL_UPDATE_BY_UUID, getTableName("data"));
-        try (Connection connection = getConnection()) {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                for (UserData user : users) {
-                    statement.setInt(1, unlock ? 0 : getCurrentSeconds());
-                    statement.setBytes(2, plugin.getStorageManager().toBytes(user.toPlayerData()));
-                    statement.setString(3, user.uuid().toString());
-                    statement.addBatch();
-                }
-                statement.executeBatch();
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                plugin.getPluginLogger().warn("Failed to update bag data for online players", e);
-            }
-        } catch (SQLException e) {
-            plugin.getPluginLogger().warn("Failed to get connection when saving online players' data", e);
-        }
+    protected byte[] getData(ResultSet rs) throws SQLException {
+        return rs.getBytes("data");
     }
 
     @Override
-    protected void insertPlayerData(UUID uuid, PlayerData playerData, boolean lock, @Nullable Connection previous) {
-        try (
-            Connection connection = previous == null ? getConnection() : previous;
-            PreparedStatement statement = connection.prepareStatement(String.format(SqlConstants.SQL_INSERT_DATA_BY_UUID, getTableName("data")))
-        ) {
-            statement.setString(1, uuid.toString());
-            statement.setInt(2, lock ? getCurrentSeconds() : 0);
-            statement.setBytes(3, plugin.getStorageManager().toBytes(playerData));
-            statement.execute();
-        } catch (SQLException e) {
-            plugin.getPluginLogger().warn("Failed to insert " + uuid + "'s data.", e);
-        }
+    protected String getUpsertTemplate() {
+        return SqlConstants.SQL_UPSERT_SQLITE;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,260 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.database.sql;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread that owns the only writing connection of an embedded database.
+ * The writes queued within the commit interval are committed together in one transaction,
+ * so that the saves from the autosave, the quits and the commands don't pay one transaction each.
+ */
+public class SingleWriter {
+
+    // the maximum number of writes in one transaction
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final BukkitCustomFishingPlugin plugin;
+    private final ConnectionFactory connectionFactory;
+    private final long commitIntervalNanos;
+    private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    // the future of the last queued write, completed once all the writes queued so far are committed
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private Connection connection;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Starts a writer.
+     *
+     * @param plugin            the plugin
+     * @param name              the name of the thread
+     * @param connectionFactory opens the writing connection
+     * @param commitInterval    the time in milliseconds to wait for more writes before committing
+     */
+    public SingleWriter(BukkitCustomFishingPlugin plugin, String name, ConnectionFactory connectionFactory, long commitInterval) {
+        this.plugin = plugin;
+        this.connectionFactory = connectionFactory;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, commitInterval));
+        this.thread = new Thread(this::run, name);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a write.
+     *
+     * @param write the write
+     * @return a future completed once the write is committed
+     */
+    public CompletableFuture<Void> submit(Write write) {
+        Task task = new Task(write);
+        synchronized (this) {
+            if (!running) {
+                return CompletableFuture.failedFuture(new IllegalStateException("The writer is stopped"));
+            }
+            queue.add(task);
+            lastWrite = task.future;
+        }
+        return task.future;
+    }
+
+    /**
+     * Waits for the writes queued so far to be committed, so that a read following them sees their changes.
+     */
+    public void awaitWrites() {
+        try {
+            lastWrite.join();
+        } catch (Exception ignored) {
+            // the failed writes are reported by their own futures
+        }
+    }
+
+    /**
+     * Stops accepting writes, commits the queued ones, and closes the connection.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            running = false;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the stats of the writer.
+     *
+     * @return the stats
+     */
+    public Stats stats() {
+        long writes = this.writes.get();
+        return new Stats(
+                writes,
+                batches.get(),
+                queue.size(),
+                writes == 0 ? 0 : totalLatencyNanos.get() / 1_000_000d / writes,
+                maxLatencyNanos.get() / 1_000_000d
+        );
+    }
+
+    private void run() {
+        ArrayList<Task> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Task first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + commitIntervalNanos;
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long wait = deadline - System.nanoTime();
+                    Task next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                // commit what was taken, the rest is committed on the next loops
+                commit(batch);
+            } catch (RuntimeException e) {
+                // the writer must outlive any failure, or the writes queued after it would never complete
+                plugin.getPluginLogger().warn("Unexpected error in the database writer", e);
+                for (Task task : batch) task.future.completeExceptionally(e);
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            if (connection != null && !connection.isClosed())
+                connection.close();
+        } catch (SQLException e) {
+            plugin.getPluginLogger().warn("Failed to close the writing connection", e);
+        }
+    }
+
+    private void commit(List<Task> batch) {
+        if (batch.isEmpty()) return;
+        Connection connection;
+        try {
+            connection = connection();
+        } catch (SQLException | RuntimeException e) {
+            plugin.getPluginLogger().warn("Failed to get the writing connection", e);
+            for (Task task : batch) task.future.completeExceptionally(e);
+            return;
+        }
+        try {
+            for (Task task : batch) {
+                task.write.execute(connection);
+            }
+            connection.commit();
+            for (Task task : batch) complete(task);
+            batches.incrementAndGet();
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection);
+            // a failed write shouldn't take the others down, they are committed one by one instead
+            for (Task task : batch) {
+                try {
+                    task.write.execute(connection);
+                    connection.commit();
+                    complete(task);
+                } catch (SQLException | RuntimeException ex) {
+                    rollback(connection);
+                    task.future.completeExceptionally(ex);
+                }
+                batches.incrementAndGet();
+            }
+        }
+    }
+
+    private void complete(Task task) {
+        long latency = System.nanoTime() - task.queuedTime;
+        writes.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        task.future.complete(null);
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException | RuntimeException e) {
+            plugin.getPluginLogger().warn("Failed to roll back the writes", e);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = connectionFactory.open();
+            connection.setAutoCommit(false);
+        }
+        return connection;
+    }
+
+    /**
+     * A write run on the writing connection. It must not commit or close the connection.
+     */
+    @FunctionalInterface
+    public interface Write {
+
+        void execute(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * The stats of a writer.
+     *
+     * @param writes               the number of committed writes
+     * @param batches              the number of transactions
+     * @param queueDepth           the number of writes waiting in the queue
+     * @param averageLatencyMillis the average time from queuing to commit
+     * @param maxLatencyMillis     the longest time from queuing to commit
+     */
+    public record Stats(long writes, long batches, int queueDepth, double averageLatencyMillis, double maxLatencyMillis) {
+    }
+
+    private static class Task {
+
+        private final Write write;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long queuedTime = System.nanoTime();
+
+        private Task(Write write) {
+            this.write = write;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.file;
+
+import dev.dejvokep.boostedyaml.YamlDocument;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.storage.StorageType;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.bukkit.storage.method.AbstractStorage;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A data storage implementation that appends player data to segmented log files, and keeps the location
+ * of the latest data of every player in memory.
+ * A record is made of its length, the CRC32 of its body, and the body holding the UUID and the data, so that
+ * a record torn by a crash is detected and dropped when the logs are read on startup.
+ * All the writes are made by one thread, which syncs the file once for all the records it has appended.
+ * The closed segments mostly made of outdated data are compacted in the background.
+ */
+public class LogProvider extends AbstractStorage {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int UUID_SIZE = 16;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final String EXTENSION = ".log";
+
+    private final ConcurrentHashMap<UUID, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    // held while reading a segment, so that it isn't deleted by the compaction meanwhile
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final LinkedBlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private File folder;
+    private long segmentSize;
+    private double compactionThreshold;
+    private Thread writer;
+    private SchedulerTask compactionTask;
+    private volatile boolean running;
+    private volatile boolean compactionRequested;
+    // only used by the writer thread after initialization
+    private Segment active;
+
+    public LogProvider(BukkitCustomFishingPlugin plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public StorageType getStorageType() {
+        return StorageType.LOG;
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    @Override
+    public void initialize(YamlDocument config) {
+        this.folder = new File(plugin.getDataFolder(), config.getString("LOG.folder", "log"));
+        this.segmentSize = config.getLong("LOG.segment-size", 16L) * 1024 * 1024;
+        this.compactionThreshold = config.getDouble("LOG.compaction-threshold", 0.5);
+        if (!folder.exists()) folder.mkdirs();
+        try {
+            recover();
+            this.active = segments.isEmpty() ? createSegment(1) : segments.get(Collections.max(segments.keySet()));
+        } catch (IOException e) {
+            plugin.getPluginLogger().severe("Failed to read the data logs", e);
+            return;
+        }
+        this.running = true;
+        this.writer = new Thread(this::run, "cf-log-writer");
+        this.writer.start();
+        long interval = config.getLong("LOG.compaction-interval", 10L);
+        this.compactionTask = plugin.getScheduler().asyncRepeating(TaskCategory.STORAGE, () -> compactionRequested = true, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void disable() {
+        if (compactionTask != null) compactionTask.cancel();
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                plugin.getPluginLogger().warn("Failed to close " + segment.file.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<PlayerData>> getPlayerData(UUID uuid, boolean lock, Executor executor) {
+        var future = new CompletableFuture<Optional<PlayerData>>();
+        if (executor == null) executor = plugin.getScheduler().async(TaskCategory.STORAGE);
+        executor.execute(() -> {
+            try {
+                byte[] data = read(uuid);
+                PlayerData playerData;
+                if (data != null) {
+                    playerData = plugin.getStorageManager().fromBytes(data);
+                    playerData.uuid(uuid);
+                } else if (Bukkit.getPlayer(uuid) != null) {
+                    playerData = PlayerData.empty();
+                    playerData.uuid(uuid);
+                } else {
+                    playerData = null;
+                }
+                future.complete(Optional.ofNullable(playerData));
+            } catch (IOException e) {
+                plugin.getPluginLogger().warn("Failed to get " + uuid + "'s data.", e);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updatePlayerData(UUID uuid, PlayerData playerData, boolean unlock) {
+        return append(Map.of(uuid, plugin.getStorageManager().toBytes(playerData)));
+    }
+
+    @Override
+    public Set<UUID> upsertManyPlayersData(Map<UUID, PlayerData> data, boolean unlock) {
+        HashSet<UUID> failed = new HashSet<>();
+        LinkedHashMap<UUID, byte[]> serialized = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PlayerData> entry : data.entrySet()) {
+            byte[] bytes = plugin.getStorageManager().toBytes(entry.getValue());
+            if (fits(entry.getKey(), bytes)) serialized.put(entry.getKey(), bytes);
+            else failed.add(entry.getKey());
+        }
+        if (!serialized.isEmpty() && !append(serialized).join()) {
+            failed.addAll(serialized.keySet());
+        }
+        return failed;
+    }
+
+    @Override
+    public Set<UUID> getUniqueUsers() {
+        return new HashSet<>(index.keySet());
+    }
+
+    private CompletableFuture<Boolean> append(Map<UUID, byte[]> data) {
+        if (!running) {
+            plugin.getPluginLogger().warn("Failed to save the data of " + data.size() + " players as the data logs are closed");
+            return CompletableFuture.completedFuture(false);
+        }
+        for (Map.Entry<UUID, byte[]> entry : data.entrySet()) {
+            if (!fits(entry.getKey(), entry.getValue())) return CompletableFuture.completedFuture(false);
+        }
+        Append append = new Append(data);
+        queue.add(append);
+        return append.future;
+    }
+
+    // a larger record would be taken for a broken one and dropped on the next startup
+    private boolean fits(UUID uuid, byte[] data) {
+        if (data.length <= MAX_RECORD_SIZE - UUID_SIZE) return true;
+        plugin.getPluginLogger().warn("Failed to save " + uuid + "'s data as it exceeds the maximum record size of " + MAX_RECORD_SIZE + " bytes");
+        return false;
+    }
+
+    private byte[] read(UUID uuid) throws IOException {
+        // the record may be moved by the compaction between getting its location and reading it
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Location location = index.get(uuid);
+            if (location == null) return null;
+            segmentLock.readLock().lock();
+            try {
+                Segment segment = segments.get(location.segment);
+                if (segment == null) continue;
+                ByteBuffer record = ByteBuffer.allocate(location.length);
+                readFully(segment.channel, record, location.offset);
+                record.flip();
+                int length = record.getInt();
+                int crc = record.getInt();
+                if (length != location.length - HEADER_SIZE || crc(record.array(), HEADER_SIZE, length) != crc) {
+                    throw new IOException("The record of " + uuid + " in " + segment.file.getName() + " is broken");
+                }
+                return Arrays.copyOfRange(record.array(), HEADER_SIZE + UUID_SIZE, location.length);
+            } finally {
+                segmentLock.readLock().unlock();
+            }
+        }
+        return null;
+    }
+
+    private void run() {
+        ArrayList<Append> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Append first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (compactionRequested && running) {
+                compactionRequested = false;
+                try {
+                    compact();
+                } catch (IOException e) {
+                    plugin.getPluginLogger().warn("Failed to compact the data logs", e);
+                }
+            }
+        }
+    }
+
+    private void write(List<Append> batch) {
+        try {
+            for (Append append : batch) {
+                for (Map.Entry<UUID, byte[]> entry : append.data.entrySet()) {
+                    appendRecord(encode(entry.getKey(), entry.getValue()), entry.getKey());
+                }
+            }
+            // one sync for all the records of the batch
+            active.channel.force(false);
+            for (Append append : batch) append.future.complete(true);
+        } catch (IOException e) {
+            plugin.getPluginLogger().warn("Failed to write the data logs", e);
+            for (Append append : batch) append.future.complete(false);
+        }
+    }
+
+    private void appendRecord(ByteBuffer record, UUID uuid) throws IOException {
+        int length = record.remaining();
+        if (active.size > 0 && active.size + length > segmentSize) {
+            active.channel.force(false);
+            active = createSegment(active.id + 1);
+        }
+        long offset = active.size;
+        writeFully(active.channel, record, offset);
+        active.size += length;
+        locate(uuid, new Location(active.id, offset, length));
+    }
+
+    private void compact() throws IOException {
+        HashSet<Integer> targets = new HashSet<>();
+        for (Segment segment : segments.values()) {
+            if (segment == active) continue;
+            if (segment.size == 0 || (double) segment.liveBytes / segment.size < compactionThreshold) {
+                targets.add(segment.id);
+            }
+        }
+        if (targets.isEmpty()) return;
+        long moved = 0;
+        for (Map.Entry<UUID, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (!targets.contains(location.segment)) continue;
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            readFully(segments.get(location.segment).channel, record, location.offset);
+            record.flip();
+            appendRecord(record, entry.getKey());
+            moved += location.length;
+        }
+        // the moved records must be on the disk before their previous copies are deleted
+        active.channel.force(false);
+        segmentLock.writeLock().lock();
+        try {
+            for (int id : targets) {
+                Segment segment = segments.remove(id);
+                segment.channel.close();
+                Files.deleteIfExists(segment.file.toPath());
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        long movedBytes = moved;
+        plugin.debug(() -> "Compacted " + targets.size() + " data log segments, " + movedBytes + " bytes moved");
+    }
+
+    // reads all the segments to rebuild the index, and drops the records torn by a crash
+    private void recover() throws IOException {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) return;
+        TreeMap<Integer, File> sorted = new TreeMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                sorted.put(Integer.parseInt(name.substring(0, name.length() - EXTENSION.length())), file);
+            } catch (NumberFormatException e) {
+                plugin.getPluginLogger().warn("Ignored the unknown data log " + name);
+            }
+        }
+        for (Map.Entry<Integer, File> entry : sorted.entrySet()) {
+            Segment segment = openSegment(entry.getKey(), entry.getValue());
+            segments.put(segment.id, segment);
+            scan(segment);
+        }
+    }
+
+    private void scan(Segment segment) throws IOException {
+        FileChannel channel = segment.channel;
+        long size = channel.size();
+        long position = 0;
+        // the end of the last valid record, the segment is truncated there
+        long end = 0;
+        ArrayList<Long> skipped = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length < UUID_SIZE || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) break;
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(channel, body, position + HEADER_SIZE);
+            if (crc(body.array(), 0, length) != crc) {
+                // a damaged record is stepped over, as the records after it are still valid if its length is intact
+                skipped.add(position);
+                position += HEADER_SIZE + length;
+                continue;
+            }
+            UUID uuid = new UUID(body.getLong(0), body.getLong(8));
+            segment.size = position + HEADER_SIZE + length;
+            locate(uuid, new Location(segment.id, position, HEADER_SIZE + length));
+            position = segment.size;
+            end = position;
+        }
+        for (long offset : skipped) {
+            if (offset < end) plugin.getPluginLogger().warn("Skipped a broken record at " + offset + " in " + segment.file.getName() + ", the previous data of its player is used instead");
+        }
+        if (end < size) {
+            plugin.getPluginLogger().warn("Discarded " + (size - end) + " bytes of broken records at the end of " + segment.file.getName());
+            channel.truncate(end);
+            channel.force(true);
+        }
+        segment.size = end;
+    }
+
+    private void locate(UUID uuid, Location location) {
+        Location previous = index.put(uuid, location);
+        if (previous != null) {
+            Segment segment = segments.get(previous.segment);
+            if (segment != null) segment.liveBytes -= previous.length;
+        }
+        segments.get(location.segment).liveBytes += location.length;
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = openSegment(id, new File(folder, String.format("%08d", id) + EXTENSION));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(int id, File file) throws IOException {
+        return new Segment(id, file, FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    private static ByteBuffer encode(UUID uuid, byte[] data) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + UUID_SIZE + data.length);
+        record.putInt(UUID_SIZE + data.length);
+        record.putInt(0);
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+        record.put(data);
+        record.putInt(4, crc(record.array(), HEADER_SIZE, UUID_SIZE + data.length));
+        record.flip();
+        return record;
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of the data log");
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private record Location(int segment, long offset, int length) {
+    }
+
+    private static class Segment {
+
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        // the size of the valid records, and the size of those still in the index
+        private long size;
+        private long liveBytes;
+
+        private Segment(int id, File file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private static class Append {
+
+        private final Map<UUID, byte[]> data;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Append(Map<UUID, byte[]> data) {
+            this.data = data;
+        }
+    }
+}
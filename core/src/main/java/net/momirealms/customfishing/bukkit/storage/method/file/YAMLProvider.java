@@ -76,7 +76,7 @@ public class YAMLProvider extends AbstractStorage {
         PlayerData playerData = PlayerData.builder()
                 .uuid(uuid)
                 .bag(new InventoryData(data.getString("bag", ""), data.getInt("size", 9)))
-                .earnings(new EarningData(data.getDouble("earnings"), data.getInt("date")))
+                .earnings(new EarningData(data.getDouble("earnings"), data.getInt("date"), getEarningsHistory(data.getSection("history"))))
                 .statistics(getStatistics(data.getSection("stats")))
                 .name(data.getString("name", ""))
                 .build();
@@ -89,8 +89,14 @@ public class YAMLProvider extends AbstractStorage {
         data.set("name", playerData.name());
         data.set("bag", playerData.bagData().serialized);
         data.set("size", playerData.bagData().size);
-        data.set("date", playerData.earningData().date);
-        data.set("earnings", playerData.earningData().earnings);
+        // a refreshed copy, so that the earnings of a previous day are not saved both as today's and in the history
+        EarningData earningData = playerData.earningData().copy();
+        data.set("date", earningData.date);
+        data.set("earnings", earningData.earnings);
+        ConfigurationSection historySection = data.createSection("history");
+        for (Map.Entry<String, Double> entry : earningData.history.entrySet()) {
+            historySection.set(entry.getKey(), entry.getValue());
+        }
         ConfigurationSection section = data.createSection("stats");
         ConfigurationSection amountSection = section.createSection("amount");
         ConfigurationSection sizeSection = section.createSection("size");
@@ -143,4 +149,17 @@ public class YAMLProvider extends AbstractStorage {
         }
         return new StatisticData(amountMap, sizeMap);
     }
+
+    private Map<String, Double> getEarningsHistory(Section section) {
+        LinkedHashMap<String, Double> history = new LinkedHashMap<>();
+        if (section == null) {
+            return history;
+        }
+        for (Map.Entry<String, Object> entry : section.getStringRouteMappedValues(false).entrySet()) {
+            if (entry.getValue() instanceof Number number) {
+                history.put(entry.getKey(), number.doubleValue());
+            }
+        }
+        return history;
+    }
 }
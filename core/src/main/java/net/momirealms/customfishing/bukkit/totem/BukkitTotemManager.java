@@ -33,6 +33,7 @@ import net.momirealms.customfishing.api.util.EventUtils;
 import net.momirealms.customfishing.api.util.SimpleLocation;
 import net.momirealms.customfishing.bukkit.util.LocationUtils;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -66,7 +67,7 @@ public class BukkitTotemManager implements TotemManager, Listener {
     @Override
     public void load() {
         Bukkit.getPluginManager().registerEvents(this, plugin.getBootstrap());
-        this.timerCheckTask = plugin.getScheduler().asyncRepeating(() -> {
+        this.timerCheckTask = plugin.getScheduler().asyncRepeating(TaskCategory.EFFECT, () -> {
             long time = System.currentTimeMillis();
             ArrayList<SimpleLocation> removed = new ArrayList<>();
             for (Map.Entry<SimpleLocation, ActivatedTotem> entry : activatedTotems.entrySet()) {
@@ -20,6 +20,7 @@ package net.momirealms.customfishing.bukkit.totem.particle;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.mechanic.totem.TotemParticle;
 import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
 import net.momirealms.customfishing.common.util.Pair;
 import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
@@ -65,7 +66,7 @@ public class ParticleSetting implements TotemParticle {
     @SuppressWarnings("DuplicatedCode")
     public SchedulerTask start(Location location, double radius) {
         World world = location.getWorld();
-        return BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(() -> {
+        return BukkitCustomFishingPlugin.getInstance().getScheduler().asyncRepeating(TaskCategory.EFFECT, () -> {
             for (Pair<Double, Double> range : ranges) {
                 for (double theta = range.left(); theta <= range.right(); theta += interval) {
                     double r = expressionHorizontal.setVariable("theta", theta).setVariable("radius", radius).evaluate();
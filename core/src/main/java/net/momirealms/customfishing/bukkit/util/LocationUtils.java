@@ -19,6 +19,10 @@ package net.momirealms.customfishing.bukkit.util;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.List;
 
 public class LocationUtils {
 
@@ -38,6 +42,21 @@ public class LocationUtils {
         );
     }
 
+    /**
+     * Gets the players within the given distance of a location, using the spatial lookup of the world.
+     *
+     * @param location The center
+     * @param range    The maximum distance
+     * @return The players in range
+     */
+    public static Collection<Player> getNearbyPlayers(Location location, double range) {
+        if (range < 0) return List.of();
+        double rangeSquared = range * range;
+        return location.getWorld().getNearbyPlayers(location, range).stream()
+                .filter(player -> player.getLocation().distanceSquared(location) <= rangeSquared)
+                .toList();
+    }
+
     public static Location getAnyLocationInstance() {
         return new Location(Bukkit.getWorlds().get(0), 0, 64, 0);
     }
@@ -3,5 +3,15 @@ CREATE TABLE IF NOT EXISTS `{prefix}_data`
     `uuid`       char(36)    NOT NULL UNIQUE,
     `lock`       INT         NOT NULL,
     `data`       longblob    NOT NULL,
+    `lease`      BIGINT      NOT NULL DEFAULT 0,
+    `token`      BIGINT      NOT NULL DEFAULT 0,
     PRIMARY KEY (`uuid`)
+);
+
+CREATE TABLE IF NOT EXISTS `{prefix}_lease`
+(
+    `id`         BIGINT      NOT NULL AUTO_INCREMENT,
+    `server`     VARCHAR(64) NOT NULL,
+    `expires`    BIGINT      NOT NULL,
+    PRIMARY KEY (`id`)
 );
\ No newline at end of file
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage;
+
+import dev.dejvokep.boostedyaml.YamlDocument;
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.mechanic.config.ConfigManager;
+import net.momirealms.customfishing.api.storage.StorageManager;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.common.helper.GsonHelper;
+import net.momirealms.customfishing.common.plugin.logging.PluginLogger;
+import net.momirealms.customfishing.common.plugin.scheduler.AbstractJavaScheduler;
+import net.momirealms.customfishing.common.plugin.scheduler.SchedulerTask;
+import net.momirealms.customfishing.common.plugin.scheduler.TaskCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A plugin stand-in for the storage tests. The scheduler runs the tasks on plain executors,
+ * the player data is serialized with Gson like the storage manager does, and the logs are printed.
+ */
+public final class StorageTestSupport {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(daemon("cf-test-async"));
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(daemon("cf-test-timer"));
+
+    private StorageTestSupport() {
+    }
+
+    /**
+     * Creates a plugin whose data folder is the given one, and makes it the plugin instance.
+     *
+     * @param dataFolder the data folder
+     * @return the plugin
+     */
+    @SuppressWarnings("unchecked")
+    public static BukkitCustomFishingPlugin plugin(File dataFolder) {
+        BukkitCustomFishingPlugin plugin = mock(BukkitCustomFishingPlugin.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getPluginLogger()).thenReturn(new PrintingLogger());
+
+        AbstractJavaScheduler<org.bukkit.Location> scheduler = mock(AbstractJavaScheduler.class);
+        when(scheduler.async()).thenReturn(EXECUTOR);
+        when(scheduler.async(any(TaskCategory.class))).thenReturn(EXECUTOR);
+        when(scheduler.asyncLater(any(TaskCategory.class), any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            ScheduledFuture<?> future = TIMER.schedule(() -> EXECUTOR.execute(invocation.getArgument(1)), invocation.getArgument(2), invocation.getArgument(3));
+            return (SchedulerTask) () -> future.cancel(false);
+        });
+        // the repeating tasks are driven by the tests themselves
+        when(scheduler.asyncRepeating(any(TaskCategory.class), any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(() -> {});
+        when(plugin.getScheduler()).thenReturn(scheduler);
+
+        StorageManager storageManager = mock(StorageManager.class);
+        when(storageManager.toBytes(any(PlayerData.class))).thenAnswer(invocation -> toBytes(invocation.getArgument(0)));
+        when(storageManager.fromBytes(any(byte[].class))).thenAnswer(invocation -> fromBytes(invocation.getArgument(0)));
+        when(plugin.getStorageManager()).thenReturn(storageManager);
+
+        ConfigManager configManager = mock(ConfigManager.class);
+        setField(ConfigManager.class, configManager, "serverGroup", "default");
+        setField(ConfigManager.class, configManager, "dataSaveInterval", 600);
+        setField(ConfigManager.class, null, "instance", configManager);
+        setField(BukkitCustomFishingPlugin.class, null, "instance", plugin);
+        return plugin;
+    }
+
+    /**
+     * Parses a storage config.
+     *
+     * @param yaml the YAML text
+     * @return the config
+     */
+    public static YamlDocument config(String yaml) {
+        try {
+            return YamlDocument.create(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates the data of a player that can be told apart by its name.
+     *
+     * @param uuid the UUID of the player
+     * @param name the name of the player
+     * @return the data
+     */
+    public static PlayerData data(UUID uuid, String name) {
+        return PlayerData.builder().uuid(uuid).name(name).build();
+    }
+
+    public static byte[] toBytes(PlayerData data) {
+        return GsonHelper.get().toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static PlayerData fromBytes(byte[] bytes) {
+        return GsonHelper.get().fromJson(new String(bytes, StandardCharsets.UTF_8), PlayerData.class);
+    }
+
+    private static void setField(Class<?> owner, Object target, String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to set " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class PrintingLogger implements PluginLogger {
+
+        @Override
+        public void info(String s) {
+            System.out.println("[INFO] " + s);
+        }
+
+        @Override
+        public void warn(String s) {
+            System.out.println("[WARN] " + s);
+        }
+
+        @Override
+        public void warn(String s, Throwable t) {
+            System.out.println("[WARN] " + s + ": " + t);
+        }
+
+        @Override
+        public void severe(String s) {
+            System.out.println("[SEVERE] " + s);
+        }
+
+        @Override
+        public void severe(String s, Throwable t) {
+            System.out.println("[SEVERE] " + s + ": " + t);
+        }
+    }
+}
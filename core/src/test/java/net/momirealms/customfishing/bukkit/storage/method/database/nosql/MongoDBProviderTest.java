@@ -0,0 +1,202 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.database.nosql;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Updates;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.api.storage.data.StatisticData;
+import net.momirealms.customfishing.bukkit.storage.StorageTestSupport;
+import org.bson.Document;
+import org.bson.UuidRepresentation;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the documents written by the MongoDB storage against an in-memory MongoDB server.
+ */
+class MongoDBProviderTest {
+
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID CAROL = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+
+    @TempDir
+    File dataFolder;
+    private MongoServer server;
+    private MongoClient client;
+    private MongoCollection<Document> collection;
+    private MongoDBProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        String uri = "mongodb://" + address.getHostString() + ":" + address.getPort();
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .uuidRepresentation(UuidRepresentation.STANDARD)
+                .build());
+        collection = client.getDatabase("minecraft").getCollection("customfishing_data");
+        provider = new MongoDBProvider(StorageTestSupport.plugin(dataFolder));
+        provider.initialize(StorageTestSupport.config("""
+                MongoDB:
+                  connection-uri: "%s"
+                  database: minecraft
+                  collection-prefix: customfishing
+                """.formatted(uri)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.disable();
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void onlyTheChangedFieldsAreWritten() {
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(ALICE, data(ALICE, "alice", 1)), false));
+        Document written = document(ALICE);
+        assertEquals(2, written.getInteger("schema"));
+        assertEquals("alice", written.getString("name"));
+        assertNotEquals(0, written.getInteger("lock"));
+
+        // a field changed behind the provider's back is left alone as long as the player's name doesn't change
+        collection.updateOne(Filters.eq("uuid", ALICE), Updates.set("name", "changed elsewhere"));
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(ALICE, data(ALICE, "alice", 2)), false));
+        written = document(ALICE);
+        assertEquals("changed elsewhere", written.getString("name"), "the unchanged name should not be written again");
+        assertEquals(2, amount(written, "fish"), "the changed statistics should be written");
+
+        // the written fields are forgotten once the data is unlocked, as the next server may change them, so the next write is made in full
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(ALICE, data(ALICE, "alice", 2)), true));
+        assertEquals(0, document(ALICE).getInteger("lock"));
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(ALICE, data(ALICE, "alice", 2)), false));
+        assertEquals("alice", document(ALICE).getString("name"));
+    }
+
+    @Test
+    void legacyDocumentIsConvertedOnItsNextWrite() {
+        collection.insertOne(new Document("uuid", ALICE)
+                .append("lock", 0)
+                .append("data", new Binary(StorageTestSupport.toBytes(data(ALICE, "alice", 3)))));
+
+        PlayerData data = provider.getPlayerData(ALICE, true, Runnable::run).join().orElseThrow();
+        assertEquals("alice", data.name());
+        assertEquals(3, data.statistics().amountMap.get("fish"));
+        assertFalse(data.locked());
+
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(ALICE, data), false));
+        Document written = document(ALICE);
+        assertFalse(written.containsKey("data"), "the binary data should be dropped");
+        assertEquals(2, written.getInteger("schema"));
+        assertEquals("alice", written.getString("name"));
+        assertEquals(3, amount(written, "fish"));
+
+        PlayerData read = provider.getPlayerData(ALICE, false, Runnable::run).join().orElseThrow();
+        assertEquals("alice", read.name());
+        assertEquals(3, read.statistics().amountMap.get("fish"));
+    }
+
+    @Test
+    void lockedDataIsReportedWithoutReadingIt() {
+        collection.insertOne(new Document("uuid", ALICE)
+                .append("lock", (int) (System.currentTimeMillis() / 1000))
+                .append("schema", 2)
+                .append("name", "alice"));
+
+        PlayerData data = provider.getPlayerData(ALICE, true, Runnable::run).join().orElseThrow();
+        assertTrue(data.locked());
+        assertEquals(PlayerData.DEFAULT_NAME, data.name());
+    }
+
+    @Test
+    void failedWritesAreMappedBackToTheirPlayers() {
+        // a unique name makes the write of one player fail on its own
+        collection.createIndex(Indexes.ascending("name"), new IndexOptions().unique(true));
+        collection.insertOne(new Document("uuid", UUID.randomUUID()).append("name", "taken"));
+
+        LinkedHashMap<UUID, PlayerData> batch = new LinkedHashMap<>();
+        batch.put(ALICE, data(ALICE, "alice", 1));
+        batch.put(BOB, data(BOB, "taken", 1));
+        batch.put(CAROL, data(CAROL, "carol", 1));
+        assertEquals(Set.of(BOB), provider.upsertManyPlayersData(batch, false));
+        assertEquals("alice", document(ALICE).getString("name"));
+        assertEquals("carol", document(CAROL).getString("name"), "the writes after a failed one should be made");
+        assertNull(collection.find(Filters.eq("uuid", BOB)).first());
+
+        // nothing is assumed about the failed write, the next one is made in full
+        assertEquals(Set.of(), provider.upsertManyPlayersData(Map.of(BOB, data(BOB, "bob", 1)), false));
+        Document bob = document(BOB);
+        assertEquals("bob", bob.getString("name"));
+        assertEquals(1, amount(bob, "fish"));
+    }
+
+    @Test
+    void manyPlayersAreReadAtOnce() {
+        LinkedHashMap<UUID, PlayerData> batch = new LinkedHashMap<>();
+        batch.put(ALICE, data(ALICE, "alice", 1));
+        batch.put(BOB, data(BOB, "bob", 2));
+        assertEquals(Set.of(), provider.upsertManyPlayersData(batch, true));
+
+        Map<UUID, PlayerData> read = provider.getManyPlayersData(List.of(ALICE, BOB, CAROL));
+        assertEquals(Set.of(ALICE, BOB), read.keySet());
+        assertEquals("bob", read.get(BOB).name());
+        assertEquals(2, read.get(BOB).statistics().amountMap.get("fish"));
+    }
+
+    private Document document(UUID uuid) {
+        Document document = collection.find(Filters.eq("uuid", uuid)).first();
+        assertNotNull(document, "no document for " + uuid);
+        return document;
+    }
+
+    private static int amount(Document document, String id) {
+        for (Document stat : document.getList("stats", Document.class)) {
+            if (id.equals(stat.getString("id"))) return stat.getInteger("amount");
+        }
+        return 0;
+    }
+
+    private static PlayerData data(UUID uuid, String name, int fish) {
+        return PlayerData.builder()
+                .uuid(uuid)
+                .name(name)
+                .statistics(new StatisticData(new HashMap<>(Map.of("fish", fish)), new HashMap<>(Map.of("fish", 10f))))
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.database.nosql;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.bukkit.storage.StorageTestSupport;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.args.ClientType;
+import redis.clients.jedis.params.ClientKillParams;
+import redis.embedded.RedisServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the handoff of player data between two servers through an embedded Redis server.
+ */
+class RedisManagerTest {
+
+    private static final int HANDOFF_TIMEOUT = 1500;
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+
+    private static RedisServer server;
+    private static int port;
+
+    @TempDir
+    File dataFolder;
+    // the server the player quits, and the one the player joins
+    private RedisManager previous;
+    private RedisManager next;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        if (server != null) server.stop();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        try (Jedis jedis = new Jedis("localhost", port)) {
+            jedis.flushAll();
+            // the readers of the previous test may still be blocked in a read
+            jedis.clientKill(ClientKillParams.clientKillParams().type(ClientType.NORMAL).skipMe(ClientKillParams.SkipMe.YES));
+        }
+        BukkitCustomFishingPlugin plugin = StorageTestSupport.plugin(dataFolder);
+        String config = """
+                Redis:
+                  host: localhost
+                  port: %d
+                  password: ""
+                  use-ssl: false
+                  MaxWaitMillis: 2000
+                  handoff-timeout: %d
+                """.formatted(port, HANDOFF_TIMEOUT);
+        previous = new RedisManager(plugin);
+        previous.initialize(StorageTestSupport.config(config));
+        next = new RedisManager(plugin);
+        next.initialize(StorageTestSupport.config(config));
+        awaitReaders(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        previous.disable();
+        next.disable();
+    }
+
+    @Test
+    void dataReleasedBeforeJoinIsTakenOver() throws Exception {
+        assertTrue(previous.releasePlayerData(ALICE, StorageTestSupport.data(ALICE, "alice")).get(2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Optional<PlayerData> data = next.acquirePlayerData(ALICE).get(2, TimeUnit.SECONDS);
+        assertEquals("alice", data.map(PlayerData::name).orElse(null));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < HANDOFF_TIMEOUT, "the kept data should be read without waiting");
+        assertEventually(() -> !exists("cf_data:" + ALICE), "the released data should be removed once taken over");
+    }
+
+    @Test
+    void dataReleasedAfterJoinArrivesByMessage() throws Exception {
+        CompletableFuture<Optional<PlayerData>> future = next.acquirePlayerData(ALICE);
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        assertTrue(previous.releasePlayerData(ALICE, StorageTestSupport.data(ALICE, "alice")).get(2, TimeUnit.SECONDS));
+
+        assertEquals("alice", future.get(2, TimeUnit.SECONDS).map(PlayerData::name).orElse(null));
+        assertEventually(() -> !exists("cf_data:" + ALICE), "the released data should be removed once taken over");
+    }
+
+    @Test
+    void lateMessageHitsTheTimeout() throws Exception {
+        // the previous server has started releasing the data, but its message comes after the timeout
+        try (Jedis jedis = new Jedis("localhost", port)) {
+            jedis.set("cf_server:" + ALICE, "1");
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Optional<PlayerData>> future = next.acquirePlayerData(ALICE);
+
+        Optional<PlayerData> data = future.get(HANDOFF_TIMEOUT + 2000, TimeUnit.MILLISECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(data.isEmpty(), "the data should be read from the database instead");
+        assertTrue(elapsed >= HANDOFF_TIMEOUT - 100, "the handoff should be awaited until the timeout, waited " + elapsed + " ms");
+
+        publishHandoff(ALICE, 1, "late");
+        Thread.sleep(300);
+        assertTrue(future.get().isEmpty(), "a message after the timeout should be ignored");
+    }
+
+    @Test
+    void staleVersionIsIgnored() throws Exception {
+        // the data was released twice, the message of the first release is delivered late
+        try (Jedis jedis = new Jedis("localhost", port)) {
+            jedis.set("cf_server:" + ALICE, "2");
+        }
+        CompletableFuture<Optional<PlayerData>> future = next.acquirePlayerData(ALICE);
+        Thread.sleep(200);
+
+        publishHandoff(ALICE, 1, "stale");
+        Thread.sleep(300);
+        assertFalse(future.isDone(), "the data of an older release should be ignored");
+
+        publishHandoff(ALICE, 2, "fresh");
+        assertEquals("fresh", future.get(2, TimeUnit.SECONDS).map(PlayerData::name).orElse(null));
+    }
+
+    // the same message as RedisManager#releasePlayerData publishes
+    private void publishHandoff(UUID uuid, long version, String name) throws IOException {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("default");
+            out.writeUTF("handoff");
+            out.writeUTF(uuid.toString());
+            out.writeUTF(String.valueOf(version));
+            out.write(StorageTestSupport.toBytes(StorageTestSupport.data(uuid, name)));
+            previous.publishRedisMessage(bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean exists(String key) {
+        try (Jedis jedis = new Jedis("localhost", port)) {
+            return jedis.exists(key);
+        }
+    }
+
+    // the stream readers only see the entries added after their first read
+    private static void awaitReaders(int count) throws InterruptedException {
+        assertEventually(() -> {
+            try (Jedis jedis = new Jedis("localhost", port)) {
+                return jedis.clientList().split("cmd=xread", -1).length - 1 >= count;
+            }
+        }, "the stream readers should be waiting for messages");
+    }
+
+    private static void assertEventually(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail(message);
+            Thread.sleep(20);
+        }
+    }
+}
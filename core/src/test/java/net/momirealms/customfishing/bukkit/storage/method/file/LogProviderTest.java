@@ -0,0 +1,233 @@
+/*
+ *  Copyright (C) <2024> <XiaoMoMi>
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package net.momirealms.customfishing.bukkit.storage.method.file;
+
+import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
+import net.momirealms.customfishing.api.storage.data.PlayerData;
+import net.momirealms.customfishing.bukkit.storage.StorageTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the data logs are read back as they were before a crash.
+ * The crashes are simulated by damaging the segments between two runs, or by writing the segments a crash leaves behind.
+ */
+class LogProviderTest {
+
+    private static final String CONFIG = """
+            LOG:
+              folder: log
+              segment-size: 16
+              compaction-interval: 10
+              compaction-threshold: 0.5
+            """;
+
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID CAROL = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+
+    @TempDir
+    File dataFolder;
+    private BukkitCustomFishingPlugin plugin;
+    private LogProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        plugin = StorageTestSupport.plugin(dataFolder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) provider.disable();
+    }
+
+    @Test
+    void tornLastRecordIsDropped() throws IOException {
+        open();
+        save(ALICE, "alice");
+        save(BOB, "bob-1");
+        save(BOB, "bob-2");
+        close();
+
+        // a crash in the middle of the last append leaves a part of it
+        File segment = segment(1);
+        long size = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(size - 5);
+        }
+
+        open();
+        assertEquals("alice", name(ALICE));
+        assertEquals("bob-1", name(BOB));
+        assertEquals(size - recordSize("bob-2"), segment.length(), "the torn record should be truncated");
+
+        // the next appends go after the last valid record
+        save(CAROL, "carol");
+        close();
+        open();
+        assertEquals("bob-1", name(BOB));
+        assertEquals("carol", name(CAROL));
+    }
+
+    @Test
+    void crcMismatchInTheMiddleKeepsTheFollowingRecords() throws IOException {
+        open();
+        save(BOB, "bob-1");
+        save(ALICE, "alice");
+        save(BOB, "bob-2");
+        save(CAROL, "carol");
+        close();
+
+        // damage the payload of bob-2, which is followed by the record of carol
+        File segment = segment(1);
+        long offset = recordSize("bob-1") + recordSize("alice") + 8 + 16 + 2;
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(offset);
+            int b = file.read();
+            file.seek(offset);
+            file.write(b ^ 0xFF);
+        }
+        long size = segment.length();
+
+        open();
+        assertEquals("alice", name(ALICE));
+        assertEquals("bob-1", name(BOB), "the previous data should be used for the damaged record");
+        assertEquals("carol", name(CAROL), "the records after the damaged one should be kept");
+        assertEquals(size, segment.length(), "nothing should be truncated as the last record is valid");
+    }
+
+    @Test
+    void crashBetweenCompactionSyncAndDeleteKeepsOneCopy() throws IOException {
+        File folder = new File(dataFolder, "log");
+        assertTrue(folder.mkdirs());
+        // segment 1 was compacted into segment 2, which got synced, but segment 1 wasn't deleted
+        write(new File(folder, "00000001.log"), record(ALICE, "alice"), record(BOB, "bob-old"), record(BOB, "bob"));
+        write(new File(folder, "00000002.log"), record(ALICE, "alice"), record(BOB, "bob"));
+
+        open();
+        assertEquals("alice", name(ALICE));
+        assertEquals("bob", name(BOB));
+        assertEquals(2, provider.getUniqueUsers().size());
+
+        // a newer write wins over both copies after another restart
+        save(ALICE, "alice-2");
+        close();
+        open();
+        assertEquals("alice-2", name(ALICE));
+        assertEquals("bob", name(BOB));
+    }
+
+    @Test
+    void indexIsRebuiltInSegmentOrder() throws IOException {
+        File folder = new File(dataFolder, "log");
+        assertTrue(folder.mkdirs());
+        // listed by name, 10 comes before 9
+        write(new File(folder, "9.log"), record(ALICE, "alice-9"), record(BOB, "bob-9"));
+        write(new File(folder, "10.log"), record(ALICE, "alice-10"));
+        write(new File(folder, "00000002.log"), record(ALICE, "alice-2"), record(BOB, "bob-2"), record(CAROL, "carol-2"));
+
+        open();
+        assertEquals("alice-10", name(ALICE));
+        assertEquals("bob-9", name(BOB));
+        assertEquals("carol-2", name(CAROL));
+
+        // the new records are appended to the last segment, so they win on the next restart
+        save(CAROL, "carol-10");
+        close();
+        assertEquals(2 * recordSize("alice-10"), new File(folder, "10.log").length());
+        open();
+        assertEquals("carol-10", name(CAROL));
+    }
+
+    @Test
+    void oversizedRecordIsRejected() {
+        open();
+        save(ALICE, "alice");
+        PlayerData huge = StorageTestSupport.data(BOB, "x".repeat(64 * 1024 * 1024));
+        // only the oversized data fails, the rest of the batch is written
+        assertEquals(Set.of(BOB), provider.upsertManyPlayersData(Map.of(BOB, huge, CAROL, StorageTestSupport.data(CAROL, "carol")), false));
+        assertEquals(Set.of(ALICE, CAROL), provider.getUniqueUsers());
+        close();
+        open();
+        assertEquals("alice", name(ALICE));
+        assertEquals("carol", name(CAROL));
+    }
+
+    private void open() {
+        provider = new LogProvider(plugin);
+        provider.initialize(StorageTestSupport.config(CONFIG));
+    }
+
+    private void close() {
+        provider.disable();
+        provider = null;
+    }
+
+    private void save(UUID uuid, String name) {
+        assertTrue(provider.updatePlayerData(uuid, StorageTestSupport.data(uuid, name), false).join());
+    }
+
+    private String name(UUID uuid) {
+        return provider.getPlayerData(uuid, false, Runnable::run).join().map(PlayerData::name).orElse(null);
+    }
+
+    private File segment(int id) {
+        return new File(dataFolder, "log/" + String.format("%08d", id) + ".log");
+    }
+
+    private static long recordSize(String name) {
+        return record(ALICE, name).length;
+    }
+
+    // the same layout as the provider: length, CRC32 of the body, and the body made of the UUID and the data
+    private static byte[] record(UUID uuid, String name) {
+        byte[] data = StorageTestSupport.toBytes(StorageTestSupport.data(uuid, name));
+        ByteBuffer body = ByteBuffer.allocate(16 + data.length);
+        body.putLong(uuid.getMostSignificantBits());
+        body.putLong(uuid.getLeastSignificantBits());
+        body.put(data);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        ByteBuffer record = ByteBuffer.allocate(8 + body.capacity());
+        record.putInt(body.capacity());
+        record.putInt((int) crc.getValue());
+        record.put(body.array());
+        return record.array();
+    }
+
+    private static void write(File file, byte[]... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] record : records) out.write(record);
+        Files.write(file.toPath(), out.toByteArray());
+    }
+}
@@ -3,3 +3,4 @@ include(":api")
 include(":core")
 include(":compatibility")
 include(":compatibility:j21")
+include(":benchmarks")